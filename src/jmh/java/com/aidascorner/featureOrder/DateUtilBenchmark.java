@@ -0,0 +1,40 @@
+package com.aidascorner.featureOrder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateUtilBenchmark {
+
+    @Param({"30", "365"})
+    int rangeDays;
+
+    private final LocalDate start = LocalDate.of(2024, 1, 1);
+
+    @Benchmark
+    public List<String> getDateStringsInRange() {
+        return DateUtil.getDateStringsInRange(start, start.plusDays(rangeDays - 1));
+    }
+
+    @Benchmark
+    public String formatDate() {
+        return DateUtil.formatDate(start);
+    }
+}
@@ -0,0 +1,133 @@
+package com.aidascorner.featureOrder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aidascorner.featureOrder.model.Order;
+
+/**
+ * A year of 100 branches x 200 products merged into range totals, with no Firestore in the way.
+ * {@code mapMerge} is the per-Order HashMap merge the range endpoint used before OrderAggregator,
+ * parsing every string quantity with the regex QuantityUtil used then. {@code columnarMerge} is
+ * today's path over days already held as DayColumns; {@code encodeAndMerge} adds the one-off
+ * encoding a cache miss pays.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class OrderAggregationBenchmark {
+
+    @Param({"100"})
+    int branches;
+
+    @Param({"200"})
+    int products;
+
+    @Param({"365"})
+    int days;
+
+    @Param({"0.3", "1.0"})
+    double density;
+
+    private String rangeKey;
+    private List<List<Order>> orders;
+    private List<DayColumns> columns;
+    private OrderDictionary branchDictionary;
+    private OrderDictionary productDictionary;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rangeKey = DateUtil.formatDate(OrderDataset.START) + " - "
+            + DateUtil.formatDate(OrderDataset.START.plusDays(days - 1));
+        orders = OrderDataset.orders(days, branches, products, density, 42);
+        branchDictionary = new OrderDictionary();
+        productDictionary = new OrderDictionary();
+        columns = new ArrayList<>(days);
+        for (int day = 0; day < days; day++) {
+            columns.add(DayColumns.encode(DateUtil.formatDate(OrderDataset.START.plusDays(day)),
+                orders.get(day), branchDictionary, productDictionary));
+        }
+    }
+
+    @Benchmark
+    public Map<String, List<Order>> mapMerge() {
+        Map<String, Order> mergedOrders = new HashMap<>();
+        Map<String, Double> totalProducts = new HashMap<>();
+        for (List<Order> day : orders) {
+            for (Order order : day) {
+                for (Map.Entry<String, String> entry : order.getProducts().entrySet()) {
+                    totalProducts.merge(entry.getKey(), regexParse(entry.getValue()), Double::sum);
+                }
+                Order existingOrder = mergedOrders.get(order.getBranchId());
+                if (existingOrder == null) {
+                    mergedOrders.put(order.getBranchId(), new Order(order.getBranchId(), order.getBranchName(),
+                        rangeKey, new HashMap<>(order.getProducts())));
+                    continue;
+                }
+                Map<String, String> existingProducts = existingOrder.getProducts();
+                for (Map.Entry<String, String> entry : order.getProducts().entrySet()) {
+                    String existing = existingProducts.get(entry.getKey());
+                    existingProducts.put(entry.getKey(), existing == null
+                        ? entry.getValue()
+                        : String.valueOf(regexParse(existing) + regexParse(entry.getValue())));
+                }
+            }
+        }
+
+        Map<String, String> totalProductsStr = new HashMap<>();
+        for (Map.Entry<String, Double> entry : totalProducts.entrySet()) {
+            totalProductsStr.put(entry.getKey(), String.valueOf(entry.getValue()));
+        }
+        mergedOrders.put(OrderAggregator.TOTAL_BRANCH_ID, new Order(OrderAggregator.TOTAL_BRANCH_ID,
+            OrderAggregator.TOTAL_BRANCH_NAME, rangeKey, totalProductsStr));
+
+        Map<String, List<Order>> allOrders = new HashMap<>();
+        allOrders.put(rangeKey, new ArrayList<>(mergedOrders.values()));
+        return allOrders;
+    }
+
+    @Benchmark
+    public Map<String, List<Order>> columnarMerge() {
+        OrderAggregator.RangeMerge merge = new OrderAggregator.RangeMerge(rangeKey, branchDictionary, productDictionary);
+        for (DayColumns day : columns) {
+            merge.addDay(day);
+        }
+        return merge.result(branchId -> branchId);
+    }
+
+    @Benchmark
+    public Map<String, List<Order>> encodeAndMerge() {
+        OrderAggregator.RangeMerge merge = new OrderAggregator.RangeMerge(rangeKey, branchDictionary, productDictionary);
+        for (List<Order> day : orders) {
+            merge.addDay(day);
+        }
+        return merge.result(branchId -> branchId);
+    }
+
+    private static double regexParse(String quantity) {
+        try {
+            return Double.parseDouble(quantity.replaceAll("[^0-9.-]", "").trim());
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.aidascorner.featureOrder;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aidascorner.featureOrder.model.OrderAnalytics;
+
+/**
+ * Range analytics through OrderService over a synthetic year against a zero-latency in-memory
+ * Firestore. With the cache on, the days come straight from the cached columns and the numbers
+ * are the parallel reduction; with it off they include reading and encoding every day.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderAnalyticsBenchmark {
+
+    private static final int DAYS = 365;
+
+    @Param({"30", "358"})
+    int rangeDays;
+
+    @Param({"false", "true"})
+    boolean cacheEnabled;
+
+    private FakeFirestore fake;
+    private OrderService orderService;
+    private LocalDate start;
+    private LocalDate end;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fake = new FakeFirestore(0);
+        OrderDataset.load(fake, DAYS, 20, 200, 0.3, 42);
+
+        OrderProperties properties = new OrderProperties();
+        properties.getCache().setEnabled(cacheEnabled);
+        properties.getCache().setMaxWeight(10_000_000);
+        orderService = OrderServiceFixture.orderService(fake.firestore(), properties);
+        // The week before the range is read for the deltas, so the range starts a week into the data
+        start = OrderDataset.START.plusDays(OrderAnalyzer.LEAD_DAYS);
+        end = start.plusDays(rangeDays - 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fake.close();
+    }
+
+    @Benchmark
+    public OrderAnalytics getAnalytics() throws Exception {
+        return orderService.getAnalyticsAsync(start, end, 10).get();
+    }
+}
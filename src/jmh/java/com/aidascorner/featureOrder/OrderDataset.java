@@ -0,0 +1,79 @@
+package com.aidascorner.featureOrder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.aidascorner.featureOrder.model.Order;
+
+/**
+ * Synthetic orders shaped like production data: every branch orders a subset of the product
+ * list each day, with quantities stored the ways Firestore hands them back (whole numbers,
+ * decimals, longs and the occasional unit suffix).
+ */
+final class OrderDataset {
+
+    static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    private OrderDataset() {
+    }
+
+    /**
+     * Fill the fake with {@code days} days starting at {@link #START}; the same seed gives the same data
+     */
+    static void load(FakeFirestore fake, int days, int branches, int products, double density, long seed) {
+        Random random = new Random(seed);
+        for (int day = 0; day < days; day++) {
+            String date = DateUtil.formatDate(START.plusDays(day));
+            for (int branch = 0; branch < branches; branch++) {
+                for (int product = 0; product < products; product++) {
+                    if (random.nextDouble() < density) {
+                        fake.put(date, "branch-" + branch, "product-" + product, quantity(random));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The same data as {@link #load} for the same seed, as the orders a read of each day returns
+     */
+    static List<List<Order>> orders(int days, int branches, int products, double density, long seed) {
+        Random random = new Random(seed);
+        List<List<Order>> orders = new ArrayList<>(days);
+        for (int day = 0; day < days; day++) {
+            String date = DateUtil.formatDate(START.plusDays(day));
+            List<Order> dayOrders = new ArrayList<>(branches);
+            for (int branch = 0; branch < branches; branch++) {
+                Map<String, String> productMap = new HashMap<>();
+                for (int product = 0; product < products; product++) {
+                    if (random.nextDouble() < density) {
+                        productMap.put("product-" + product, quantity(random).toString());
+                    }
+                }
+                if (!productMap.isEmpty()) {
+                    dayOrders.add(new Order("branch-" + branch, "branch-" + branch, date, productMap));
+                }
+            }
+            orders.add(dayOrders);
+        }
+        return orders;
+    }
+
+    static Object quantity(Random random) {
+        switch (random.nextInt(8)) {
+            case 0:
+                return (long) random.nextInt(50);
+            case 1:
+                return random.nextInt(20) + " kg";
+            case 2:
+            case 3:
+                return String.valueOf(random.nextInt(1000) / 10.0);
+            default:
+                return String.valueOf(random.nextInt(100));
+        }
+    }
+}
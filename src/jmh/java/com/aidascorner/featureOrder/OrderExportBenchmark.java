@@ -0,0 +1,82 @@
+package com.aidascorner.featureOrder;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A year-long export through OrderService against a zero-latency in-memory Firestore, written
+ * to a stream that only counts bytes. Run with -prof gc to see that allocation per export does
+ * not grow with the held heap: days are handed to the writer and dropped one at a time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderExportBenchmark {
+
+    private static final int DAYS = 365;
+
+    @Param({"CSV", "BINARY"})
+    OrderExportFormat format;
+
+    @Param({"false", "true"})
+    boolean gzip;
+
+    private FakeFirestore fake;
+    private OrderService orderService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fake = new FakeFirestore(0);
+        OrderDataset.load(fake, DAYS, 20, 200, 0.3, 42);
+        orderService = OrderServiceFixture.orderService(fake.firestore(), new OrderProperties());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fake.close();
+    }
+
+    @Benchmark
+    public long exportYear() throws Exception {
+        CountingOutputStream counter = new CountingOutputStream();
+        OutputStream out = gzip ? new GZIPOutputStream(counter, 64 * 1024) : counter;
+        OrderExportFormat.DayWriter writer = format.open(out);
+        orderService.exportOrdersForDateRange(OrderDataset.START, OrderDataset.START.plusDays(DAYS - 1),
+            (dateStr, orders) -> writer.writeDay(DateUtil.parseDate(dateStr), orders));
+        writer.finish();
+        out.close();
+        return counter.bytes;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
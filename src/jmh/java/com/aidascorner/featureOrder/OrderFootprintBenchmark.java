@@ -0,0 +1,124 @@
+package com.aidascorner.featureOrder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aidascorner.featureOrder.model.Order;
+
+/**
+ * Retained heap of a year of orders held as the List&lt;Order&gt; maps a read returns against the
+ * DayColumns the day cache keeps. Each invocation builds the year, forces collections until the
+ * used heap settles and reports the difference from before as {@code bytesPerMillionCells},
+ * alongside the {@code estimatedBytes} the cache statistics would show for the columns.
+ * The time score is only the build cost and not the point of this benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class OrderFootprintBenchmark {
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    @Param({"100"})
+    int branches;
+
+    @Param({"200"})
+    int products;
+
+    @Param({"365"})
+    int days;
+
+    @Param({"0.3", "1.0"})
+    double density;
+
+    @Param({"orders", "columns"})
+    String representation;
+
+    /**
+     * Per-invocation measurements, reported by JMH as secondary results. JMH sums these over
+     * measurement iterations, hence a single measured iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public double bytesPerMillionCells;
+        public double estimatedBytesPerMillionCells;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            bytesPerMillionCells = 0;
+            estimatedBytesPerMillionCells = 0;
+        }
+    }
+
+    @Benchmark
+    public Object retainedYear(Footprint footprint) {
+        long before = settledHeapUsed();
+
+        List<List<Order>> orders = OrderDataset.orders(days, branches, products, density, 42);
+        long cells = 0;
+        for (List<Order> day : orders) {
+            for (Order order : day) {
+                cells += order.getProducts().size();
+            }
+        }
+
+        Object retained = orders;
+        if (representation.equals("columns")) {
+            retained = encode(orders, footprint, cells);
+            orders = null;
+        }
+
+        long after = settledHeapUsed();
+        footprint.bytesPerMillionCells = (after - before) * 1_000_000.0 / cells;
+        return retained;
+    }
+
+    private List<DayColumns> encode(List<List<Order>> orders, Footprint footprint, long cells) {
+        OrderDictionary branchDictionary = new OrderDictionary();
+        OrderDictionary productDictionary = new OrderDictionary();
+        List<DayColumns> columns = new ArrayList<>(orders.size());
+        long estimatedBytes = 0;
+        for (int day = 0; day < orders.size(); day++) {
+            DayColumns encoded = DayColumns.encode(DateUtil.formatDate(OrderDataset.START.plusDays(day)),
+                orders.get(day), branchDictionary, productDictionary);
+            estimatedBytes += encoded.estimatedBytes();
+            columns.add(encoded);
+        }
+        footprint.estimatedBytesPerMillionCells = estimatedBytes * 1_000_000.0 / cells;
+        return columns;
+    }
+
+    private static long settledHeapUsed() {
+        long used = Long.MAX_VALUE;
+        for (int round = 0; round < 10; round++) {
+            System.gc();
+            long now = MEMORY.getHeapMemoryUsage().getUsed();
+            if (now >= used) {
+                return now;
+            }
+            used = now;
+        }
+        return used;
+    }
+}
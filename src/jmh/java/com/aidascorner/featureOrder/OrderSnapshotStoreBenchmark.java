@@ -0,0 +1,96 @@
+package com.aidascorner.featureOrder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aidascorner.core.firestore.FirestoreMetrics;
+import com.aidascorner.featureOrder.model.Order;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Restart-to-warm: each invocation starts a fresh OrderService (and opens the snapshot store,
+ * when enabled) and reads a synthetic year of closed days, as the first dashboards after a
+ * deploy would. Without the store every day is read from the fake Firestore at the given
+ * latency; with it, the days come from the file written during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class OrderSnapshotStoreBenchmark {
+
+    private static final int DAYS = 365;
+
+    @Param({"false", "true"})
+    boolean storeEnabled;
+
+    @Param({"20"})
+    long firestoreLatencyMillis;
+
+    private FakeFirestore fake;
+    private OrderProperties properties;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fake = new FakeFirestore(firestoreLatencyMillis);
+        OrderDataset.load(fake, DAYS, 20, 200, 0.3, 42);
+
+        file = Files.createTempFile("order-days", ".snapshot");
+        properties = new OrderProperties();
+        properties.getSnapshot().setEnabled(storeEnabled);
+        properties.getSnapshot().setPath(file.toString());
+        properties.getSnapshot().setVerify(false);
+        if (storeEnabled) {
+            // The instance before the restart fills the store
+            OrderSnapshotStore store = openStore();
+            OrderServiceFixture.orderService(fake.firestore(), properties, store)
+                .getOrdersForDateRange(OrderDataset.START, OrderDataset.START.plusDays(DAYS - 1));
+            store.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fake.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Map<String, List<Order>> restartAndReadYear() throws Exception {
+        OrderSnapshotStore store = openStore();
+        try {
+            return OrderServiceFixture.orderService(fake.firestore(), properties, store)
+                .getOrdersForDateRange(OrderDataset.START, OrderDataset.START.plusDays(DAYS - 1));
+        } finally {
+            store.close();
+        }
+    }
+
+    private OrderSnapshotStore openStore() throws Exception {
+        OrderSnapshotStore store = new OrderSnapshotStore(fake.firestore(), properties,
+            new FirestoreMetrics(new SimpleMeterRegistry()));
+        store.open();
+        return store;
+    }
+}
@@ -0,0 +1,43 @@
+package com.aidascorner.featureOrder;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * parseQuantity against the regex-and-parseDouble parsing it replaced
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuantityBenchmark {
+
+    @Param({"12", "2.5", "12 kg", "1.234.5"})
+    String quantity;
+
+    @Benchmark
+    public double parseQuantity() {
+        return QuantityUtil.parseQuantity(quantity);
+    }
+
+    @Benchmark
+    public double regexParse() {
+        try {
+            return Double.parseDouble(quantity.replaceAll("[^0-9.-]", "").trim());
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+}
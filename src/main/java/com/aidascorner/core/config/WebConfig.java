@@ -14,6 +14,7 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowCredentials(true)
                 .allowedHeaders("*")
+                .exposedHeaders("ETag", "Last-Modified")
                 .maxAge(3600); // 1 saat ön belleğe alma
     }
 } 
\ No newline at end of file
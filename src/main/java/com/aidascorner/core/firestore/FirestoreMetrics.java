@@ -0,0 +1,48 @@
+package com.aidascorner.core.firestore;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Latency and read-volume meters for Firestore calls, tagged by the operation that made them:
+ * {@code firestore.operation} (timer, with outcome) and {@code firestore.documents.read}.
+ */
+@Component
+public class FirestoreMetrics {
+
+    private final MeterRegistry registry;
+
+    public FirestoreMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Time a Firestore call from the moment it is issued until its future completes
+     */
+    public <T> CompletableFuture<T> timed(String operation, Supplier<CompletableFuture<T>> call) {
+        Timer.Sample sample = Timer.start(registry);
+        return call.get().whenComplete((result, error) ->
+            sample.stop(Timer.builder("firestore.operation")
+                .tag("operation", operation)
+                .tag("outcome", error == null ? "success" : "error")
+                .publishPercentileHistogram()
+                .register(registry)));
+    }
+
+    /**
+     * Record how many documents one read of the operation returned
+     */
+    public void documentsRead(String operation, int documents) {
+        DistributionSummary.builder("firestore.documents.read")
+            .tag("operation", operation)
+            .baseUnit("documents")
+            .register(registry)
+            .record(documents);
+    }
+}
@@ -0,0 +1,22 @@
+package com.aidascorner.core.web;
+
+/**
+ * ETag and Last-Modified for a response, taken before its body is built so a 304 never
+ * vouches for data newer than what the client was sent
+ */
+public record HttpValidator(String etag, long lastModifiedMillis) {
+
+    /**
+     * A strong ETag from version parts, e.g. {@code "k2x9f-14-3"}
+     */
+    public static HttpValidator of(long lastModifiedMillis, Object... parts) {
+        StringBuilder etag = new StringBuilder("\"");
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                etag.append('-');
+            }
+            etag.append(parts[i]);
+        }
+        return new HttpValidator(etag.append('"').toString(), lastModifiedMillis);
+    }
+}
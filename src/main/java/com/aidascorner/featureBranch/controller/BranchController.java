@@ -1,19 +1,27 @@
 package com.aidascorner.featureBranch.controller;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.aidascorner.core.web.HttpValidator;
 import com.aidascorner.featureBranch.model.Branch;
 import com.aidascorner.featureBranch.service.BranchService;
 
 import java.util.List;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("api")
 public class BranchController {
+    private static final Logger logger = LoggerFactory.getLogger(BranchController.class);
+
     private final BranchService branchService;
 
     public BranchController(BranchService branchService) {
@@ -24,13 +32,28 @@ public class BranchController {
      * GET /api/branches - Get all branches
      */
     @GetMapping("/branches")
-    public ResponseEntity<List<Branch>> getAllBranches(){
-        try {
-            List<Branch> branches = branchService.getAllBranches();
-            return ResponseEntity.ok(branches);
-        } catch (ExecutionException | InterruptedException e) {
-            e.printStackTrace();
-            return ResponseEntity.internalServerError().build();
+    public CompletableFuture<ResponseEntity<List<Branch>>> getAllBranches(WebRequest request){
+        // Taken before reading, so the tag never describes a newer directory than the one sent.
+        // The content hash rather than the version, which starts over on every boot.
+        String contentHash = branchService.getDirectoryContentHash();
+        HttpValidator validator = HttpValidator.of(branchService.getDirectoryLastModified(), "branches", contentHash);
+        if (contentHash != null && request.checkNotModified(validator.etag(), validator.lastModifiedMillis())) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(validator.etag())
+                .lastModified(validator.lastModifiedMillis())
+                .build());
         }
+        return branchService.getAllBranchesAsync()
+            .thenApply(branches -> {
+                ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(CacheControl.noCache());
+                if (contentHash != null) {
+                    response.eTag(validator.etag()).lastModified(validator.lastModifiedMillis());
+                }
+                return response.body(branches);
+            })
+            .exceptionally(e -> {
+                logger.error("Error getting branches", e);
+                return ResponseEntity.internalServerError().build();
+            });
     }
 }
@@ -0,0 +1,223 @@
+package com.aidascorner.featureBranch.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.aidascorner.core.firestore.FirestoreFutures;
+import com.aidascorner.core.firestore.FirestoreMetrics;
+import com.aidascorner.featureBranch.model.Branch;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-memory copy of the branchs collection. Readers get an immutable snapshot that is swapped
+ * atomically whenever the collection changes (snapshot listener) or, as a fallback, reloaded in
+ * the background once it is older than the TTL. Reads never wait on Firestore once loaded.
+ * A load read before the snapshot held is dropped, and one with the same content only restarts
+ * the TTL, so the version and last-modified time move only when the branches do.
+ */
+@Component
+public class BranchDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(BranchDirectory.class);
+
+    private final Firestore firestore;
+    private final BranchProperties.Directory settings;
+    private final FirestoreMetrics metrics;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicBoolean reloading = new AtomicBoolean();
+    private ListenerRegistration registration;
+
+    public BranchDirectory(Firestore firestore, BranchProperties properties, FirestoreMetrics metrics) {
+        this.firestore = firestore;
+        this.settings = properties.getDirectory();
+        this.metrics = metrics;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (settings.isListen()) {
+            registration = firestore.collection("branchs").addSnapshotListener((querySnapshot, error) -> {
+                if (error != null) {
+                    logger.error("Branch directory listener failed, relying on TTL reloads", error);
+                    return;
+                }
+                replace(querySnapshot);
+            });
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (registration != null) {
+            registration.remove();
+        }
+    }
+
+    /**
+     * All branches, loading them once if the directory is still empty
+     */
+    public List<Branch> getBranches() throws ExecutionException, InterruptedException {
+        return getBranchesAsync().get();
+    }
+
+    /**
+     * All branches, completing immediately once the directory is loaded
+     */
+    public CompletableFuture<List<Branch>> getBranchesAsync() {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            return reload().thenApply(Snapshot::branches);
+        }
+        refreshIfStale(current);
+        return CompletableFuture.completedFuture(current.branches());
+    }
+
+    /**
+     * The branch's name, or its id while the directory is not loaded or does not know it
+     */
+    public String nameOf(String branchId) {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            reloadInBackground();
+            return branchId;
+        }
+        refreshIfStale(current);
+        Branch branch = current.byId().get(branchId);
+        return branch == null || branch.getName() == null ? branchId : branch.getName();
+    }
+
+    /**
+     * Bumped whenever the branches change, so callers can tell whether the directory did
+     */
+    public long version() {
+        Snapshot current = snapshot.get();
+        return current == null ? 0 : current.version();
+    }
+
+    /**
+     * Hash of the branch ids and names, null while not loaded. Unlike {@link #version()} it
+     * survives restarts, so it can stand in for the directory in ETags. Counts as a read, since
+     * a 304 answered from it never asks for the branches themselves.
+     */
+    public String contentHash() {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            return null;
+        }
+        refreshIfStale(current);
+        return current.contentHash();
+    }
+
+    /**
+     * Wall-clock time the branches last changed, 0 while not loaded
+     */
+    public long lastModified() {
+        Snapshot current = snapshot.get();
+        return current == null ? 0 : current.changedAtMillis();
+    }
+
+    private void refreshIfStale(Snapshot current) {
+        if (System.nanoTime() - current.loadedAtNanos() > settings.getTtl().toNanos()) {
+            reloadInBackground();
+        }
+    }
+
+    private void reloadInBackground() {
+        if (reloading.compareAndSet(false, true)) {
+            reload().whenComplete((result, error) -> {
+                reloading.set(false);
+                if (error != null) {
+                    logger.warn("Reloading branch directory failed: {}", error.getMessage());
+                }
+            });
+        }
+    }
+
+    private CompletableFuture<Snapshot> reload() {
+        return metrics.timed("getAllBranches", () -> FirestoreFutures.toCompletableFuture(firestore.collection("branchs").get()))
+            .thenApply(querySnapshot -> {
+                metrics.documentsRead("getAllBranches", querySnapshot.size());
+                return replace(querySnapshot);
+            });
+    }
+
+    private Snapshot replace(QuerySnapshot querySnapshot) {
+        List<Branch> branches = new ArrayList<>();
+        Map<String, Branch> byId = new HashMap<>();
+        for (QueryDocumentSnapshot document : querySnapshot.getDocuments()) {
+            Branch branch = new Branch(document.getId(), document.getString("name"));
+            branches.add(branch);
+            byId.put(branch.getId(), branch);
+        }
+
+        String contentHash = contentHash(branches);
+        Timestamp readTime = querySnapshot.getReadTime();
+        Snapshot next = snapshot.updateAndGet(previous -> {
+            if (previous == null) {
+                return new Snapshot(Collections.unmodifiableList(branches), Collections.unmodifiableMap(byId),
+                    contentHash, 1, readTime, System.nanoTime(), System.currentTimeMillis());
+            }
+            if (isOlder(readTime, previous.readTime())) {
+                // A TTL reload that read before the listener's latest snapshot arrived
+                return previous;
+            }
+            if (previous.contentHash().equals(contentHash)) {
+                return new Snapshot(previous.branches(), previous.byId(), contentHash, previous.version(),
+                    readTime, System.nanoTime(), previous.changedAtMillis());
+            }
+            return new Snapshot(Collections.unmodifiableList(branches), Collections.unmodifiableMap(byId),
+                contentHash, previous.version() + 1, readTime, System.nanoTime(), System.currentTimeMillis());
+        });
+        logger.debug("Branch directory holds {} branches", next.branches().size());
+        return next;
+    }
+
+    private static boolean isOlder(Timestamp readTime, Timestamp current) {
+        return readTime != null && current != null && readTime.compareTo(current) < 0;
+    }
+
+    private static String contentHash(List<Branch> branches) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        List<Branch> sorted = new ArrayList<>(branches);
+        sorted.sort(Comparator.comparing(Branch::getId));
+        for (Branch branch : sorted) {
+            digest.update(branch.getId().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(branch.getName()).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return Long.toUnsignedString(ByteBuffer.wrap(digest.digest()).getLong(), 36);
+    }
+
+    private record Snapshot(List<Branch> branches, Map<String, Branch> byId, String contentHash, long version,
+                            Timestamp readTime, long loadedAtNanos, long changedAtMillis) {
+    }
+}
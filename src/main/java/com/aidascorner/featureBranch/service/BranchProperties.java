@@ -0,0 +1,28 @@
+package com.aidascorner.featureBranch.service;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "branches")
+public class BranchProperties {
+
+    private final Directory directory = new Directory();
+
+    @Data
+    public static class Directory {
+        /**
+         * Refresh the directory from a snapshot listener on the branchs collection
+         */
+        private boolean listen = true;
+        /**
+         * Age after which a read triggers a background reload, in case the listener is down or disabled
+         */
+        private Duration ttl = Duration.ofMinutes(5);
+    }
+}
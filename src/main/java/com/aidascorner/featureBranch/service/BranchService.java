@@ -3,37 +3,58 @@ package com.aidascorner.featureBranch.service;
 import org.springframework.stereotype.Service;
 
 import com.aidascorner.featureBranch.model.Branch;
-import com.google.api.core.ApiFuture;
-import com.google.cloud.firestore.Firestore;
-import com.google.cloud.firestore.QueryDocumentSnapshot;
-import com.google.cloud.firestore.QuerySnapshot;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 @Service
 public class BranchService {
-        private final Firestore firestore;
+        private final BranchDirectory branchDirectory;
         
-        public BranchService(Firestore firestore) {
-            this.firestore = firestore;
+        public BranchService(BranchDirectory branchDirectory) {
+            this.branchDirectory = branchDirectory;
         }
 
+        /**
+         * Get all branches from the in-memory directory
+         */
         public List<Branch> getAllBranches() throws ExecutionException, InterruptedException {
-            List<Branch> branches = new ArrayList<>();
+            return branchDirectory.getBranches();
+        }
 
-            ApiFuture<QuerySnapshot> future = firestore.collection("branchs").get();
-        
-            List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-            
-            for (QueryDocumentSnapshot document : documents) {
-                String id = document.getId();
-                String name = document.getString("name");
-
-                Branch branch = new Branch(id, name);
-                branches.add(branch);
-            }
-            return branches;
+        /**
+         * Get all branches without blocking the calling thread
+         */
+        public CompletableFuture<List<Branch>> getAllBranchesAsync() {
+            return branchDirectory.getBranchesAsync();
+        }
+
+        /**
+         * Get a branch's display name without touching Firestore, falling back to its id
+         */
+        public String getBranchName(String branchId) {
+            return branchDirectory.nameOf(branchId);
+        }
+
+        /**
+         * Version of the branch directory, 0 until it is loaded
+         */
+        public long getDirectoryVersion() {
+            return branchDirectory.version();
+        }
+
+        /**
+         * Hash of the branch directory's contents, null until it is loaded
+         */
+        public String getDirectoryContentHash() {
+            return branchDirectory.contentHash();
+        }
+
+        /**
+         * When the branch directory last changed
+         */
+        public long getDirectoryLastModified() {
+            return branchDirectory.lastModified();
         }
 }
@@ -0,0 +1,22 @@
+package com.aidascorner.featureOrder;
+
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+
+/**
+ * Identifies the orders/{dd.MM.yyyy}/branches/{branch} document an order line is written to
+ */
+record BranchDocKey(String date, String branch) {
+
+    DocumentReference reference(Firestore firestore) {
+        return shardReference(firestore, 0);
+    }
+
+    /**
+     * The document of one shard of the branch; shard 0 is the branch document itself
+     */
+    DocumentReference shardReference(Firestore firestore, int shard) {
+        return firestore.collection("orders").document(date).collection("branches")
+            .document(OrderShards.documentId(branch, shard));
+    }
+}
@@ -0,0 +1,213 @@
+package com.aidascorner.featureOrder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A limit on the total cost of the requests in flight, with a bounded queue in front of it.
+ * Requests that fit run at once; the rest wait in arrival order, and are shed with an
+ * {@link OrderAdmissionRejectedException} when the queue is full or they waited longer than the
+ * queue timeout. A request costing more than the whole limit is charged the limit, so it runs
+ * once it has the bulkhead to itself.
+ *
+ * The limit adapts to how the backend copes: a request that takes longer than the target
+ * latency, or fails, shrinks it by a tenth, and every request that finished in time while the
+ * bulkhead was at least half full grows it by a hundredth, between the configured bounds.
+ * Requests admitted before the last shrink saw the same spike, so they do not shrink it again:
+ * the limit backs off at most once per round of requests, however many were in flight.
+ */
+final class Bulkhead {
+
+    private static final double BACKOFF = 0.9;
+    private static final double GROWTH = 0.01;
+
+    private final String name;
+    private final boolean enabled;
+    private final OrderProperties.Limits settings;
+    private final Runnable onRejected;
+    // Guarded by this
+    private final Deque<Waiter> queue = new ArrayDeque<>();
+    private double limit;
+    private long inFlight;
+    private boolean backedOff;
+    private long lastBackoffNanos;
+
+    Bulkhead(String name, boolean enabled, OrderProperties.Limits settings, Runnable onRejected) {
+        this.name = name;
+        this.enabled = enabled;
+        this.settings = settings;
+        this.onRejected = onRejected;
+        this.limit = Math.max(settings.getMinLimit(), Math.min(settings.getMaxLimit(), settings.getInitialLimit()));
+    }
+
+    /**
+     * Run the call once the bulkhead admits its cost, and hand the capacity back when its result completes
+     */
+    <T> CompletableFuture<T> run(long cost, Supplier<CompletableFuture<T>> call) {
+        return acquire(cost).thenCompose(permit -> {
+            CompletableFuture<T> result;
+            try {
+                result = call.get();
+            } catch (RuntimeException e) {
+                release(permit, e);
+                throw e;
+            }
+            return result.whenComplete((value, error) -> release(permit, error));
+        });
+    }
+
+    /**
+     * Run a blocking call once the bulkhead admits its cost, waiting on the calling thread
+     */
+    <T> T call(long cost, Callable<T> call) throws Exception {
+        Permit permit;
+        try {
+            permit = acquire(cost).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+        try {
+            T value = call.call();
+            release(permit, null);
+            return value;
+        } catch (Exception e) {
+            release(permit, e);
+            throw e;
+        }
+    }
+
+    CompletableFuture<Permit> acquire(long cost) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(new Permit(0, System.nanoTime(), false));
+        }
+        Waiter waiter;
+        synchronized (this) {
+            long charged = Math.max(1, Math.min(cost, (long) limit));
+            if (queue.isEmpty() && fits(charged)) {
+                return CompletableFuture.completedFuture(admit(charged));
+            }
+            if (queue.size() >= settings.getMaxQueue()) {
+                onRejected.run();
+                return CompletableFuture.failedFuture(
+                    new OrderAdmissionRejectedException("Too many " + name + " waiting"));
+            }
+            waiter = new Waiter(charged, new CompletableFuture<>());
+            queue.addLast(waiter);
+        }
+
+        return waiter.permit()
+            .orTimeout(settings.getQueueTimeout().toMillis(), TimeUnit.MILLISECONDS)
+            .exceptionally(error -> {
+                synchronized (this) {
+                    queue.remove(waiter);
+                }
+                // Smaller requests behind it may fit now
+                dispatch();
+                onRejected.run();
+                throw new OrderAdmissionRejectedException("Timed out waiting for " + name + " capacity");
+            });
+    }
+
+    /**
+     * Hand a permit's capacity back and adapt the limit to how the request went. Requests
+     * rejected as invalid say nothing about the backend and leave the limit alone.
+     */
+    void release(Permit permit, Throwable error) {
+        if (!enabled) {
+            return;
+        }
+        long latencyNanos = System.nanoTime() - permit.startNanos();
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        synchronized (this) {
+            inFlight -= permit.cost();
+            if (cause instanceof IllegalArgumentException) {
+                // No signal either way
+            } else if (cause != null || latencyNanos > settings.getTargetLatency().toNanos()) {
+                if (!backedOff || permit.startNanos() - lastBackoffNanos > 0) {
+                    limit = Math.max(settings.getMinLimit(), limit * BACKOFF);
+                    backedOff = true;
+                    lastBackoffNanos = System.nanoTime();
+                }
+            } else if (permit.busy()) {
+                limit = Math.min(settings.getMaxLimit(), limit * (1 + GROWTH));
+            }
+        }
+        dispatch();
+    }
+
+    /**
+     * Hand a permit's capacity back without adapting the limit
+     */
+    void release(Permit permit) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            inFlight -= permit.cost();
+        }
+        dispatch();
+    }
+
+    synchronized double limit() {
+        return limit;
+    }
+
+    synchronized long inFlight() {
+        return inFlight;
+    }
+
+    synchronized int queued() {
+        return queue.size();
+    }
+
+    private boolean fits(long cost) {
+        return inFlight == 0 || inFlight + cost <= limit;
+    }
+
+    private Permit admit(long cost) {
+        inFlight += cost;
+        return new Permit(cost, System.nanoTime(), inFlight * 2 >= limit);
+    }
+
+    /**
+     * Admit queued requests that fit now. Their futures are completed outside the lock, since
+     * completing one runs the caller's call.
+     */
+    private void dispatch() {
+        List<Waiter> admitted = new ArrayList<>();
+        List<Permit> permits = new ArrayList<>();
+        synchronized (this) {
+            while (!queue.isEmpty() && fits(queue.peekFirst().cost())) {
+                Waiter waiter = queue.pollFirst();
+                admitted.add(waiter);
+                permits.add(admit(waiter.cost()));
+            }
+        }
+        for (int i = 0; i < admitted.size(); i++) {
+            if (!admitted.get(i).permit().complete(permits.get(i))) {
+                // Timed out just before it was admitted
+                synchronized (this) {
+                    inFlight -= permits.get(i).cost();
+                }
+                dispatch();
+            }
+        }
+    }
+
+    /**
+     * Capacity held by one admitted request
+     */
+    record Permit(long cost, long startNanos, boolean busy) {
+    }
+
+    private record Waiter(long cost, CompletableFuture<Permit> permit) {
+    }
+}
@@ -0,0 +1,162 @@
+package com.aidascorner.featureOrder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.aidascorner.featureOrder.model.Order;
+
+/**
+ * One day of orders stored column-wise: a row per branch document and a cell per product
+ * quantity, with branches and products dictionary-encoded. Rows own the cell range
+ * {@code rowStart[row]} to {@code rowStart[row + 1]}, so aggregation is a loop over flat arrays.
+ *
+ * Quantities are kept as parsed doubles. The string each was stored as is only kept when it
+ * cannot be rebuilt from the double, so single-day reads and range merges report the same
+ * strings as before. A cell costs 13 bytes (product id, quantity, format), plus its string when
+ * it is raw, against about 145 bytes for a HashMap entry with its key and value strings;
+ * OrderFootprintBenchmark measures both.
+ */
+final class DayColumns {
+
+    /** Quantity string is {@code String.valueOf(quantity)}, e.g. "2.5" */
+    static final byte CANONICAL = 0;
+    /** Quantity string is the whole number without a fraction, e.g. "3" */
+    static final byte INTEGER = 1;
+    /** Anything else; the string is kept in {@link #raw} */
+    static final byte RAW = 2;
+
+    private static final double MAX_EXACT_LONG = 0x1p53;
+
+    final String date;
+    final int[] branches;
+    final int[] rowStart;
+    final int[] products;
+    final double[] quantities;
+    final byte[] formats;
+    /** Null unless some cell is {@link #RAW} */
+    final String[] raw;
+
+    private DayColumns(String date, int[] branches, int[] rowStart, int[] products,
+                       double[] quantities, byte[] formats, String[] raw) {
+        this.date = date;
+        this.branches = branches;
+        this.rowStart = rowStart;
+        this.products = products;
+        this.quantities = quantities;
+        this.formats = formats;
+        this.raw = raw;
+    }
+
+    /**
+     * Encode a day's branch orders, parsing each quantity once
+     */
+    static DayColumns encode(String dateStr, List<Order> orders,
+                             OrderDictionary branchDictionary, OrderDictionary productDictionary) {
+        int cells = 0;
+        for (Order order : orders) {
+            cells += order.getProducts().size();
+        }
+
+        int[] branches = new int[orders.size()];
+        int[] rowStart = new int[orders.size() + 1];
+        int[] products = new int[cells];
+        double[] quantities = new double[cells];
+        byte[] formats = new byte[cells];
+        String[] raw = null;
+
+        int cell = 0;
+        for (int row = 0; row < orders.size(); row++) {
+            Order order = orders.get(row);
+            branches[row] = branchDictionary.intern(order.getBranchId());
+            rowStart[row] = cell;
+            for (Map.Entry<String, String> entry : order.getProducts().entrySet()) {
+                String quantityStr = entry.getValue();
+                double quantity = QuantityUtil.parseQuantity(quantityStr);
+                products[cell] = productDictionary.intern(entry.getKey());
+                quantities[cell] = quantity;
+                formats[cell] = formatOf(quantityStr, quantity);
+                if (formats[cell] == RAW) {
+                    if (raw == null) {
+                        raw = new String[cells];
+                    }
+                    raw[cell] = quantityStr;
+                }
+                cell++;
+            }
+        }
+        rowStart[orders.size()] = cell;
+
+        return new DayColumns(dateStr, branches, rowStart, products, quantities, formats, raw);
+    }
+
+    private static byte formatOf(String quantityStr, double quantity) {
+        if (quantityStr == null) {
+            return RAW;
+        }
+        if (quantityStr.equals(String.valueOf(quantity))) {
+            return CANONICAL;
+        }
+        if (quantity == Math.rint(quantity) && Math.abs(quantity) < MAX_EXACT_LONG
+                && quantityStr.equals(Long.toString((long) quantity))) {
+            return INTEGER;
+        }
+        return RAW;
+    }
+
+    int rows() {
+        return branches.length;
+    }
+
+    int cells() {
+        return products.length;
+    }
+
+    /**
+     * The quantity string the cell was stored as
+     */
+    String rawValue(int cell) {
+        switch (formats[cell]) {
+            case CANONICAL:
+                return String.valueOf(quantities[cell]);
+            case INTEGER:
+                return Long.toString((long) quantities[cell]);
+            default:
+                return raw[cell];
+        }
+    }
+
+    /**
+     * Decode back into one order per branch document, named by branch id like a fresh read
+     */
+    List<Order> toOrders(OrderDictionary branchDictionary, OrderDictionary productDictionary) {
+        List<Order> orders = new ArrayList<>(rows());
+        for (int row = 0; row < rows(); row++) {
+            Map<String, String> productMap = new HashMap<>();
+            for (int cell = rowStart[row]; cell < rowStart[row + 1]; cell++) {
+                productMap.put(productDictionary.name(products[cell]), rawValue(cell));
+            }
+            String branchId = branchDictionary.name(branches[row]);
+            orders.add(new Order(branchId, branchId, date, productMap));
+        }
+        return orders;
+    }
+
+    /**
+     * Approximate heap size of the arrays, including their headers
+     */
+    long estimatedBytes() {
+        long bytes = 16L * 5 + 4L * branches.length + 4L * rowStart.length
+            + 4L * products.length + 8L * quantities.length + formats.length;
+        if (raw != null) {
+            bytes += 16 + 4L * raw.length;
+            for (String value : raw) {
+                if (value != null) {
+                    bytes += 40 + value.length();
+                }
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,134 @@
+package com.aidascorner.featureOrder;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Fetches a list of days with at most {@code window} fetches outstanding and hands the
+ * results to a consumer strictly in input order.
+ *
+ * A slot is only freed once its day has been delivered, so a slow day at the head holds
+ * back new fetches instead of letting finished results pile up behind it. The consumer is
+ * never called concurrently, so it can merge into plain collections.
+ */
+final class DayFanOut<T> {
+
+    private final List<String> dates;
+    private final int window;
+    private final Function<String, CompletableFuture<T>> fetcher;
+    private final BiConsumer<String, T> consumer;
+    private final CompletableFuture<T>[] slots;
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private int launched;
+    private int delivered;
+
+    @SuppressWarnings("unchecked")
+    private DayFanOut(List<String> dates, int window,
+                      Function<String, CompletableFuture<T>> fetcher, BiConsumer<String, T> consumer) {
+        this.dates = dates;
+        this.window = Math.max(1, window);
+        this.fetcher = fetcher;
+        this.consumer = consumer;
+        this.slots = new CompletableFuture[dates.size()];
+    }
+
+    /**
+     * Fetch every date and pass each result to the consumer in the order of {@code dates}.
+     * The returned future completes once the last day has been consumed, or exceptionally
+     * with the first fetch or consumer failure.
+     */
+    static <T> CompletableFuture<Void> forEachOrdered(List<String> dates, int window,
+                                                      Function<String, CompletableFuture<T>> fetcher,
+                                                      BiConsumer<String, T> consumer) {
+        DayFanOut<T> fanOut = new DayFanOut<>(dates, window, fetcher, consumer);
+        fanOut.drain();
+        return fanOut.done;
+    }
+
+    /**
+     * Same as {@link #forEachOrdered} but the consumer runs on the calling thread, which blocks
+     * on the oldest outstanding fetch. Suited to consumers that do blocking I/O such as writing
+     * a response, since at most {@code window} results are ever held.
+     */
+    static <T> void forEachOrderedBlocking(List<String> dates, int window,
+                                           Function<String, CompletableFuture<T>> fetcher,
+                                           DayConsumer<T> consumer)
+            throws ExecutionException, InterruptedException, IOException {
+        Deque<CompletableFuture<T>> pending = new ArrayDeque<>();
+        int next = 0;
+
+        for (int delivered = 0; delivered < dates.size(); delivered++) {
+            while (next < dates.size() && pending.size() < Math.max(1, window)) {
+                pending.addLast(fetcher.apply(dates.get(next++)));
+            }
+            consumer.accept(dates.get(delivered), pending.removeFirst().get());
+        }
+    }
+
+    @FunctionalInterface
+    interface DayConsumer<T> {
+        void accept(String date, T result) throws IOException;
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (delivered < launched) {
+                CompletableFuture<T> head = slots[delivered];
+                if (!head.isDone()) {
+                    break;
+                }
+                slots[delivered] = null;
+                try {
+                    consumer.accept(dates.get(delivered), head.join());
+                } catch (CompletionException | CancellationException e) {
+                    done.completeExceptionally(unwrap(e));
+                    return;
+                } catch (RuntimeException e) {
+                    done.completeExceptionally(e);
+                    return;
+                }
+                delivered++;
+            }
+
+            if (delivered == dates.size()) {
+                done.complete(null);
+                return;
+            }
+
+            while (launched < dates.size() && launched - delivered < window) {
+                int index = launched++;
+                CompletableFuture<T> future;
+                try {
+                    future = fetcher.apply(dates.get(index));
+                } catch (RuntimeException e) {
+                    future = CompletableFuture.failedFuture(e);
+                }
+                slots[index] = future;
+                future.whenComplete((result, error) -> drain());
+            }
+
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        if (t instanceof CompletionException && t.getCause() != null) {
+            return t.getCause();
+        }
+        return t;
+    }
+}
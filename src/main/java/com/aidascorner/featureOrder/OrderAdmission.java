@@ -0,0 +1,63 @@
+package com.aidascorner.featureOrder;
+
+import java.time.Duration;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Separate bulkheads for order reads and writes, so long range reads cannot starve the
+ * branches' writes of threads or Firestore capacity. Each is observable as
+ * {@code orders.admission.limit}, {@code orders.admission.inflight} and
+ * {@code orders.admission.queued} gauges and an {@code orders.admission.rejected} counter,
+ * tagged by bulkhead.
+ */
+@Component
+public class OrderAdmission {
+
+    private final Bulkhead reads;
+    private final Bulkhead writes;
+    private final Duration retryAfter;
+
+    public OrderAdmission(OrderProperties properties, MeterRegistry registry) {
+        OrderProperties.Admission settings = properties.getAdmission();
+        this.reads = bulkhead("reads", settings.isEnabled(), settings.getReads(), registry);
+        this.writes = bulkhead("writes", settings.isEnabled(), settings.getWrites(), registry);
+        this.retryAfter = settings.getRetryAfter();
+    }
+
+    Bulkhead reads() {
+        return reads;
+    }
+
+    Bulkhead writes() {
+        return writes;
+    }
+
+    /**
+     * How long a shed caller should wait before trying again
+     */
+    Duration retryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Retry-After for shed requests, in whole seconds
+     */
+    String retryAfterSeconds() {
+        return Long.toString(Math.max(1, retryAfter.toSeconds()));
+    }
+
+    private static Bulkhead bulkhead(String name, boolean enabled, OrderProperties.Limits limits,
+                                     MeterRegistry registry) {
+        Counter rejected = Counter.builder("orders.admission.rejected").tag("bulkhead", name).register(registry);
+        Bulkhead bulkhead = new Bulkhead(name, enabled, limits, rejected::increment);
+        Gauge.builder("orders.admission.limit", bulkhead, Bulkhead::limit).tag("bulkhead", name).register(registry);
+        Gauge.builder("orders.admission.inflight", bulkhead, Bulkhead::inFlight).tag("bulkhead", name).register(registry);
+        Gauge.builder("orders.admission.queued", bulkhead, Bulkhead::queued).tag("bulkhead", name).register(registry);
+        return bulkhead;
+    }
+}
@@ -0,0 +1,11 @@
+package com.aidascorner.featureOrder;
+
+/**
+ * Thrown when a bulkhead sheds a request: its queue is full, or the request waited in it too long
+ */
+public class OrderAdmissionRejectedException extends RuntimeException {
+
+    public OrderAdmissionRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,167 @@
+package com.aidascorner.featureOrder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.aidascorner.featureOrder.model.Order;
+
+/**
+ * Aggregation of per-day branch orders into the totals served by the order endpoints.
+ * Each quantity is parsed once and summed as a double; strings are only produced for the result.
+ */
+final class OrderAggregator {
+
+    static final String TOTAL_BRANCH_ID = "total";
+    static final String TOTAL_BRANCH_NAME = "Total Across All Branches";
+
+    private OrderAggregator() {
+    }
+
+    /**
+     * Add the total across all branches as a special "branch" to a day's orders
+     */
+    static void addDayTotal(String dateStr, List<Order> orders) {
+        ProductTotals totals = new ProductTotals(false);
+        for (Order order : orders) {
+            for (Map.Entry<String, String> entry : order.getProducts().entrySet()) {
+                totals.add(entry.getKey(), entry.getValue());
+            }
+        }
+        orders.add(new Order(TOTAL_BRANCH_ID, TOTAL_BRANCH_NAME, dateStr, totals.toProducts()));
+    }
+
+    /**
+     * Merges the days of a range by branch, plus the total across all branches.
+     * Days must be added in date order. Sums live in arrays indexed by the dictionary ids,
+     * so each day is one pass over its columns.
+     */
+    static final class RangeMerge {
+
+        private final String dateRangeKey;
+        private final OrderDictionary branchDictionary;
+        private final OrderDictionary productDictionary;
+        private BranchTotals[] branches = new BranchTotals[16];
+        private double[] totals = new double[64];
+        private int[] totalCounts = new int[64];
+
+        RangeMerge(String dateRangeKey, OrderDictionary branchDictionary, OrderDictionary productDictionary) {
+            this.dateRangeKey = dateRangeKey;
+            this.branchDictionary = branchDictionary;
+            this.productDictionary = productDictionary;
+        }
+
+        void addDay(List<Order> ordersForDate) {
+            addDay(DayColumns.encode(null, ordersForDate, branchDictionary, productDictionary));
+        }
+
+        void addDay(DayColumns day) {
+            ensureProducts(productDictionary.size());
+            for (int row = 0; row < day.rows(); row++) {
+                BranchTotals branch = branch(day.branches[row]);
+                for (int cell = day.rowStart[row]; cell < day.rowStart[row + 1]; cell++) {
+                    int product = day.products[cell];
+                    double quantity = day.quantities[cell];
+                    branch.add(product, quantity, day, cell);
+                    totals[product] += quantity;
+                    totalCounts[product]++;
+                }
+            }
+        }
+
+        /**
+         * The merged orders under the range key, naming each branch with {@code branchNames}
+         */
+        Map<String, List<Order>> result(Function<String, String> branchNames) {
+            Map<String, Order> mergedOrders = new HashMap<>();
+            for (int id = 0; id < branches.length; id++) {
+                if (branches[id] != null) {
+                    String branchId = branchDictionary.name(id);
+                    mergedOrders.put(branchId,
+                        new Order(branchId, branchNames.apply(branchId), dateRangeKey, branches[id].toProducts()));
+                }
+            }
+
+            Map<String, String> totalProducts = new HashMap<>();
+            for (int product = 0; product < totalCounts.length; product++) {
+                if (totalCounts[product] > 0) {
+                    totalProducts.put(productDictionary.name(product), String.valueOf(totals[product]));
+                }
+            }
+            mergedOrders.put(TOTAL_BRANCH_ID, new Order(TOTAL_BRANCH_ID, TOTAL_BRANCH_NAME, dateRangeKey, totalProducts));
+
+            Map<String, List<Order>> allOrders = new HashMap<>();
+            allOrders.put(dateRangeKey, new ArrayList<>(mergedOrders.values()));
+            return allOrders;
+        }
+
+        private BranchTotals branch(int id) {
+            if (id >= branches.length) {
+                branches = Arrays.copyOf(branches, Math.max(id + 1, branches.length * 2));
+            }
+            BranchTotals branch = branches[id];
+            if (branch == null) {
+                branch = new BranchTotals(totals.length);
+                branches[id] = branch;
+            }
+            branch.ensureProducts(totals.length);
+            return branch;
+        }
+
+        private void ensureProducts(int productCount) {
+            if (productCount > totals.length) {
+                int capacity = Math.max(productCount, totals.length * 2);
+                totals = Arrays.copyOf(totals, capacity);
+                totalCounts = Arrays.copyOf(totalCounts, capacity);
+            }
+        }
+
+        /**
+         * A branch's sums. A product seen exactly once keeps the string it was stored as,
+         * matching how merged branch orders have always been reported.
+         */
+        private final class BranchTotals {
+            private double[] sums;
+            private int[] counts;
+            private String[] firstValues;
+
+            private BranchTotals(int productCount) {
+                sums = new double[productCount];
+                counts = new int[productCount];
+                firstValues = new String[productCount];
+            }
+
+            private void ensureProducts(int productCount) {
+                if (productCount > sums.length) {
+                    sums = Arrays.copyOf(sums, productCount);
+                    counts = Arrays.copyOf(counts, productCount);
+                    firstValues = Arrays.copyOf(firstValues, productCount);
+                }
+            }
+
+            private void add(int product, double quantity, DayColumns day, int cell) {
+                sums[product] += quantity;
+                if (counts[product]++ == 0) {
+                    firstValues[product] = day.rawValue(cell);
+                }
+            }
+
+            private Map<String, String> toProducts() {
+                Map<String, String> products = new HashMap<>();
+                for (int product = 0; product < counts.length; product++) {
+                    if (counts[product] == 0) {
+                        continue;
+                    }
+                    String value = counts[product] == 1 && firstValues[product] != null
+                        ? firstValues[product]
+                        : String.valueOf(sums[product]);
+                    products.put(productDictionary.name(product), value);
+                }
+                return products;
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.aidascorner.featureOrder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import com.aidascorner.featureOrder.model.OrderAnalytics;
+import com.aidascorner.featureOrder.model.RankedQuantity;
+
+/**
+ * Range analytics in one pass over the days' columns. The days are split in halves on the
+ * common fork-join pool; each task sums branch and product totals into its own arrays, and the
+ * halves are added together on the way back up. The per-day series are written in place, each
+ * task filling only its own days.
+ */
+final class OrderAnalyzer {
+
+    /**
+     * Days fetched before the range, so every day in it has a week-over-week delta
+     */
+    static final int LEAD_DAYS = 7;
+
+    /**
+     * Below this many days a task sums its days itself instead of splitting
+     */
+    private static final int SEQUENTIAL_DAYS = 16;
+
+    private OrderAnalyzer() {
+    }
+
+    /**
+     * @param days the {@link #LEAD_DAYS} before the range and then every day of it, in date order
+     * @param branchNames display name of a branch id
+     */
+    static OrderAnalytics analyze(LocalDate startDate, LocalDate endDate, List<DayColumns> days, int top,
+                                  OrderDictionary branchDictionary, OrderDictionary productDictionary,
+                                  Function<String, String> branchNames) {
+        int rangeDays = days.size() - LEAD_DAYS;
+        // The dictionaries only grow, so every id in the fetched days is below these
+        int branchCount = branchDictionary.size();
+        int productCount = productDictionary.size();
+
+        double[] allDayTotals = new double[days.size()];
+        double[][] series = new double[branchCount][rangeDays];
+        Sums sums = ForkJoinPool.commonPool().invoke(
+            new SumTask(days, 0, days.size(), allDayTotals, series, branchCount, productCount));
+
+        double[] dayTotals = new double[rangeDays];
+        double[] dayOverDay = new double[rangeDays];
+        double[] weekOverWeek = new double[rangeDays];
+        for (int day = 0; day < rangeDays; day++) {
+            int index = LEAD_DAYS + day;
+            dayTotals[day] = allDayTotals[index];
+            dayOverDay[day] = allDayTotals[index] - allDayTotals[index - 1];
+            weekOverWeek[day] = allDayTotals[index] - allDayTotals[index - LEAD_DAYS];
+        }
+
+        Map<String, double[]> branchSeries = new HashMap<>();
+        for (int branch = 0; branch < branchCount; branch++) {
+            if (sums.branchOrdered[branch]) {
+                branchSeries.put(branchDictionary.name(branch), series[branch]);
+            }
+        }
+
+        List<RankedQuantity> topProducts = top(sums.productTotals, sums.productOrdered, top, id -> {
+            String product = productDictionary.name(id);
+            return new RankedQuantity(product, product, sums.productTotals[id]);
+        });
+        List<RankedQuantity> topBranches = top(sums.branchTotals, sums.branchOrdered, top, id -> {
+            String branch = branchDictionary.name(id);
+            return new RankedQuantity(branch, branchNames.apply(branch), sums.branchTotals[id]);
+        });
+        return new OrderAnalytics(startDate, endDate, topProducts, topBranches, branchSeries,
+            dayTotals, dayOverDay, weekOverWeek);
+    }
+
+    /**
+     * The n largest totals, largest first, keeping a heap of n ids rather than sorting all of them.
+     * Ties go to the lower id.
+     */
+    static List<RankedQuantity> top(double[] totals, boolean[] ordered, int n, IntFunction<RankedQuantity> ranked) {
+        // Head is the id that drops out first: the smallest total, and of equal totals the higher id
+        Comparator<Integer> worstFirst = Comparator.<Integer>comparingDouble(id -> totals[id])
+            .thenComparing(Comparator.reverseOrder());
+        PriorityQueue<Integer> heap = new PriorityQueue<>(n + 1, worstFirst);
+        for (int id = 0; id < totals.length; id++) {
+            if (!ordered[id]) {
+                continue;
+            }
+            if (heap.size() < n) {
+                heap.add(id);
+            } else if (worstFirst.compare(id, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(id);
+            }
+        }
+
+        List<RankedQuantity> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            result.add(ranked.apply(heap.poll()));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Totals of the range days among a task's days; lead days only count towards the day totals
+     */
+    private static final class Sums {
+        final double[] branchTotals;
+        final double[] productTotals;
+        final boolean[] branchOrdered;
+        final boolean[] productOrdered;
+
+        Sums(int branchCount, int productCount) {
+            branchTotals = new double[branchCount];
+            productTotals = new double[productCount];
+            branchOrdered = new boolean[branchCount];
+            productOrdered = new boolean[productCount];
+        }
+
+        Sums add(Sums other) {
+            for (int i = 0; i < branchTotals.length; i++) {
+                branchTotals[i] += other.branchTotals[i];
+                branchOrdered[i] |= other.branchOrdered[i];
+            }
+            for (int i = 0; i < productTotals.length; i++) {
+                productTotals[i] += other.productTotals[i];
+                productOrdered[i] |= other.productOrdered[i];
+            }
+            return this;
+        }
+    }
+
+    private static final class SumTask extends RecursiveTask<Sums> {
+        private final List<DayColumns> days;
+        private final int from;
+        private final int to;
+        private final double[] dayTotals;
+        private final double[][] series;
+        private final int branchCount;
+        private final int productCount;
+
+        SumTask(List<DayColumns> days, int from, int to, double[] dayTotals, double[][] series,
+                int branchCount, int productCount) {
+            this.days = days;
+            this.from = from;
+            this.to = to;
+            this.dayTotals = dayTotals;
+            this.series = series;
+            this.branchCount = branchCount;
+            this.productCount = productCount;
+        }
+
+        @Override
+        protected Sums compute() {
+            if (to - from <= SEQUENTIAL_DAYS) {
+                return sumDays();
+            }
+            int middle = (from + to) >>> 1;
+            SumTask left = new SumTask(days, from, middle, dayTotals, series, branchCount, productCount);
+            left.fork();
+            Sums right = new SumTask(days, middle, to, dayTotals, series, branchCount, productCount).compute();
+            return left.join().add(right);
+        }
+
+        private Sums sumDays() {
+            Sums sums = new Sums(branchCount, productCount);
+            for (int index = from; index < to; index++) {
+                DayColumns day = days.get(index);
+                boolean inRange = index >= LEAD_DAYS;
+                double dayTotal = 0;
+                for (int row = 0; row < day.rows(); row++) {
+                    int branch = day.branches[row];
+                    double rowTotal = 0;
+                    for (int cell = day.rowStart[row]; cell < day.rowStart[row + 1]; cell++) {
+                        double quantity = day.quantities[cell];
+                        rowTotal += quantity;
+                        if (inRange) {
+                            sums.productTotals[day.products[cell]] += quantity;
+                            sums.productOrdered[day.products[cell]] = true;
+                        }
+                    }
+                    dayTotal += rowTotal;
+                    if (inRange) {
+                        sums.branchTotals[branch] += rowTotal;
+                        sums.branchOrdered[branch] = true;
+                        series[branch][index - LEAD_DAYS] += rowTotal;
+                    }
+                }
+                dayTotals[index] = dayTotal;
+            }
+            return sums;
+        }
+    }
+}
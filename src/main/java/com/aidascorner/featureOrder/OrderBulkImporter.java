@@ -0,0 +1,217 @@
+package com.aidascorner.featureOrder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.aidascorner.featureOrder.model.BulkOrderLine;
+import com.aidascorner.featureOrder.model.BulkOrderResult;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Streams order lines out of a request body (a JSON array or NDJSON) and writes them in
+ * commits of whole branch documents, with a bounded number of commits in flight.
+ * The body is never held in memory; only the lines of the commit being filled are, and the
+ * documents of the commits still in flight.
+ */
+@Service
+public class OrderBulkImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderBulkImporter.class);
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final OrderWriter orderWriter;
+    private final ObjectMapper objectMapper;
+    private final OrderProperties properties;
+
+    public OrderBulkImporter(OrderWriter orderWriter, ObjectMapper objectMapper, OrderProperties properties) {
+        this.orderWriter = orderWriter;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    /**
+     * Import every line of the body. Lines without a date use {@code defaultDate}.
+     */
+    public BulkOrderResult importOrders(InputStream body, LocalDate defaultDate) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Import run = new Import(defaultDate);
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+            while (token != null && token != JsonToken.END_ARRAY) {
+                JsonNode node = parser.readValueAsTree();
+                run.accept(node);
+                token = parser.nextToken();
+            }
+        } catch (JsonProcessingException e) {
+            // Malformed JSON: nothing after this point can be located reliably
+            run.reject(run.received + 1, "Malformed JSON, import stopped: " + e.getOriginalMessage());
+        } finally {
+            run.finish();
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        double seconds = Math.max(elapsedNanos, 1) / 1_000_000_000.0;
+        BulkOrderResult result = new BulkOrderResult(
+            run.received,
+            run.written.get(),
+            run.rejected.get(),
+            run.commits.get(),
+            elapsedNanos / 1_000_000,
+            run.written.get() / seconds,
+            new ArrayList<>(run.errors)
+        );
+        logger.info("Bulk import of {} lines: {} written, {} rejected in {} commits, {} items/s",
+            result.getReceived(), result.getWritten(), result.getRejected(), result.getCommits(),
+            Math.round(result.getItemsPerSecond()));
+        return result;
+    }
+
+    /**
+     * State of one import: the commit being filled and the ones in flight
+     */
+    private class Import {
+        private final LocalDate defaultDate;
+        private final int maxDocuments = orderWriter.maxDocumentsPerCommit();
+        private final int maxInFlight = Math.max(1, properties.getWrite().getBulk().getMaxInFlightCommits());
+        // Each commit holds a permit until its lines are counted, so taking them all waits for every commit
+        private final Semaphore inFlight = new Semaphore(maxInFlight);
+        // Commit still running for each document, so a later line never races an earlier one
+        private final Map<BranchDocKey, CompletableFuture<Void>> lastCommitByDocument = new ConcurrentHashMap<>();
+        private final List<BulkOrderResult.LineError> errors = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger written = new AtomicInteger();
+        private final AtomicInteger rejected = new AtomicInteger();
+        private final AtomicInteger commits = new AtomicInteger();
+        private Map<BranchDocKey, Map<String, Object>> documents = new LinkedHashMap<>();
+        private List<Integer> lines = new ArrayList<>();
+        private int received;
+
+        Import(LocalDate defaultDate) {
+            this.defaultDate = defaultDate;
+        }
+
+        void accept(JsonNode node) throws InterruptedException {
+            int line = ++received;
+            BulkOrderLine orderLine;
+            try {
+                orderLine = objectMapper.treeToValue(node, BulkOrderLine.class);
+            } catch (JsonProcessingException e) {
+                reject(line, e.getOriginalMessage());
+                return;
+            }
+
+            String invalid = validate(orderLine);
+            if (invalid != null) {
+                reject(line, invalid);
+                return;
+            }
+
+            LocalDate date = orderLine.getDate() == null ? defaultDate : LocalDate.parse(orderLine.getDate());
+            BranchDocKey key = new BranchDocKey(DateUtil.formatDate(date), orderLine.getBranch());
+            if (!documents.containsKey(key) && documents.size() >= maxDocuments) {
+                submit();
+            }
+            orderWriter.addLine(documents.computeIfAbsent(key, k -> new HashMap<>()), orderLine.getProduct(), orderLine.getQuantity());
+            lines.add(line);
+        }
+
+        private String validate(BulkOrderLine orderLine) {
+            if (orderLine.getBranch() == null || orderLine.getBranch().isBlank()) {
+                return "branch is required";
+            }
+            if (orderLine.getProduct() == null || orderLine.getProduct().isBlank()) {
+                return "product is required";
+            }
+            if (orderLine.getQuantity() == null) {
+                return "quantity is required";
+            }
+            if (orderLine.getDate() == null) {
+                return defaultDate == null ? "date is required" : null;
+            }
+            try {
+                LocalDate.parse(orderLine.getDate());
+                return null;
+            } catch (DateTimeParseException e) {
+                return "date must be yyyy-MM-dd";
+            }
+        }
+
+        private void submit() throws InterruptedException {
+            if (documents.isEmpty()) {
+                return;
+            }
+            Map<BranchDocKey, Map<String, Object>> chunk = documents;
+            List<Integer> chunkLines = lines;
+            documents = new LinkedHashMap<>();
+            lines = new ArrayList<>();
+
+            List<CompletableFuture<Void>> earlier = new ArrayList<>();
+            for (BranchDocKey key : chunk.keySet()) {
+                CompletableFuture<Void> previous = lastCommitByDocument.get(key);
+                if (previous != null && !previous.isDone()) {
+                    earlier.add(previous);
+                }
+            }
+
+            inFlight.acquire();
+            CompletableFuture<Void> commit = CompletableFuture.allOf(earlier.toArray(new CompletableFuture[0]))
+                .handle((ignored, error) -> null)
+                .thenCompose(ignored -> orderWriter.writeAll("bulkImport", chunk));
+
+            // Registered before the cleanup below, which may run at once if the commit is already done
+            for (BranchDocKey key : chunk.keySet()) {
+                lastCommitByDocument.put(key, commit);
+            }
+            commit.whenComplete((ignored, error) -> {
+                for (BranchDocKey key : chunk.keySet()) {
+                    lastCommitByDocument.remove(key, commit);
+                }
+                commits.incrementAndGet();
+                if (error == null) {
+                    written.addAndGet(chunkLines.size());
+                } else {
+                    String message = "Commit failed: " + error.getMessage();
+                    for (Integer line : chunkLines) {
+                        reject(line, message);
+                    }
+                }
+                inFlight.release();
+            });
+        }
+
+        void reject(int line, String message) {
+            rejected.incrementAndGet();
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new BulkOrderResult.LineError(line, message));
+            }
+        }
+
+        void finish() throws InterruptedException {
+            submit();
+            inFlight.acquire(maxInFlight);
+        }
+    }
+}
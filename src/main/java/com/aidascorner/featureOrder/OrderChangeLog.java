@@ -0,0 +1,266 @@
+package com.aidascorner.featureOrder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.aidascorner.featureOrder.model.OrderChange;
+import com.aidascorner.featureOrder.model.OrderChangeSet;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.UpdateBuilder;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Log of order writes for delta sync. Every commit that writes branch documents also writes one
+ * orderChanges/{id} document per branch document, holding the products written and the commit
+ * time. A single snapshot listener tails the log into memory, so polls are answered from memory
+ * without reading Firestore, however many clients poll.
+ *
+ * A token is the read time of the listener snapshot a poll was answered from: every change
+ * committed up to then is in memory, and later ones arrive in later snapshots. Changes older
+ * than the retention are dropped; a token from before then gets a reset.
+ *
+ * If the listener fails, polls are refused until it is attached again, which is retried with
+ * exponential backoff. The new listener replays the log from the horizon, so no change committed
+ * in between is lost.
+ */
+@Component
+public class OrderChangeLog {
+
+    static final String COLLECTION = "orderChanges";
+    static final String AT_FIELD = "at";
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderChangeLog.class);
+    private static final Duration MIN_RETRY = Duration.ofSeconds(1);
+    private static final Duration MAX_RETRY = Duration.ofMinutes(1);
+
+    private final Firestore firestore;
+    private final OrderProperties.Changes settings;
+    // Guarded by this, in commit order
+    private final List<Entry> entries = new ArrayList<>();
+    // Every change committed after this is held
+    private long horizonMicros;
+    // Read time of the last applied snapshot, -1 until the first one or after a listener error
+    private long tokenMicros = -1;
+    // The next snapshot replays the log from the horizon
+    private boolean replay;
+    private int failures;
+    private boolean stopped;
+    private ListenerRegistration registration;
+
+    public OrderChangeLog(Firestore firestore, OrderProperties properties) {
+        this.firestore = firestore;
+        this.settings = properties.getChanges();
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        long fromMillis = System.currentTimeMillis() - settings.getRetention().toMillis();
+        horizonMicros = TimeUnit.MILLISECONDS.toMicros(fromMillis);
+        attach();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        stopped = true;
+        if (registration != null) {
+            registration.remove();
+        }
+    }
+
+    private synchronized void attach() {
+        if (stopped) {
+            return;
+        }
+        replay = true;
+        registration = firestore.collection(COLLECTION)
+            .whereGreaterThan(AT_FIELD, Timestamp.ofTimeMicroseconds(horizonMicros))
+            .orderBy(AT_FIELD)
+            .addSnapshotListener((snapshot, error) -> {
+                if (error != null) {
+                    failed(error);
+                    return;
+                }
+                apply(snapshot);
+            });
+    }
+
+    private synchronized void failed(Exception error) {
+        tokenMicros = -1;
+        long delayMillis = Math.min(MAX_RETRY.toMillis(), MIN_RETRY.toMillis() << Math.min(failures, 16));
+        failures++;
+        logger.error("Order change log listener failed, attaching again in {}ms", delayMillis, error);
+        if (registration != null) {
+            registration.remove();
+        }
+        CompletableFuture.runAsync(this::attach, CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * One change document per branch document joins the commit; 0 writes when the log is off
+     */
+    int writesPerDocument() {
+        return isEnabled() ? 1 : 0;
+    }
+
+    /**
+     * Add the change documents for the branch documents being committed
+     */
+    void addTo(UpdateBuilder<?> writes, Map<BranchDocKey, Map<String, Object>> documents, boolean increment) {
+        if (!isEnabled()) {
+            return;
+        }
+        Timestamp expireAt = Timestamp.ofTimeMicroseconds(TimeUnit.MILLISECONDS.toMicros(
+            System.currentTimeMillis() + settings.getRetention().toMillis()));
+
+        for (Map.Entry<BranchDocKey, Map<String, Object>> document : documents.entrySet()) {
+            Map<String, Object> products = new HashMap<>();
+            document.getValue().forEach((field, value) -> {
+                if (!OrderDayIndex.isReservedField(field)) {
+                    products.put(field, value);
+                }
+            });
+
+            Map<String, Object> change = new HashMap<>();
+            change.put("date", document.getKey().date());
+            change.put("branch", document.getKey().branch());
+            change.put("products", products);
+            change.put("increment", increment);
+            change.put(AT_FIELD, FieldValue.serverTimestamp());
+            change.put(OrderWriter.EXPIRE_FIELD, expireAt);
+            writes.set(firestore.collection(COLLECTION).document(), change);
+        }
+    }
+
+    /**
+     * Every product quantity written after the token, and the token to poll with next.
+     * Without a token, only the current token.
+     *
+     * @throws IllegalArgumentException if the token is not one this log handed out
+     * @throws IllegalStateException if the listener is not in sync
+     */
+    public synchronized OrderChangeSet changesSince(String token) {
+        if (tokenMicros < 0) {
+            throw new IllegalStateException("Order change log is not in sync");
+        }
+        if (token == null) {
+            return new OrderChangeSet(encode(tokenMicros), false, List.of());
+        }
+
+        long since = decode(token);
+        if (since < horizonMicros) {
+            return new OrderChangeSet(encode(tokenMicros), true, List.of());
+        }
+
+        List<OrderChange> changes = new ArrayList<>();
+        for (int i = firstAfter(since); i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            entry.products().forEach((product, quantity) -> changes.add(
+                new OrderChange(entry.date(), entry.branch(), product, quantity, entry.increment())));
+        }
+        // Another instance's listener may be ahead of this one
+        return new OrderChangeSet(encode(Math.max(since, tokenMicros)), false, changes);
+    }
+
+    synchronized void apply(QuerySnapshot snapshot) {
+        if (replay) {
+            // A new listener delivers everything since the horizon again
+            entries.clear();
+            replay = false;
+        }
+        failures = 0;
+        List<Entry> added = new ArrayList<>();
+        for (DocumentChange change : snapshot.getDocumentChanges()) {
+            if (change.getType() == DocumentChange.Type.ADDED) {
+                added.add(toEntry(change.getDocument()));
+            }
+        }
+        added.sort(Comparator.comparingLong(Entry::atMicros));
+        entries.addAll(added);
+        tokenMicros = micros(snapshot.getReadTime());
+        trim();
+    }
+
+    /**
+     * Drop the changes that fell out of the retention and move the horizon past them
+     */
+    private void trim() {
+        long cutoff = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis() - settings.getRetention().toMillis());
+        int drop = firstAfter(cutoff);
+        if (drop > 0) {
+            horizonMicros = entries.get(drop - 1).atMicros();
+            entries.subList(0, drop).clear();
+        }
+    }
+
+    /**
+     * Index of the first entry committed after the time
+     */
+    private int firstAfter(long micros) {
+        int low = 0;
+        int high = entries.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries.get(mid).atMicros() <= micros) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Entry toEntry(QueryDocumentSnapshot document) {
+        Map<String, String> products = new HashMap<>();
+        Object stored = document.get("products");
+        if (stored instanceof Map) {
+            ((Map<String, Object>) stored).forEach((product, quantity) -> products.put(product, QuantityUtil.formatQuantity(quantity)));
+        }
+        return new Entry(micros(document.getTimestamp(AT_FIELD)), document.getString("date"),
+            document.getString("branch"), products, Boolean.TRUE.equals(document.getBoolean("increment")));
+    }
+
+    private static long micros(Timestamp timestamp) {
+        return TimeUnit.SECONDS.toMicros(timestamp.getSeconds()) + TimeUnit.NANOSECONDS.toMicros(timestamp.getNanos());
+    }
+
+    private static String encode(long micros) {
+        return Long.toString(micros, 36);
+    }
+
+    private static long decode(String token) {
+        try {
+            return Long.parseLong(token, 36);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid change token: " + token);
+        }
+    }
+
+    private record Entry(long atMicros, String date, String branch, Map<String, String> products, boolean increment) {
+    }
+}
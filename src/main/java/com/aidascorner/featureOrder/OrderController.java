@@ -4,15 +4,46 @@ package com.aidascorner.featureOrder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.aidascorner.core.web.HttpValidator;
+import com.aidascorner.featureOrder.model.BulkOrderResult;
+import com.aidascorner.featureOrder.model.CacheStatistics;
+import com.aidascorner.featureOrder.model.DayFieldStampStatus;
+import com.aidascorner.featureOrder.model.LiveViewStatus;
 import com.aidascorner.featureOrder.model.Order;
+import com.aidascorner.featureOrder.model.OrderAnalytics;
+import com.aidascorner.featureOrder.model.OrderChangeSet;
+import com.aidascorner.featureOrder.model.OrderFilter;
 import com.aidascorner.featureOrder.model.OrderItem;
+import com.aidascorner.featureOrder.model.OrderQueryResult;
+import com.aidascorner.featureOrder.model.OrderQuerySpec;
+import com.aidascorner.featureOrder.model.OrderStreamRecord;
+import com.aidascorner.featureOrder.model.RangeTotals;
+import com.aidascorner.featureOrder.model.TotalsRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 public class OrderController {
@@ -20,49 +51,339 @@ public class OrderController {
     private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
     
     private final OrderService orderService;
+    private final OrderBulkImporter bulkImporter;
+    private final OrderTotalsService totalsService;
+    private final OrderChangeLog changeLog;
+    private final OrderAdmission admission;
+    private final ObjectMapper objectMapper;
+    private final OrderProperties properties;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, OrderBulkImporter bulkImporter,
+                           OrderTotalsService totalsService, OrderChangeLog changeLog, OrderAdmission admission,
+                           ObjectMapper objectMapper, OrderProperties properties) {
         this.orderService = orderService;
+        this.changeLog = changeLog;
+        this.admission = admission;
+        this.properties = properties;
+        this.totalsService = totalsService;
+        this.bulkImporter = bulkImporter;
+        this.objectMapper = objectMapper;
         logger.info("OrderController initialized");
     }
 
     /**
      * GET /api/orders/date/{date} - Get orders for a specific date
      * Date format: yyyy-MM-dd
+     * Optional: branches and products (comma-separated) to return only those; limit to page by
+     * branch id, with startAfter set to the last branchId of the previous page
      */
     @GetMapping("/api/orders/date/{date}")
-    public ResponseEntity<List<Order>> getOrdersByDate(
-            @PathVariable("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+    public CompletableFuture<ResponseEntity<List<Order>>> getOrdersByDate(
+            @PathVariable("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) List<String> branches,
+            @RequestParam(required = false) List<String> products,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String startAfter,
+            WebRequest request) {
         logger.info("Received request for orders on date: {}", date);
         try {
-            List<Order> orders = orderService.getOrdersByDate(date);
-            logger.info("Returning {} orders for date {}", orders.size(), date);
-            return ResponseEntity.ok(orders);
+            HttpValidator validator = orderService.getDayValidator(date);
+            if (validator != null && request.checkNotModified(validator.etag(), validator.lastModifiedMillis())) {
+                return CompletableFuture.completedFuture(notModified(validator));
+            }
+            OrderFilter filter = new OrderFilter(branches, products, limit, startAfter);
+            return withTimeout(admission.reads().run(orderService.estimateReadCost(date, date),
+                    () -> orderService.getOrdersByDateAsync(date, filter)))
+                .thenApply(orders -> {
+                    logger.info("Returning {} orders for date {}", orders.size(), date);
+                    return conditional(validator, date).body(orders);
+                })
+                .exceptionally(e -> failed(e, "Error getting orders for date: " + date));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected orders request: {}", e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
         } catch (Exception e) {
             logger.error("Error getting orders for date: " + date, e);
-            return ResponseEntity.internalServerError().build();
+            return CompletableFuture.completedFuture(ResponseEntity.internalServerError().build());
         }
     }
 
     /**
      * GET /api/orders - Get orders for a date range
      * Date format: yyyy-MM-dd
+     * Optional: branches and products (comma-separated) to return only those
      */
     @GetMapping("/api/orders")
-    public ResponseEntity<Map<String, List<Order>>> getOrdersForDateRange(
+    public CompletableFuture<ResponseEntity<Map<String, List<Order>>>> getOrdersForDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) List<String> branches,
+            @RequestParam(required = false) List<String> products,
+            WebRequest request) {
         logger.info("Received request for orders between {} and {}", startDate, endDate);
         try {
-            Map<String, List<Order>> orders = orderService.getOrdersForDateRange(startDate, endDate);
-            logger.info("Returning orders for {} dates", orders.size());
-            return ResponseEntity.ok(orders);
+            HttpValidator validator = orderService.getRangeValidator(startDate, endDate);
+            if (validator != null && request.checkNotModified(validator.etag(), validator.lastModifiedMillis())) {
+                return CompletableFuture.completedFuture(notModified(validator));
+            }
+            OrderFilter filter = new OrderFilter(branches, products, null, null);
+            return withTimeout(admission.reads().run(orderService.estimateReadCost(startDate, endDate),
+                    () -> orderService.getOrdersForDateRangeAsync(startDate, endDate, filter)))
+                .thenApply(orders -> {
+                    logger.info("Returning orders for {} dates", orders.size());
+                    return conditional(validator, endDate).body(orders);
+                })
+                .exceptionally(e -> failed(e, "Error getting orders for date range"));
         } catch (Exception e) {
             logger.error("Error getting orders for date range", e);
-            return ResponseEntity.internalServerError().build();
+            return CompletableFuture.completedFuture(ResponseEntity.internalServerError().build());
+        }
+    }
+
+    private <T> CompletableFuture<T> withTimeout(CompletableFuture<T> read) {
+        return read.orTimeout(properties.getHttp().getRequestTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static <T> ResponseEntity<T> notModified(HttpValidator validator) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+            .eTag(validator.etag())
+            .lastModified(validator.lastModifiedMillis())
+            .build();
+    }
+
+    /**
+     * 429 when the read bulkhead shed the request, 400 when the service rejected it, 504 when
+     * the read outlived the request timeout, 500 for anything else
+     */
+    private <T> ResponseEntity<T> failed(Throwable error, String message) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof OrderAdmissionRejectedException) {
+            logger.warn("{}: {}", message, cause.getMessage());
+            return tooManyRequests();
+        }
+        if (cause instanceof IllegalArgumentException) {
+            logger.warn("{}: {}", message, cause.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        if (cause instanceof TimeoutException) {
+            logger.warn("{}: timed out", message);
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build();
+        }
+        logger.error(message, cause);
+        return ResponseEntity.internalServerError().build();
+    }
+
+    private <T> ResponseEntity<T> tooManyRequests() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, admission.retryAfterSeconds())
+            .build();
+    }
+
+    /**
+     * POST /api/orders/query - Several days and ranges in one call, each distinct day read once
+     * Body: [{"date": "yyyy-MM-dd"}, {"startDate": "yyyy-MM-dd", "endDate": "yyyy-MM-dd"}, ...]
+     */
+    @PostMapping("/api/orders/query")
+    public CompletableFuture<ResponseEntity<List<OrderQueryResult>>> query(@RequestBody List<OrderQuerySpec> specs) {
+        try {
+            return withTimeout(admission.reads().run(queryCost(specs), () -> orderService.queryAsync(specs)))
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(e -> failed(e, "Error answering order query"));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected order query: {}", e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
         }
     }
 
+    /**
+     * GET /api/orders/analytics - Top products and branches, per-branch daily series and
+     * day-over-day and week-over-week deltas for a date range
+     * Date format: yyyy-MM-dd; top (default 10) limits the ranked lists
+     */
+    @GetMapping("/api/orders/analytics")
+    public CompletableFuture<ResponseEntity<OrderAnalytics>> getAnalytics(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "10") int top) {
+        logger.info("Received request for order analytics between {} and {}", startDate, endDate);
+        try {
+            long cost = orderService.estimateReadCost(startDate.minusDays(OrderAnalyzer.LEAD_DAYS), endDate);
+            return withTimeout(admission.reads().run(cost, () -> orderService.getAnalyticsAsync(startDate, endDate, top)))
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(e -> failed(e, "Error computing order analytics"));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected analytics request: {}", e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+    }
+
+    /**
+     * Read cost of a batch query; invalid specs cost nothing here and are rejected by the service
+     */
+    private long queryCost(List<OrderQuerySpec> specs) {
+        long cost = 0;
+        for (OrderQuerySpec spec : specs == null ? List.<OrderQuerySpec>of() : specs) {
+            LocalDate startDate = spec.getDate() != null ? spec.getDate() : spec.getStartDate();
+            LocalDate endDate = spec.getDate() != null ? spec.getDate() : spec.getEndDate();
+            if (startDate != null && endDate != null) {
+                cost += orderService.estimateReadCost(startDate, endDate);
+            }
+        }
+        return cost;
+    }
+
+    /**
+     * 200 with the validator, if any. Responses that end before today may be cached for a while;
+     * anything covering today is revalidated on every use.
+     */
+    private ResponseEntity.BodyBuilder conditional(HttpValidator validator, LocalDate lastDate) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .cacheControl(lastDate.isBefore(LocalDate.now())
+                ? CacheControl.maxAge(properties.getHttp().getClosedDayMaxAge())
+                : CacheControl.noCache());
+        if (validator != null) {
+            response.eTag(validator.etag()).lastModified(validator.lastModifiedMillis());
+        }
+        return response;
+    }
+
+    /**
+     * GET /api/orders/changes - Product quantities written since a token from an earlier poll,
+     * and the token for the next one. Without since, only the current token: take it before
+     * loading the orders, then poll with it.
+     */
+    @GetMapping("/api/orders/changes")
+    public ResponseEntity<OrderChangeSet> getChanges(@RequestParam(required = false) String since) {
+        if (!changeLog.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(changeLog.changesSince(since));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected changes request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            logger.warn("Changes not available: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+    }
+
+    /**
+     * GET /api/orders/stream - Stream orders for a date range as NDJSON: one "day" record per
+     * date as soon as it is fetched, then a "range" record with the same merged totals as GET /api/orders
+     * Date format: yyyy-MM-dd
+     */
+    @GetMapping(value = "/api/orders/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> streamOrdersForDateRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            NativeWebRequest request) {
+        logger.info("Received request to stream orders between {} and {}", startDate, endDate);
+        StreamingResponseBody body = out -> {
+            try {
+                Map<String, List<Order>> merged = orderService.streamOrdersForDateRange(startDate, endDate,
+                    (dateStr, orders) -> writeRecord(out, new OrderStreamRecord("day", dateStr, orders)));
+                for (Map.Entry<String, List<Order>> entry : merged.entrySet()) {
+                    writeRecord(out, new OrderStreamRecord("range", entry.getKey(), entry.getValue()));
+                }
+            } catch (ExecutionException e) {
+                logger.error("Error streaming orders for date range", e);
+                throw new IOException("Failed to read orders", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while streaming orders", e);
+            }
+        };
+        PermitLease lease = PermitLease.forRequest(admission.reads(), request);
+        return admission.reads().acquire(orderService.estimateReadCost(startDate, endDate))
+            .thenApply(permit -> {
+                lease.hold(permit);
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(releasing(lease, body));
+            })
+            .exceptionally(e -> failed(e, "Error streaming orders for date range"));
+    }
+
+    /**
+     * Hand the read capacity back once the body is written; the lease also hands it back if
+     * the body never is
+     */
+    private static StreamingResponseBody releasing(PermitLease lease, StreamingResponseBody body) {
+        return out -> {
+            try {
+                body.writeTo(out);
+            } finally {
+                lease.release();
+            }
+        };
+    }
+
+    /**
+     * GET /api/orders/export - Export every order line of a date range as a download, one day
+     * at a time, so ranges of any length use the same memory. format=csv (default) or binary;
+     * gzip-compressed when the client accepts it.
+     * Date format: yyyy-MM-dd
+     */
+    @GetMapping("/api/orders/export")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> exportOrders(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            NativeWebRequest request) {
+        logger.info("Received request to export orders between {} and {} as {}", startDate, endDate, format);
+        OrderExportFormat exportFormat;
+        try {
+            exportFormat = OrderExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        if (endDate.isBefore(startDate)) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+            OrderExportFormat.DayWriter writer = exportFormat.open(target);
+            try {
+                orderService.exportOrdersForDateRange(startDate, endDate,
+                    (dateStr, orders) -> writer.writeDay(DateUtil.parseDate(dateStr), orders));
+            } catch (ExecutionException e) {
+                logger.error("Error exporting orders for date range", e);
+                throw new IOException("Failed to read orders", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while exporting orders", e);
+            }
+            writer.finish();
+            if (target instanceof GZIPOutputStream compressed) {
+                compressed.finish();
+            }
+        };
+
+        String filename = "orders-" + startDate + "-" + endDate + "." + exportFormat.extension();
+        PermitLease lease = PermitLease.forRequest(admission.reads(), request);
+        return admission.reads().acquire(orderService.estimateReadCost(startDate, endDate))
+            .thenApply(permit -> {
+                lease.hold(permit);
+                ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                if (gzip) {
+                    response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+                }
+                return response.body(releasing(lease, body));
+            })
+            .exceptionally(e -> failed(e, "Error exporting orders for date range"));
+    }
+
+    private void writeRecord(OutputStream out, OrderStreamRecord record) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(record));
+        out.write('\n');
+        out.flush();
+    }
+
     /**
      * POST /api/orders - Add a new order
      */
@@ -74,11 +395,132 @@ public class OrderController {
                    date, orderItem.getBranch(), orderItem.getProduct());
         try {
             String dateStr = DateUtil.formatDate(date);
-            orderService.addOrder(dateStr, orderItem);
+            admission.writes().call(1, () -> {
+                orderService.addOrder(dateStr, orderItem);
+                return null;
+            });
             return ResponseEntity.ok("Order added successfully");
+        } catch (OrderAdmissionRejectedException e) {
+            logger.warn("Shedding order for date: {} branch: {}: {}", date, orderItem.getBranch(), e.getMessage());
+            return tooManyRequests();
+        } catch (OrderQueueFullException e) {
+            logger.warn("Rejecting order for date: {} branch: {}: {}", date, orderItem.getBranch(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected order for date: {}: {}", date, e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             logger.error("Error adding order", e);
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    /**
+     * POST /api/orders/bulk - Add many orders from a JSON array or NDJSON body, one
+     * {date, branch, product, quantity} object per line. Lines without a date use the date parameter.
+     * Date format: yyyy-MM-dd
+     */
+    @PostMapping(value = "/api/orders/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BulkOrderResult> addOrders(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            InputStream body) {
+        logger.info("Received bulk order import, default date: {}", date);
+        try {
+            // An import keeps up to max-in-flight-commits commits going, so it costs that many writes
+            return ResponseEntity.ok(admission.writes().call(properties.getWrite().getBulk().getMaxInFlightCommits(),
+                () -> bulkImporter.importOrders(body, date)));
+        } catch (OrderAdmissionRejectedException e) {
+            logger.warn("Shedding bulk order import: {}", e.getMessage());
+            return tooManyRequests();
+        } catch (Exception e) {
+            logger.error("Error importing orders", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * POST /api/orders/totals - Product totals per branch for several date ranges at once
+     * Body: {"ranges": [{"startDate": "yyyy-MM-dd", "endDate": "yyyy-MM-dd"}], "branches": [...], "products": [...]}
+     */
+    @PostMapping("/api/orders/totals")
+    public ResponseEntity<List<RangeTotals>> getTotals(@RequestBody TotalsRequest request) {
+        try {
+            return ResponseEntity.ok(admission.reads().call(totalsService.estimateReadCost(request),
+                () -> totalsService.getTotals(request)));
+        } catch (OrderAdmissionRejectedException e) {
+            logger.warn("Shedding totals request: {}", e.getMessage());
+            return tooManyRequests();
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected totals request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("Error getting range totals", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * POST /api/orders/rollups/rebuild - Recompute the rollups of every month in a date range
+     * Date format: yyyy-MM-dd
+     */
+    @PostMapping("/api/orders/rollups/rebuild")
+    public ResponseEntity<String> rebuildRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        logger.info("Received request to rebuild rollups between {} and {}", startDate, endDate);
+        try {
+            int months = admission.reads().call(orderService.estimateReadCost(startDate, endDate),
+                () -> orderService.rebuildRollups(startDate, endDate));
+            return ResponseEntity.ok("Rebuilt rollups for " + months + " months");
+        } catch (OrderAdmissionRejectedException e) {
+            logger.warn("Shedding rollup rebuild: {}", e.getMessage());
+            return tooManyRequests();
+        } catch (Exception e) {
+            logger.error("Error rebuilding rollups", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * POST /api/orders/migrations/day-field - Start stamping the sortable day field on existing
+     * branch documents in the background; 202 with the job's progress, which is the running job
+     * if one already is
+     */
+    @PostMapping("/api/orders/migrations/day-field")
+    public ResponseEntity<DayFieldStampStatus> stampDayField() {
+        logger.info("Received request to stamp the day field on branch documents");
+        try {
+            return ResponseEntity.accepted().body(orderService.startDayFieldStamp());
+        } catch (Exception e) {
+            logger.error("Error starting the day-field migration", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * GET /api/orders/migrations/day-field - Progress of the last day-field migration, 404 if none was started
+     */
+    @GetMapping("/api/orders/migrations/day-field")
+    public ResponseEntity<DayFieldStampStatus> getDayFieldStampStatus() {
+        DayFieldStampStatus status = orderService.getDayFieldStampStatus();
+        return status == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status);
+    }
+
+    /**
+     * GET /api/orders/live-view/status - Days served from the snapshot-listener view and its lag
+     */
+    @GetMapping("/api/orders/live-view/status")
+    public ResponseEntity<LiveViewStatus> getLiveViewStatus() {
+        return ResponseEntity.ok(orderService.getLiveViewStatus());
+    }
+
+    /**
+     * GET /api/orders/cache/stats - Hit/miss/eviction counters of the order day cache
+     */
+    @GetMapping("/api/orders/cache/stats")
+    public ResponseEntity<CacheStatistics> getCacheStatistics() {
+        return ResponseEntity.ok(orderService.getCacheStatistics());
+    }
 }
\ No newline at end of file
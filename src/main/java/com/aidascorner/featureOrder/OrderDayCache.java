@@ -0,0 +1,206 @@
+package com.aidascorner.featureOrder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.springframework.stereotype.Component;
+
+import com.aidascorner.featureOrder.model.CacheStatistics;
+import com.aidascorner.featureOrder.model.Order;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Per-day cache of the orders/{date}/branches read, keyed by "dd.MM.yyyy". Days are held as
+ * {@link DayColumns} against shared branch and product dictionaries, which range merges
+ * aggregate directly; single-day reads decode them back into orders.
+ *
+ * Entries are weighted by product cells and evicted with Caffeine's W-TinyLFU policy.
+ * Today's entry expires quickly because branches are still submitting; closed days are kept
+ * much longer since they rarely change once the day is over.
+ */
+@Component
+public class OrderDayCache {
+
+    private final Cache<String, DayColumns> cache;
+    // Writes per date, so a write only holds back reads of its own day; one entry per written day
+    private final ConcurrentSkipListMap<LocalDate, Long> generations = new ConcurrentSkipListMap<>();
+    private final OrderDictionary branchDictionary = new OrderDictionary();
+    private final OrderDictionary productDictionary = new OrderDictionary();
+    private final OrderVersions versions;
+
+    public OrderDayCache(OrderProperties properties, OrderVersions versions) {
+        this.versions = versions;
+        OrderProperties.Cache settings = properties.getCache();
+        if (!settings.isEnabled()) {
+            this.cache = null;
+            return;
+        }
+
+        long todayTtlNanos = settings.getTodayTtl().toNanos();
+        long closedDayTtlNanos = settings.getClosedDayTtl().toNanos();
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(settings.getMaxWeight())
+            .weigher((String date, DayColumns day) -> day.cells() + 1)
+            .expireAfter(new Expiry<String, DayColumns>() {
+                @Override
+                public long expireAfterCreate(String date, DayColumns day, long currentTime) {
+                    return isClosedDay(date) ? closedDayTtlNanos : todayTtlNanos;
+                }
+
+                @Override
+                public long expireAfterUpdate(String date, DayColumns day, long currentTime, long currentDuration) {
+                    return expireAfterCreate(date, day, currentTime);
+                }
+
+                @Override
+                public long expireAfterRead(String date, DayColumns day, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * Cached orders for the date, or null on a miss. Callers get their own list.
+     */
+    public List<Order> get(String dateStr) {
+        DayColumns day = getColumns(dateStr);
+        return day == null ? null : decode(day);
+    }
+
+    /**
+     * Whether the date is cached, without counting a hit or miss
+     */
+    public boolean contains(String dateStr) {
+        return cache != null && cache.asMap().containsKey(dateStr);
+    }
+
+    /**
+     * Cached columns for the date, or null on a miss
+     */
+    DayColumns getColumns(String dateStr) {
+        return cache == null ? null : cache.getIfPresent(dateStr);
+    }
+
+    /**
+     * Orders of a day encoded by this cache, as a list the caller owns
+     */
+    List<Order> decode(DayColumns day) {
+        return day.toOrders(branchDictionary, productDictionary);
+    }
+
+    /**
+     * Encode a day against the cache's dictionaries
+     */
+    DayColumns encode(String dateStr, List<Order> orders) {
+        return DayColumns.encode(dateStr, orders, branchDictionary, productDictionary);
+    }
+
+    /**
+     * Start a range merge whose ids match the cached columns
+     */
+    OrderAggregator.RangeMerge newRangeMerge(String dateRangeKey) {
+        return new OrderAggregator.RangeMerge(dateRangeKey, branchDictionary, productDictionary);
+    }
+
+    /**
+     * Names of the branch ids in this cache's columns
+     */
+    OrderDictionary branchDictionary() {
+        return branchDictionary;
+    }
+
+    /**
+     * Names of the product ids in this cache's columns
+     */
+    OrderDictionary productDictionary() {
+        return productDictionary;
+    }
+
+    /**
+     * Token to take before reading a day from Firestore and hand back to {@link #put}
+     */
+    public long generation(String dateStr) {
+        return generations.getOrDefault(DateUtil.parseDate(dateStr), 0L);
+    }
+
+    /**
+     * Token that changes whenever any day of the range is written
+     */
+    public long generation(LocalDate startDate, LocalDate endDate) {
+        long sum = 0;
+        for (long generation : generations.subMap(startDate, true, endDate, true).values()) {
+            sum += generation;
+        }
+        return sum;
+    }
+
+    /**
+     * The written days of a range with their tokens, for reads that cover several days at once.
+     * Days missing from the map have token 0.
+     */
+    NavigableMap<LocalDate, Long> generations(LocalDate startDate, LocalDate endDate) {
+        return new TreeMap<>(generations.subMap(startDate, true, endDate, true));
+    }
+
+    /**
+     * Cache a day read, unless the day was invalidated after the read started
+     */
+    public void put(String dateStr, List<Order> orders, long readGeneration) {
+        if (cache != null && generation(dateStr) == readGeneration) {
+            put(dateStr, encode(dateStr, orders), readGeneration);
+        }
+    }
+
+    void put(String dateStr, DayColumns day, long readGeneration) {
+        if (cache == null || generation(dateStr) != readGeneration) {
+            return;
+        }
+        cache.put(dateStr, day);
+        versions.bump(dateStr);
+    }
+
+    /**
+     * Drop the cached day after an order was written for it
+     */
+    public void invalidate(String dateStr) {
+        generations.merge(DateUtil.parseDate(dateStr), 1L, Long::sum);
+        if (cache != null) {
+            cache.invalidate(dateStr);
+        }
+    }
+
+    public CacheStatistics statistics() {
+        if (cache == null) {
+            return new CacheStatistics(false, 0, 0, 0, 0.0, 0, 0, 0);
+        }
+        long cells = 0;
+        long bytes = 0;
+        for (DayColumns day : cache.asMap().values()) {
+            cells += day.cells();
+            bytes += day.estimatedBytes();
+        }
+        CacheStats stats = cache.stats();
+        return new CacheStatistics(
+            true,
+            stats.hitCount(),
+            stats.missCount(),
+            stats.evictionCount(),
+            stats.hitRate(),
+            cache.estimatedSize(),
+            cells,
+            bytes
+        );
+    }
+
+    private static boolean isClosedDay(String dateStr) {
+        return DateUtil.parseDate(dateStr).isBefore(LocalDate.now());
+    }
+}
@@ -0,0 +1,318 @@
+package com.aidascorner.featureOrder;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.aidascorner.core.firestore.FirestoreFutures;
+import com.aidascorner.core.firestore.FirestoreMetrics;
+import com.aidascorner.featureOrder.model.DayFieldStampStatus;
+import com.aidascorner.featureOrder.model.Order;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.WriteBatch;
+
+/**
+ * Sortable day stamp on branch documents. Every orders/{date}/branches/{branch} document carries
+ * {@link #DAY_FIELD} as an ISO date (yyyy-MM-dd), so a run of days can be read with one paged
+ * collection-group query on "branches" instead of one subcollection read per day.
+ *
+ * Fields starting with "_" are bookkeeping, not products, and are skipped wherever a branch
+ * document is turned into an order. The query needs a collection-group index on {@link #DAY_FIELD};
+ * it also matches other "branches" subcollections, whose documents are skipped by path.
+ */
+@Service
+public class OrderDayIndex {
+
+    static final String DAY_FIELD = "_day";
+    static final String SPAN_KEY_PREFIX = "span:";
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderDayIndex.class);
+
+    private final Firestore firestore;
+    private final OrderProperties properties;
+    private final OrderDayCache dayCache;
+    private final FirestoreMetrics metrics;
+    private final OrderAdmission admission;
+    // Guarded by this
+    private StampJob stampJob;
+
+    public OrderDayIndex(Firestore firestore, OrderProperties properties, OrderDayCache dayCache,
+                         FirestoreMetrics metrics, OrderAdmission admission) {
+        this.firestore = firestore;
+        this.properties = properties;
+        this.dayCache = dayCache;
+        this.metrics = metrics;
+        this.admission = admission;
+    }
+
+    static boolean isReservedField(String field) {
+        return field.startsWith("_");
+    }
+
+    /**
+     * The day stamp for a "dd.MM.yyyy" date
+     */
+    static String dayValue(String dateStr) {
+        return DateUtil.parseDate(dateStr).toString();
+    }
+
+    /**
+     * Replace each run of two or more consecutive day keys with one span key
+     * ("span:{first}/{last}"). Month keys and the days {@code local} holds are left where they
+     * are and end a run, as is a run of one day, which a span read gains nothing on.
+     */
+    static List<String> collapseDays(List<String> keys, Predicate<String> local) {
+        List<String> collapsed = new ArrayList<>();
+        List<String> run = new ArrayList<>();
+        for (String key : keys) {
+            if (OrderRollupService.isMonthKey(key) || local.test(key)) {
+                addRun(collapsed, run);
+                collapsed.add(key);
+            } else {
+                run.add(key);
+            }
+        }
+        addRun(collapsed, run);
+        return collapsed;
+    }
+
+    private static void addRun(List<String> collapsed, List<String> run) {
+        if (run.size() == 1) {
+            collapsed.add(run.get(0));
+        } else if (!run.isEmpty()) {
+            collapsed.add(SPAN_KEY_PREFIX + run.get(0) + "/" + run.get(run.size() - 1));
+        }
+        run.clear();
+    }
+
+    static boolean isSpanKey(String key) {
+        return key.startsWith(SPAN_KEY_PREFIX);
+    }
+
+    /**
+     * Read every branch document of a span with one collection-group query, paged by cursor.
+     * The rows come back in date order as a single columnar block; each complete day is also
+     * put in the day cache.
+     */
+    public CompletableFuture<DayColumns> readSpan(String spanKey) {
+        String[] dates = spanKey.substring(SPAN_KEY_PREFIX.length()).split("/");
+        Query query = firestore.collectionGroup("branches")
+            .whereGreaterThanOrEqualTo(DAY_FIELD, dayValue(dates[0]))
+            .whereLessThanOrEqualTo(DAY_FIELD, dayValue(dates[1]))
+            .orderBy(DAY_FIELD)
+            .limit(properties.getRange().getPageSize());
+
+        SpanReader reader = new SpanReader(query,
+            dayCache.generations(DateUtil.parseDate(dates[0]), DateUtil.parseDate(dates[1])));
+        return reader.readPage(null).thenApply(ignored -> reader.finish(spanKey));
+    }
+
+    /**
+     * Start stamping {@link #DAY_FIELD} on every existing branch document that lacks it, in the
+     * background. Days are read one at a time through the read bulkhead, so the job yields to
+     * interactive reads, and only the batch being filled is held. Returns the running job's
+     * status if one is already under way.
+     */
+    public synchronized DayFieldStampStatus startStamping() {
+        if (stampJob == null || stampJob.finished.isDone()) {
+            stampJob = new StampJob();
+            stampJob.start();
+        }
+        return stampJob.status();
+    }
+
+    /**
+     * The last stamping job's progress, null if none was started
+     */
+    public synchronized DayFieldStampStatus stampingStatus() {
+        return stampJob == null ? null : stampJob.status();
+    }
+
+    /**
+     * Whether a collection-group result is an order branch document, and not a branches
+     * subcollection elsewhere such as orderRollups/{month}/branches
+     */
+    static boolean isDayBranch(QueryDocumentSnapshot document) {
+        return document.getReference().getPath().startsWith("orders/");
+    }
+
+    /**
+     * One run of the day-field migration: walks the order dates in the order Firestore lists
+     * them, committing stamps in batches of up to {@link OrderWriter#MAX_BATCH_WRITES}
+     */
+    private class StampJob {
+        private final Instant startedAt = Instant.now();
+        private final CompletableFuture<Void> finished = new CompletableFuture<>();
+        private final AtomicInteger daysScanned = new AtomicInteger();
+        private final AtomicInteger stamped = new AtomicInteger();
+        private Iterator<DocumentReference> dates;
+        private WriteBatch batch = firestore.batch();
+        private int pending;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        void start() {
+            logger.info("Stamping {} on branch documents in the background", DAY_FIELD);
+            // Listing dates pages through Firestore, so it stays off the request thread like the rest
+            CompletableFuture.runAsync(() -> dates = firestore.collection("orders").listDocuments().iterator())
+                .thenCompose(ignored -> nextDay())
+                .thenCompose(ignored -> commit())
+                .whenComplete((ignored, failure) -> {
+                    finishedAt = Instant.now();
+                    if (failure != null) {
+                        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                            ? failure.getCause() : failure;
+                        error = cause.getMessage();
+                        logger.error("Stamping {} stopped after {} documents", DAY_FIELD, stamped.get(), cause);
+                    } else {
+                        logger.info("Stamped {} branch documents with {}", stamped.get(), DAY_FIELD);
+                    }
+                    finished.complete(null);
+                });
+        }
+
+        private CompletableFuture<Void> nextDay() {
+            return CompletableFuture.supplyAsync(() -> dates.hasNext() ? dates.next() : null)
+                .thenCompose(dateRef -> dateRef == null
+                    ? CompletableFuture.<Void>completedFuture(null)
+                    : stampDay(dateRef).thenCompose(ignored -> nextDay()));
+        }
+
+        private CompletableFuture<Void> stampDay(DocumentReference dateRef) {
+            String day;
+            try {
+                day = dayValue(dateRef.getId());
+            } catch (DateTimeParseException e) {
+                logger.warn("Skipping orders/{}: not a dd.MM.yyyy date", dateRef.getId());
+                return CompletableFuture.completedFuture(null);
+            }
+
+            return readDay(dateRef).thenCompose(snapshot -> {
+                daysScanned.incrementAndGet();
+                CompletableFuture<Void> done = CompletableFuture.completedFuture(null);
+                for (QueryDocumentSnapshot branchDoc : snapshot.getDocuments()) {
+                    if (day.equals(branchDoc.getString(DAY_FIELD))) {
+                        continue;
+                    }
+                    done = done.thenCompose(ignored -> {
+                        batch.set(branchDoc.getReference(), Map.of(DAY_FIELD, day), SetOptions.merge());
+                        return ++pending >= OrderWriter.MAX_BATCH_WRITES ? commit() : CompletableFuture.completedFuture(null);
+                    });
+                }
+                return done;
+            });
+        }
+
+        /**
+         * A day's branch documents, waiting out the read bulkhead when it sheds the job
+         */
+        private CompletableFuture<QuerySnapshot> readDay(DocumentReference dateRef) {
+            return admission.reads().run(1, () -> metrics.timed("stampDayField",
+                    () -> FirestoreFutures.toCompletableFuture(dateRef.collection("branches").get())))
+                .exceptionallyCompose(failure -> {
+                    Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                        ? failure.getCause() : failure;
+                    if (!(cause instanceof OrderAdmissionRejectedException)) {
+                        return CompletableFuture.failedFuture(cause);
+                    }
+                    Executor later = CompletableFuture.delayedExecutor(
+                        admission.retryAfter().toMillis(), TimeUnit.MILLISECONDS);
+                    return CompletableFuture.supplyAsync(() -> dateRef, later).thenCompose(this::readDay);
+                });
+        }
+
+        private CompletableFuture<Void> commit() {
+            if (pending == 0) {
+                return CompletableFuture.completedFuture(null);
+            }
+            WriteBatch full = batch;
+            int count = pending;
+            batch = firestore.batch();
+            pending = 0;
+            return FirestoreFutures.toCompletableFuture(full.commit()).thenRun(() -> stamped.addAndGet(count));
+        }
+
+        DayFieldStampStatus status() {
+            Instant end = finishedAt;
+            return new DayFieldStampStatus(!finished.isDone(), daysScanned.get(), stamped.get(),
+                startedAt.toString(), end == null ? null : end.toString(), error);
+        }
+    }
+
+    private class SpanReader {
+        private final Query query;
+        private final NavigableMap<LocalDate, Long> generations;
+        private final List<Order> orders = new ArrayList<>();
+        private String currentDate;
+        private LocalDate currentDay;
+        private int currentDayStart;
+
+        private SpanReader(Query query, NavigableMap<LocalDate, Long> generations) {
+            this.query = query;
+            this.generations = generations;
+        }
+
+        private CompletableFuture<Void> readPage(QueryDocumentSnapshot cursor) {
+            Query page = cursor == null ? query : query.startAfter(cursor);
+            return metrics.timed("getOrdersByDaySpan", () -> FirestoreFutures.toCompletableFuture(page.get()))
+                .thenCompose(snapshot -> {
+                    List<QueryDocumentSnapshot> documents = snapshot.getDocuments();
+                    metrics.documentsRead("getOrdersByDaySpan", documents.size());
+                    add(documents);
+                    if (documents.size() < properties.getRange().getPageSize()) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return readPage(documents.get(documents.size() - 1));
+                });
+        }
+
+        private void add(List<QueryDocumentSnapshot> documents) {
+            for (QueryDocumentSnapshot branchDoc : documents) {
+                if (!isDayBranch(branchDoc)) {
+                    continue;
+                }
+                LocalDate day = LocalDate.parse(branchDoc.getString(DAY_FIELD));
+                String dateStr = DateUtil.formatDate(day);
+                if (!dateStr.equals(currentDate)) {
+                    cacheCurrentDay();
+                    currentDate = dateStr;
+                    currentDay = day;
+                    currentDayStart = orders.size();
+                }
+                orders.add(OrderService.toOrder(dateStr, branchDoc.getId(), branchDoc.getData()));
+            }
+        }
+
+        private void cacheCurrentDay() {
+            if (currentDate != null) {
+                dayCache.put(currentDate, OrderShards.merge(orders.subList(currentDayStart, orders.size())),
+                    generations.getOrDefault(currentDay, 0L));
+            }
+        }
+
+        private DayColumns finish(String spanKey) {
+            cacheCurrentDay();
+            return dayCache.encode(spanKey, orders);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.aidascorner.featureOrder;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns branch or product names to dense int ids (0, 1, 2, ...) so columnar days and
+ * range merges can index primitive arrays instead of hashing strings. Ids are never reused;
+ * both sets are small and only grow.
+ */
+final class OrderDictionary {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[64];
+    private volatile int size;
+
+    /**
+     * The id of the name, assigning the next free one on first sight
+     */
+    int intern(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : add(name);
+    }
+
+    /**
+     * The id of the name, or -1 if it was never interned
+     */
+    int find(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : -1;
+    }
+
+    String name(int id) {
+        return names[id];
+    }
+
+    int size() {
+        return size;
+    }
+
+    private synchronized int add(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        int next = size;
+        if (next == names.length) {
+            names = Arrays.copyOf(names, next * 2);
+        }
+        names[next] = name;
+        size = next + 1;
+        ids.put(name, next);
+        return next;
+    }
+}
@@ -0,0 +1,210 @@
+package com.aidascorner.featureOrder;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.aidascorner.featureOrder.model.Order;
+
+/**
+ * Formats of GET /api/orders/export. Both write one day at a time and keep nothing but small
+ * buffers (and, for binary, the branch and product dictionaries) between days.
+ */
+public enum OrderExportFormat {
+
+    /**
+     * One row per date, branch and product: date,branchId,branchName,product,quantity.
+     * Dates are ISO (yyyy-MM-dd); quantities are as stored, numbers in plain notation.
+     */
+    CSV("text/csv", "csv") {
+        @Override
+        DayWriter open(OutputStream out) {
+            return new CsvWriter(out);
+        }
+    },
+
+    /**
+     * Compact columnar records, big-endian (DataOutputStream):
+     * <pre>
+     *   "ORD1"
+     *   1 name:UTF name:UTF          branch; ids count up from 0 in order of definition
+     *   2 name:UTF                   product; ids count up from 0 in order of definition
+     *   3 epochDay:int cells:varint  then per cell branch:varint product:varint quantity:double
+     *   0                            end
+     * </pre>
+     * Branches and products are defined before the first day that uses them. Quantities are
+     * their numeric value, so unit suffixes such as "kg" are dropped.
+     */
+    BINARY("application/octet-stream", "ordb") {
+        @Override
+        DayWriter open(OutputStream out) throws IOException {
+            return new BinaryWriter(out);
+        }
+    };
+
+    private final String contentType;
+    private final String extension;
+
+    OrderExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    abstract DayWriter open(OutputStream out) throws IOException;
+
+    /**
+     * Writes the days of one export in date order
+     */
+    interface DayWriter {
+        void writeDay(LocalDate date, List<Order> orders) throws IOException;
+
+        /**
+         * Write any trailer and flush, without closing the stream
+         */
+        void finish() throws IOException;
+    }
+
+    private static List<Order> byBranch(List<Order> orders) {
+        List<Order> sorted = new ArrayList<>(orders);
+        sorted.sort(Comparator.comparing(Order::getBranchId));
+        return sorted;
+    }
+
+    private static List<String> products(Order order) {
+        List<String> products = new ArrayList<>(order.getProducts().keySet());
+        products.sort(null);
+        return products;
+    }
+
+    private static final class CsvWriter implements DayWriter {
+        private final Writer writer;
+        private boolean headerWritten;
+
+        CsvWriter(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        }
+
+        @Override
+        public void writeDay(LocalDate date, List<Order> orders) throws IOException {
+            if (!headerWritten) {
+                writer.write("date,branchId,branchName,product,quantity\n");
+                headerWritten = true;
+            }
+            String day = date.toString();
+            for (Order order : byBranch(orders)) {
+                String branchId = escape(order.getBranchId());
+                String branchName = escape(order.getBranchName());
+                for (String product : products(order)) {
+                    writer.write(day);
+                    writer.write(',');
+                    writer.write(branchId);
+                    writer.write(',');
+                    writer.write(branchName);
+                    writer.write(',');
+                    writer.write(escape(product));
+                    writer.write(',');
+                    writer.write(escape(order.getProducts().get(product)));
+                    writer.write('\n');
+                }
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (!headerWritten) {
+                writer.write("date,branchId,branchName,product,quantity\n");
+            }
+            writer.flush();
+        }
+
+        private static String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                    return '"' + value.replace("\"", "\"\"") + '"';
+                }
+            }
+            return value;
+        }
+    }
+
+    private static final class BinaryWriter implements DayWriter {
+        private final DataOutputStream data;
+        private final Map<String, Integer> branchIds = new HashMap<>();
+        private final Map<String, Integer> productIds = new HashMap<>();
+
+        BinaryWriter(OutputStream out) throws IOException {
+            this.data = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+            data.writeBytes("ORD1");
+        }
+
+        @Override
+        public void writeDay(LocalDate date, List<Order> orders) throws IOException {
+            int cells = 0;
+            for (Order order : orders) {
+                if (!branchIds.containsKey(order.getBranchId())) {
+                    branchIds.put(order.getBranchId(), branchIds.size());
+                    data.writeByte(1);
+                    data.writeUTF(order.getBranchId());
+                    data.writeUTF(order.getBranchName() != null ? order.getBranchName() : order.getBranchId());
+                }
+                for (String product : order.getProducts().keySet()) {
+                    if (!productIds.containsKey(product)) {
+                        productIds.put(product, productIds.size());
+                        data.writeByte(2);
+                        data.writeUTF(product);
+                    }
+                }
+                cells += order.getProducts().size();
+            }
+
+            data.writeByte(3);
+            data.writeInt((int) date.toEpochDay());
+            writeVarint(cells);
+            for (Order order : byBranch(orders)) {
+                int branch = branchIds.get(order.getBranchId());
+                for (String product : products(order)) {
+                    writeVarint(branch);
+                    writeVarint(productIds.get(product));
+                    data.writeDouble(QuantityUtil.parseQuantity(order.getProducts().get(product)));
+                }
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            data.writeByte(0);
+            data.flush();
+        }
+
+        private void writeVarint(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                data.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data.writeByte(value);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.aidascorner.featureOrder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.aidascorner.featureOrder.model.Order;
+import com.aidascorner.featureOrder.model.OrderFilter;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Query;
+
+/**
+ * Branch, product and page restrictions on order reads. Applied to a day's query when it has to
+ * go to Firestore, so only the selected documents and fields are read, and to the orders
+ * themselves when the day is already in memory. Both give the same result.
+ */
+final class OrderFilters {
+
+    /**
+     * Firestore takes at most this many values in one "in" filter; longer branch lists are
+     * filtered after the read
+     */
+    static final int MAX_IN_VALUES = 30;
+
+    private OrderFilters() {
+    }
+
+    /**
+     * Whether the filter restricts anything
+     */
+    static boolean isEmpty(OrderFilter filter) {
+        return filter == null
+            || (filter.getBranches() == null && filter.getProducts() == null && filter.getLimit() == null);
+    }
+
+    /**
+     * Whether the response covers every branch, so a day total across branches belongs in it
+     */
+    static boolean coversAllBranches(OrderFilter filter) {
+        return filter == null || (filter.getBranches() == null && filter.getLimit() == null);
+    }
+
+    static void validate(OrderFilter filter) {
+        if (filter == null) {
+            return;
+        }
+        if (filter.getLimit() != null && filter.getLimit() <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        if (filter.getStartAfter() != null && filter.getLimit() == null) {
+            throw new IllegalArgumentException("startAfter needs a limit");
+        }
+    }
+
+    /**
+     * Restrict a day's branches query: document-id "in" filter, field projection and cursor paging.
+     * Shard documents are not named after their branch, so with sharding only the projection is
+     * pushed down and the rest is filtered after the read.
+     */
+    static Query pushDown(Query query, OrderFilter filter, boolean sharded) {
+        List<String> branches = filter.getBranches();
+        if (sharded) {
+            return filter.getProducts() != null ? query.select(projection(filter)) : query;
+        }
+        if (branches != null && !branches.isEmpty() && branches.size() <= MAX_IN_VALUES) {
+            query = query.whereIn(FieldPath.documentId(), List.copyOf(branches));
+        }
+        if (filter.getProducts() != null) {
+            query = query.select(projection(filter));
+        }
+        if (filter.getLimit() != null) {
+            query = query.orderBy(FieldPath.documentId());
+            if (filter.getStartAfter() != null) {
+                query = query.startAfter(filter.getStartAfter());
+            }
+            // Branch lists too long for the query are filtered afterwards, so the page is cut then too
+            if (branches == null || branches.size() <= MAX_IN_VALUES) {
+                query = query.limit(filter.getLimit());
+            }
+        }
+        return query;
+    }
+
+    private static FieldPath[] projection(OrderFilter filter) {
+        List<FieldPath> fields = new ArrayList<>();
+        for (String product : filter.getProducts()) {
+            fields.add(FieldPath.of(product));
+        }
+        fields.add(FieldPath.of(OrderShards.BRANCH_FIELD));
+        return fields.toArray(new FieldPath[0]);
+    }
+
+    /**
+     * Restrict orders held in memory. The orders themselves are not modified.
+     */
+    static List<Order> apply(List<Order> orders, OrderFilter filter) {
+        Set<String> branches = filter.getBranches() != null ? new HashSet<>(filter.getBranches()) : null;
+        List<Order> selected = new ArrayList<>();
+        for (Order order : orders) {
+            if (branches != null && !branches.contains(order.getBranchId())) {
+                continue;
+            }
+            if (filter.getStartAfter() != null && order.getBranchId().compareTo(filter.getStartAfter()) <= 0) {
+                continue;
+            }
+            selected.add(filter.getProducts() != null ? withProducts(order, filter.getProducts()) : order);
+        }
+
+        if (filter.getLimit() != null) {
+            selected.sort(Comparator.comparing(Order::getBranchId));
+            if (selected.size() > filter.getLimit()) {
+                selected = new ArrayList<>(selected.subList(0, filter.getLimit()));
+            }
+        }
+        return selected;
+    }
+
+    private static Order withProducts(Order order, List<String> products) {
+        Map<String, String> kept = new HashMap<>();
+        for (String product : products) {
+            String quantity = order.getProducts().get(product);
+            if (quantity != null) {
+                kept.put(product, quantity);
+            }
+        }
+        return new Order(order.getBranchId(), order.getBranchName(), order.getDate(), kept);
+    }
+}
@@ -0,0 +1,57 @@
+package com.aidascorner.featureOrder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Meters for range queries: {@code orders.range.days} (days or months fanned out per query)
+ * and {@code orders.aggregation.cpu} (CPU time spent merging a query's days), tagged by mode,
+ * and {@code orders.coalesced} (reads that joined an identical read already in flight), tagged by kind.
+ */
+@Component
+public class OrderMetrics {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final MeterRegistry registry;
+
+    public OrderMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * CPU time of the current thread, or 0 where the JVM does not measure it
+     */
+    static long threadCpuNanos() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    public void recordRange(String mode, int keys, long aggregationCpuNanos) {
+        DistributionSummary.builder("orders.range.days")
+            .tag("mode", mode)
+            .register(registry)
+            .record(keys);
+        Timer.builder("orders.aggregation.cpu")
+            .tag("mode", mode)
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(aggregationCpuNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counter of reads of the kind ("day" or "range") that were served by another caller's read
+     */
+    public Counter coalesced(String kind) {
+        return Counter.builder("orders.coalesced")
+            .tag("kind", kind)
+            .register(registry);
+    }
+}
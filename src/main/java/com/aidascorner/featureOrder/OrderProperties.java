@@ -0,0 +1,251 @@
+package com.aidascorner.featureOrder;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "orders")
+public class OrderProperties {
+
+    private final Range range = new Range();
+    private final Cache cache = new Cache();
+    private final Rollups rollups = new Rollups();
+    private final Write write = new Write();
+    private final LiveView liveView = new LiveView();
+    private final TotalsIndex totalsIndex = new TotalsIndex();
+    private final Changes changes = new Changes();
+    private final Http http = new Http();
+    private final Admission admission = new Admission();
+    private final Snapshot snapshot = new Snapshot();
+
+    @Data
+    public static class Range {
+        /**
+         * Maximum number of per-day Firestore reads a range query keeps in flight (1 = serial)
+         */
+        private int maxConcurrency = 16;
+        /**
+         * Read runs of days with one collection-group query on the day stamp instead of one read
+         * per day. Needs write.stampDay on, every branch document stamped
+         * (POST /api/orders/migrations/day-field) and a collection-group index on _day.
+         */
+        private boolean collectionGroup = false;
+        /**
+         * Documents per page of a collection-group range query
+         */
+        private int pageSize = 1000;
+        /**
+         * Distinct days one POST /api/orders/query may cover
+         */
+        private int maxQueryDays = 1000;
+    }
+
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+        /**
+         * Upper bound on cached product cells (one per branch and product) across all days
+         */
+        private long maxWeight = 1_000_000;
+        /**
+         * How long today's (and future) orders may be served from the cache
+         */
+        private Duration todayTtl = Duration.ofSeconds(30);
+        /**
+         * How long a closed (past) day stays cached
+         */
+        private Duration closedDayTtl = Duration.ofHours(12);
+    }
+
+    @Data
+    public static class Rollups {
+        /**
+         * Maintain day/month rollup documents transactionally in addOrder
+         */
+        private boolean enabled = false;
+        /**
+         * Serve whole months of range queries from the rollups; turn on after a rebuild
+         */
+        private boolean readEnabled = false;
+    }
+
+    @Data
+    public static class Write {
+        /**
+         * Stamp the sortable day field on every branch document written. Readers before this
+         * field existed take it for a product, so turn it on once every instance runs a version
+         * that skips it, then run the day-field migration, then turn on range.collectionGroup.
+         */
+        private boolean stampDay = false;
+        /**
+         * Add posted quantities to the stored ones with numeric increments instead of replacing them
+         */
+        private boolean increment = false;
+        /**
+         * Documents each branch's day is spread over in increment mode, to stay under Firestore's
+         * per-document write rate on busy branches; 1 keeps one document per branch
+         */
+        private int shards = 1;
+        /**
+         * How long an order's idempotency key is remembered (via a Firestore TTL policy on expireAt)
+         */
+        private Duration idempotencyTtl = Duration.ofDays(7);
+        private final GroupCommit groupCommit = new GroupCommit();
+        private final Bulk bulk = new Bulk();
+    }
+
+    @Data
+    public static class GroupCommit {
+        /**
+         * Queue POST /api/orders lines and commit them in groups instead of one batch each
+         */
+        private boolean enabled = false;
+        /**
+         * Lines waiting for a commit before new ones are rejected with 503
+         */
+        private int queueCapacity = 10_000;
+        /**
+         * How long the first queued line waits for others to join its commit
+         */
+        private Duration flushInterval = Duration.ofMillis(5);
+    }
+
+    @Data
+    public static class Bulk {
+        /**
+         * Commits a bulk import keeps in flight before it stops reading the request body
+         */
+        private int maxInFlightCommits = 4;
+    }
+
+    @Data
+    public static class LiveView {
+        /**
+         * Keep recent days in memory through Firestore snapshot listeners
+         */
+        private boolean enabled = false;
+        /**
+         * Number of days, ending today, the view listens to
+         */
+        private int windowDays = 7;
+        /**
+         * How long startup waits for the first snapshot of every day in the window
+         */
+        private Duration warmUpTimeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Changes {
+        /**
+         * Log every order write to orderChanges for GET /api/orders/changes
+         */
+        private boolean enabled = false;
+        /**
+         * How long changes are kept, in memory and (via a Firestore TTL policy on expireAt) in the log
+         */
+        private Duration retention = Duration.ofHours(24);
+    }
+
+    @Data
+    public static class TotalsIndex {
+        /**
+         * Keep per branch and product prefix sums in memory for POST /api/orders/totals
+         */
+        private boolean enabled = false;
+        /**
+         * Past days, up to today, the index covers
+         */
+        private int historyDays = 730;
+        /**
+         * Days after today the index covers, for orders placed ahead
+         */
+        private int futureDays = 60;
+    }
+
+    @Data
+    public static class Http {
+        /**
+         * Cache-Control max-age for responses that only cover past days; today's are always revalidated
+         */
+        private Duration closedDayMaxAge = Duration.ofHours(1);
+        /**
+         * How long an asynchronous read may take before it is answered with 504
+         */
+        private Duration requestTimeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Admission {
+        /**
+         * Queue and shed order requests beyond the read and write limits, with 429 and Retry-After
+         */
+        private boolean enabled = true;
+        /**
+         * Retry-After sent with shed requests
+         */
+        private Duration retryAfter = Duration.ofSeconds(1);
+        /**
+         * Order reads, costing one per day that is not held in memory
+         */
+        private final Limits reads = new Limits(2_000, 100, 20_000, 200, Duration.ofSeconds(5), Duration.ofSeconds(2));
+        /**
+         * Order writes, costing one per request
+         */
+        private final Limits writes = new Limits(64, 8, 512, 1_000, Duration.ofSeconds(10), Duration.ofSeconds(1));
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limits {
+        /**
+         * Total cost admitted at once at startup; adapts between the min and max limits
+         */
+        private int initialLimit;
+        private int minLimit;
+        private int maxLimit;
+        /**
+         * Requests waiting for capacity before further ones are shed
+         */
+        private int maxQueue;
+        /**
+         * How long a request may wait for capacity before it is shed
+         */
+        private Duration queueTimeout;
+        /**
+         * Requests slower than this shrink the limit
+         */
+        private Duration targetLatency;
+    }
+
+    @Data
+    public static class Snapshot {
+        /**
+         * Keep closed days in a local memory-mapped file, so restarts serve history without
+         * reading it from Firestore again
+         */
+        private boolean enabled = false;
+        private String path = "data/order-days.snapshot";
+        /**
+         * Size of the file (at most 2 GB). Superseded records are compacted away when it fills up;
+         * days are no longer stored once the live ones alone fill it
+         */
+        private long maxBytes = 256L * 1024 * 1024;
+        /**
+         * Check stored days against their documents' update times when they are served
+         */
+        private boolean verify = true;
+        /**
+         * How long a verified day is served before it is checked again, which bounds how long a
+         * write from another instance can go unnoticed
+         */
+        private Duration verifyInterval = Duration.ofMinutes(10);
+    }
+}
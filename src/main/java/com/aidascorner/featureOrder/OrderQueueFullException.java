@@ -0,0 +1,11 @@
+package com.aidascorner.featureOrder;
+
+/**
+ * Thrown when the group-commit queue cannot take another order line
+ */
+public class OrderQueueFullException extends RuntimeException {
+
+    public OrderQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,269 @@
+package com.aidascorner.featureOrder;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Service;
+
+import com.aidascorner.core.firestore.FirestoreFutures;
+import com.aidascorner.core.firestore.FirestoreMetrics;
+import com.aidascorner.featureOrder.model.Order;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.UpdateBuilder;
+import com.google.cloud.firestore.WriteBatch;
+
+/**
+ * Pre-aggregated order totals maintained at write time:
+ *
+ *   orderRollups/{yyyy-MM}                        month grand totals
+ *   orderRollups/{yyyy-MM}/branches/{branch}      month totals per branch
+ *   orderRollups/{yyyy-MM}/days/{dd.MM.yyyy}      day totals across branches
+ *
+ * Every document maps product name to a numeric quantity.
+ */
+@Service
+public class OrderRollupService {
+
+    static final String MONTH_KEY_PREFIX = "month:";
+
+    private static final String ROLLUPS = "orderRollups";
+
+    private final Firestore firestore;
+    private final FirestoreMetrics metrics;
+
+    public OrderRollupService(Firestore firestore, FirestoreMetrics metrics) {
+        this.firestore = firestore;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Merge product quantities into branch documents and move the rollups by the difference
+     * to the quantities they replace, all in one transaction; {@code alsoWrite} adds the
+     * caller's own writes to it
+     */
+    public CompletableFuture<Void> writeWithRollups(Map<BranchDocKey, Map<String, Object>> documents,
+                                                    Consumer<UpdateBuilder<?>> alsoWrite) {
+        List<BranchDocKey> keys = new ArrayList<>(documents.keySet());
+        DocumentReference[] refs = new DocumentReference[keys.size()];
+        for (int i = 0; i < refs.length; i++) {
+            refs[i] = keys.get(i).reference(firestore);
+        }
+
+        return FirestoreFutures.toCompletableFuture(firestore.runTransaction(transaction -> {
+            List<DocumentSnapshot> current = transaction.getAll(refs).get();
+            RollupDeltas deltas = new RollupDeltas();
+
+            for (int i = 0; i < refs.length; i++) {
+                BranchDocKey key = keys.get(i);
+                Map<String, Object> updates = documents.get(key);
+                Map<String, Object> previous = current.get(i).exists() ? current.get(i).getData() : Map.of();
+
+                for (Map.Entry<String, Object> entry : updates.entrySet()) {
+                    if (OrderDayIndex.isReservedField(entry.getKey())) {
+                        continue;
+                    }
+                    double oldQuantity = QuantityUtil.parseQuantity(previous.get(entry.getKey()));
+                    double newQuantity = QuantityUtil.parseQuantity(entry.getValue());
+                    deltas.add(key, entry.getKey(), newQuantity - oldQuantity);
+                }
+                transaction.set(refs[i], updates, SetOptions.merge());
+            }
+
+            deltas.writeTo(transaction);
+            alsoWrite.accept(transaction);
+            return null;
+        })).thenAccept(result -> { });
+    }
+
+    /**
+     * Move the rollups by quantities that are added to, not replacing, the stored ones. The
+     * writes join the caller's batch or transaction, so no branch document has to be read.
+     */
+    public void addIncrements(UpdateBuilder<?> writes, Map<BranchDocKey, Map<String, Object>> documents) {
+        RollupDeltas deltas = new RollupDeltas();
+        for (Map.Entry<BranchDocKey, Map<String, Object>> document : documents.entrySet()) {
+            for (Map.Entry<String, Object> entry : document.getValue().entrySet()) {
+                if (!OrderDayIndex.isReservedField(entry.getKey())) {
+                    deltas.add(document.getKey(), entry.getKey(), QuantityUtil.parseQuantity(entry.getValue()));
+                }
+            }
+        }
+        deltas.writeTo(writes);
+    }
+
+    /**
+     * Read the per-branch totals of a whole month as one order per branch
+     */
+    public CompletableFuture<List<Order>> getMonthBranchTotals(YearMonth month, String dateLabel) {
+        return metrics.timed("getMonthBranchTotals",
+                () -> FirestoreFutures.toCompletableFuture(monthDocument(month).collection("branches").get()))
+            .thenApply(snapshot -> {
+                metrics.documentsRead("getMonthBranchTotals", snapshot.size());
+                List<Order> orders = new ArrayList<>();
+                for (QueryDocumentSnapshot branchDoc : snapshot.getDocuments()) {
+                    Map<String, String> products = new HashMap<>();
+                    for (Map.Entry<String, Object> entry : branchDoc.getData().entrySet()) {
+                        products.put(entry.getKey(), QuantityUtil.formatQuantity(entry.getValue()));
+                    }
+                    orders.add(new Order(branchDoc.getId(), branchDoc.getId(), dateLabel, products));
+                }
+                return orders;
+            });
+    }
+
+    /**
+     * Replace every rollup document of a month with freshly computed totals. The new documents
+     * are written over the old ones first and only then are documents the month no longer has
+     * deleted, so readers see old or new totals per document but never a month missing some.
+     * Orders written for the month while this runs may be lost from the rollups.
+     */
+    public void replaceMonth(YearMonth month,
+                             Map<String, Map<String, Double>> dayTotals,
+                             Map<String, Map<String, Double>> branchTotals,
+                             Map<String, Double> monthTotals) throws ExecutionException, InterruptedException {
+        DocumentReference monthRef = monthDocument(month);
+        BatchWriter writer = new BatchWriter();
+
+        List<DocumentReference> stale = new ArrayList<>();
+        for (DocumentReference existing : monthRef.collection("branches").listDocuments()) {
+            if (!branchTotals.containsKey(existing.getId())) {
+                stale.add(existing);
+            }
+        }
+        for (DocumentReference existing : monthRef.collection("days").listDocuments()) {
+            if (!dayTotals.containsKey(existing.getId())) {
+                stale.add(existing);
+            }
+        }
+
+        for (Map.Entry<String, Map<String, Double>> entry : branchTotals.entrySet()) {
+            writer.set(monthRef.collection("branches").document(entry.getKey()), quantities(entry.getValue()));
+        }
+        for (Map.Entry<String, Map<String, Double>> entry : dayTotals.entrySet()) {
+            writer.set(monthRef.collection("days").document(entry.getKey()), quantities(entry.getValue()));
+        }
+        writer.set(monthRef, quantities(monthTotals));
+        writer.flush();
+
+        for (DocumentReference existing : stale) {
+            writer.delete(existing);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Totals as stored: whole quantities as integers, like the increments that move them later
+     */
+    private static Map<String, Object> quantities(Map<String, Double> totals) {
+        Map<String, Object> quantities = new HashMap<>();
+        totals.forEach((product, quantity) -> quantities.put(product,
+            quantity == Math.rint(quantity) && Math.abs(quantity) < (1L << 53) ? (Object) quantity.longValue() : quantity));
+        return quantities;
+    }
+
+    /**
+     * Split a range into whole months (read from rollups) and the days at its edges (read raw).
+     * Month keys are prefixed with {@link #MONTH_KEY_PREFIX}, days are "dd.MM.yyyy".
+     */
+    static List<String> planRange(LocalDate startDate, LocalDate endDate) {
+        List<String> keys = new ArrayList<>();
+        LocalDate current = startDate;
+
+        while (!current.isAfter(endDate)) {
+            YearMonth month = YearMonth.from(current);
+            if (current.getDayOfMonth() == 1 && !month.atEndOfMonth().isAfter(endDate)) {
+                keys.add(MONTH_KEY_PREFIX + month);
+                current = month.plusMonths(1).atDay(1);
+            } else {
+                keys.add(DateUtil.formatDate(current));
+                current = current.plusDays(1);
+            }
+        }
+
+        return keys;
+    }
+
+    static boolean isMonthKey(String key) {
+        return key.startsWith(MONTH_KEY_PREFIX);
+    }
+
+    static YearMonth monthOf(String monthKey) {
+        return YearMonth.parse(monthKey.substring(MONTH_KEY_PREFIX.length()));
+    }
+
+    private DocumentReference monthDocument(YearMonth month) {
+        return firestore.collection(ROLLUPS).document(month.toString());
+    }
+
+    /**
+     * Quantity changes summed per rollup document, so each one is written once per commit
+     */
+    private class RollupDeltas {
+        private final Map<DocumentReference, Map<String, Double>> byDocument = new HashMap<>();
+
+        void add(BranchDocKey key, String product, double delta) {
+            if (delta == 0.0) {
+                return;
+            }
+            DocumentReference monthRef = monthDocument(YearMonth.from(DateUtil.parseDate(key.date())));
+            addTo(monthRef, product, delta);
+            addTo(monthRef.collection("branches").document(key.branch()), product, delta);
+            addTo(monthRef.collection("days").document(key.date()), product, delta);
+        }
+
+        void writeTo(UpdateBuilder<?> writes) {
+            for (Map.Entry<DocumentReference, Map<String, Double>> entry : byDocument.entrySet()) {
+                Map<String, Object> increments = new HashMap<>();
+                entry.getValue().forEach((product, delta) -> increments.put(product, OrderWriter.increment(delta)));
+                writes.set(entry.getKey(), increments, SetOptions.merge());
+            }
+        }
+
+        private void addTo(DocumentReference ref, String product, double delta) {
+            byDocument.computeIfAbsent(ref, r -> new HashMap<>()).merge(product, delta, Double::sum);
+        }
+    }
+
+    /**
+     * Commits writes in batches that stay under Firestore's per-batch write limit
+     */
+    private class BatchWriter {
+        private WriteBatch batch = firestore.batch();
+        private int pending;
+
+        void set(DocumentReference ref, Map<String, Object> data) throws ExecutionException, InterruptedException {
+            batch.set(ref, data);
+            afterWrite();
+        }
+
+        void delete(DocumentReference ref) throws ExecutionException, InterruptedException {
+            batch.delete(ref);
+            afterWrite();
+        }
+
+        void flush() throws ExecutionException, InterruptedException {
+            if (pending > 0) {
+                batch.commit().get();
+                batch = firestore.batch();
+                pending = 0;
+            }
+        }
+
+        private void afterWrite() throws ExecutionException, InterruptedException {
+            if (++pending >= OrderWriter.MAX_BATCH_WRITES) {
+                flush();
+            }
+        }
+    }
+}
@@ -1,210 +1,640 @@
 package com.aidascorner.featureOrder;
 
+import java.io.IOException;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import com.aidascorner.core.firestore.FirestoreFutures;
+import com.aidascorner.core.firestore.FirestoreMetrics;
+import com.aidascorner.core.web.HttpValidator;
 import com.aidascorner.featureBranch.service.BranchService;
+import com.aidascorner.featureOrder.model.CacheStatistics;
+import com.aidascorner.featureOrder.model.DayFieldStampStatus;
+import com.aidascorner.featureOrder.model.LiveViewStatus;
 import com.aidascorner.featureOrder.model.Order;
+import com.aidascorner.featureOrder.model.OrderAnalytics;
+import com.aidascorner.featureOrder.model.OrderFilter;
 import com.aidascorner.featureOrder.model.OrderItem;
-import com.google.api.core.ApiFuture;
+import com.aidascorner.featureOrder.model.OrderQueryResult;
+import com.aidascorner.featureOrder.model.OrderQuerySpec;
 import com.google.cloud.firestore.CollectionReference;
-import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
 import com.google.cloud.firestore.QueryDocumentSnapshot;
 import com.google.cloud.firestore.QuerySnapshot;
-import com.google.cloud.firestore.WriteBatch;
 
 @Service
 public class OrderService {
 
     private final Firestore firestore;
     private final BranchService branchService;
+    private final OrderProperties properties;
+    private final OrderDayCache dayCache;
+    private final OrderRollupService rollupService;
+    private final OrderWriter orderWriter;
+    private final OrderWriteBuffer writeBuffer;
+    private final RecentOrdersView liveView;
+    private final FirestoreMetrics firestoreMetrics;
+    private final OrderMetrics orderMetrics;
+    private final OrderDayIndex dayIndex;
+    private final OrderVersions versions;
+    private final OrderSnapshotStore snapshotStore;
+    private final SingleFlight<FlightKey, DayColumns> dayFlights;
+    private final SingleFlight<FlightKey, Map<String, List<Order>>> rangeFlights;
     private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
 
-    public OrderService(Firestore firestore, BranchService branchService) {
+    public OrderService(Firestore firestore, BranchService branchService, OrderProperties properties,
+                        OrderDayCache dayCache, OrderRollupService rollupService,
+                        OrderWriter orderWriter, OrderWriteBuffer writeBuffer, RecentOrdersView liveView,
+                        FirestoreMetrics firestoreMetrics, OrderMetrics orderMetrics, OrderDayIndex dayIndex,
+                        OrderVersions versions, OrderSnapshotStore snapshotStore) {
         this.firestore = firestore;
         this.branchService = branchService;
+        this.properties = properties;
+        this.dayCache = dayCache;
+        this.rollupService = rollupService;
+        this.orderWriter = orderWriter;
+        this.writeBuffer = writeBuffer;
+        this.liveView = liveView;
+        this.firestoreMetrics = firestoreMetrics;
+        this.orderMetrics = orderMetrics;
+        this.dayIndex = dayIndex;
+        this.versions = versions;
+        this.snapshotStore = snapshotStore;
+        this.dayFlights = new SingleFlight<>(orderMetrics.coalesced("day")::increment);
+        this.rangeFlights = new SingleFlight<>(orderMetrics.coalesced("range")::increment);
     }
 
     /**
      * Get orders for a specific date
      */
     public List<Order> getOrdersByDate(LocalDate date) throws ExecutionException, InterruptedException {
+        return getOrdersByDateAsync(date).get();
+    }
+
+    /**
+     * Get orders for a specific date without blocking the calling thread
+     */
+    public CompletableFuture<List<Order>> getOrdersByDateAsync(LocalDate date) {
+        String dateStr = DateUtil.formatDate(date);
+        return getOrdersByDateStringAsync(dateStr).thenApply(orders -> {
+            // Add total products across all branches as a special "branch"
+            OrderAggregator.addDayTotal(dateStr, orders);
+            return orders;
+        });
+    }
+
+    /**
+     * Get the selected branches and products of a date, one page at a time if the filter has a limit.
+     * The day total is only added when every branch is returned. Days held in memory are filtered
+     * there; other days are read from Firestore with the filter pushed into the query.
+     */
+    public CompletableFuture<List<Order>> getOrdersByDateAsync(LocalDate date, OrderFilter filter) {
+        OrderFilters.validate(filter);
+        if (OrderFilters.isEmpty(filter)) {
+            return getOrdersByDateAsync(date);
+        }
+
         String dateStr = DateUtil.formatDate(date);
-        List<Order> orders = getOrdersByDateString(dateStr);
-        
-        // Calculate totals across all branches
-        Map<String, Double> totalProducts = new HashMap<>();
-        for (Order order : orders) {
-            Map<String, String> products = order.getProducts();
-            for (Map.Entry<String, String> entry : products.entrySet()) {
-                String product = entry.getKey();
-                double quantity = parseQuantity(entry.getValue());
-                totalProducts.merge(product, quantity, Double::sum);
+        CompletableFuture<List<Order>> orders = isHeldInMemory(dateStr)
+            ? getOrdersByDateStringAsync(dateStr)
+            : loadFilteredOrders(dateStr, filter).thenApply(this::withBranchNames);
+        return orders.thenApply(dayOrders -> {
+            List<Order> selected = OrderFilters.apply(dayOrders, filter);
+            if (OrderFilters.coversAllBranches(filter)) {
+                OrderAggregator.addDayTotal(dateStr, selected);
+            }
+            return selected;
+        });
+    }
+
+    /**
+     * Validator for the orders of a date, or null unless the day is held in memory: only then
+     * does its version cover every change that could be served
+     */
+    public HttpValidator getDayValidator(LocalDate date) {
+        String dateStr = DateUtil.formatDate(date);
+        if (!isHeldInMemory(dateStr)) {
+            return null;
+        }
+        return HttpValidator.of(versions.lastModified(dateStr),
+            versions.bootId(), branchService.getDirectoryVersion(), versions.version(dateStr));
+    }
+
+    /**
+     * Validator for a date range, or null unless every day of it is held in memory
+     */
+    public HttpValidator getRangeValidator(LocalDate startDate, LocalDate endDate) {
+        long hash = 17;
+        long lastModified = 0;
+        for (String dateStr : DateUtil.getDateStringsInRange(startDate, endDate)) {
+            if (!isHeldInMemory(dateStr)) {
+                return null;
+            }
+            hash = 31 * hash + versions.version(dateStr);
+            lastModified = Math.max(lastModified, versions.lastModified(dateStr));
+        }
+        return HttpValidator.of(lastModified, versions.bootId(), branchService.getDirectoryVersion(),
+            Long.toHexString(hash));
+    }
+
+    /**
+     * Admission cost of reading a date range: the days that would have to come from Firestore,
+     * and at least 1
+     */
+    public long estimateReadCost(LocalDate startDate, LocalDate endDate) {
+        long days = 0;
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            if (!isHeldInMemory(DateUtil.formatDate(day))) {
+                days++;
+            }
+        }
+        return Math.max(1, days);
+    }
+
+    private boolean isHeldInMemory(String dateStr) {
+        return liveView.isServing(dateStr) || dayCache.contains(dateStr);
+    }
+
+    /**
+     * Whether a day is answered without a Firestore read, so a span read should not cover it
+     */
+    private boolean isHeldLocally(String dateStr) {
+        return isHeldInMemory(dateStr) || snapshotStore.contains(dateStr);
+    }
+
+    /**
+     * Get the orders for a date from the live view or the day cache, reading Firestore on a miss.
+     * Callers get their own list and may add to it.
+     */
+    private CompletableFuture<List<Order>> getOrdersByDateStringAsync(String dateStr) {
+        return getCachedOrLoadedOrders(dateStr).thenApply(this::withBranchNames);
+    }
+
+    private CompletableFuture<List<Order>> getCachedOrLoadedOrders(String dateStr) {
+        List<Order> live = liveView.get(dateStr);
+        if (live != null) {
+            return CompletableFuture.completedFuture(live);
+        }
+
+        List<Order> cached = dayCache.get(dateStr);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        return fetchDay(dateStr).thenApply(dayCache::decode);
+    }
+
+    /**
+     * Get a day as columns for range merges: live view first, then the day cache, then Firestore
+     */
+    private CompletableFuture<DayColumns> getDayColumnsAsync(String dateStr) {
+        List<Order> live = liveView.get(dateStr);
+        if (live != null) {
+            return CompletableFuture.completedFuture(dayCache.encode(dateStr, live));
+        }
+
+        DayColumns cached = dayCache.getColumns(dateStr);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        return fetchDay(dateStr);
+    }
+
+    /**
+     * Read a day from Firestore and cache it. Concurrent misses on the same day share one read,
+     * unless an order was written since that read started.
+     */
+    private CompletableFuture<DayColumns> fetchDay(String dateStr) {
+        long generation = dayCache.generation(dateStr);
+        return dayFlights.run(new FlightKey(dateStr, generation), () ->
+            loadOrdersByDateString(dateStr).thenApply(orders -> {
+                DayColumns day = dayCache.encode(dateStr, orders);
+                dayCache.put(dateStr, day, generation);
+                return day;
+            }));
+    }
+
+    /**
+     * Replace branch ids with the names from the branch directory. Orders may be shared
+     * with the cache, so changed ones are copied rather than modified.
+     */
+    private List<Order> withBranchNames(List<Order> orders) {
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            String name = branchService.getBranchName(order.getBranchId());
+            if (!name.equals(order.getBranchName())) {
+                orders.set(i, new Order(order.getBranchId(), name, order.getDate(), order.getProducts()));
             }
         }
-        
-        // Add total products as a special "branch"
-        Map<String, String> totalProductsStr = new HashMap<>();
-        for (Map.Entry<String, Double> entry : totalProducts.entrySet()) {
-            totalProductsStr.put(entry.getKey(), String.valueOf(entry.getValue()));
-        }
-        
-        Order totalOrder = new Order(
-            "total",
-            "Total Across All Branches",
-            dateStr,
-            totalProductsStr
-        );
-        orders.add(totalOrder);
-        
         return orders;
     }
 
-    private List<Order> getOrdersByDateString(String dateStr) throws ExecutionException, InterruptedException {
-        List<Order> orders = new ArrayList<>();
-        
+    /**
+     * Read all branch documents for a date without blocking the calling thread, from the local
+     * snapshot store when it holds the day
+     */
+    CompletableFuture<List<Order>> loadOrdersByDateString(String dateStr) {
+        List<Order> stored = snapshotStore.get(dateStr, () -> {
+            dayCache.invalidate(dateStr);
+            versions.bump(dateStr);
+        });
+        if (stored != null) {
+            return CompletableFuture.completedFuture(stored);
+        }
+
+        // Taken before the read, so a day written while it runs is not stored
+        long storeGeneration = snapshotStore.generation(dateStr);
         // Get reference to the "branches" collection for this date
         CollectionReference branchesRef = firestore.collection("orders").document(dateStr).collection("branches");
-        
-        // Get all branch documents
-        ApiFuture<QuerySnapshot> future = branchesRef.get();
 
-        List<QueryDocumentSnapshot> branchDocs = future.get().getDocuments();
- 
-        for (QueryDocumentSnapshot branchDoc : branchDocs) {
-            String branchId = branchDoc.getId();
-            Map<String, Object> branchData = branchDoc.getData();
+        return firestoreMetrics.timed("getOrdersByDateString", () -> FirestoreFutures.toCompletableFuture(branchesRef.get()))
+            .thenApply(snapshot -> {
+                firestoreMetrics.documentsRead("getOrdersByDateString", snapshot.size());
+                List<Order> orders = toOrders(dateStr, snapshot.getDocuments());
+                snapshotStore.put(dateStr, orders, snapshot.getDocuments(), storeGeneration);
+                return orders;
+            });
+    }
 
-            Map<String, String> products = new HashMap<>();
-            for (Map.Entry<String, Object> entry : branchData.entrySet()) {
-                products.put(entry.getKey(), entry.getValue().toString());
-            }
-            // Create order
-            Order order = new Order(branchId, branchId, dateStr, products);
-            orders.add(order);
+    /**
+     * Read only the branch documents and fields the filter selects. Not cached, since the
+     * result is not the whole day.
+     */
+    private CompletableFuture<List<Order>> loadFilteredOrders(String dateStr, OrderFilter filter) {
+        Query query = OrderFilters.pushDown(
+            firestore.collection("orders").document(dateStr).collection("branches"), filter,
+            properties.getWrite().getShards() > 1);
+
+        return firestoreMetrics.timed("getFilteredOrdersByDate", () -> FirestoreFutures.toCompletableFuture(query.get()))
+            .thenApply(snapshot -> {
+                firestoreMetrics.documentsRead("getFilteredOrdersByDate", snapshot.size());
+                return toOrders(dateStr, snapshot.getDocuments());
+            });
+    }
+
+    private List<Order> toOrders(String dateStr, List<QueryDocumentSnapshot> branchDocs) {
+        List<Order> orders = new ArrayList<>();
+
+        for (QueryDocumentSnapshot branchDoc : branchDocs) {
+            orders.add(toOrder(dateStr, branchDoc.getId(), branchDoc.getData()));
         }
 
-        return orders;
+        return OrderShards.merge(orders);
     }
 
     /**
-     * Helper method to parse quantity string and extract numeric value
+     * Turn the product fields of a branch document (or one shard of it) into an order
      */
-    private double parseQuantity(String quantityStr) {
-        try {
-            // Remove any non-numeric characters except decimal point and negative sign
-            String numericStr = quantityStr.replaceAll("[^0-9.-]", "").trim();
-            return Double.parseDouble(numericStr);
-        } catch (Exception e) {
-            logger.warn("Failed to parse quantity: {}", quantityStr);
-            return 0.0;
+    static Order toOrder(String dateStr, String documentId, Map<String, Object> branchData) {
+        String branchId = OrderShards.branchOf(documentId, branchData);
+        Map<String, String> products = new HashMap<>();
+        for (Map.Entry<String, Object> entry : branchData.entrySet()) {
+            if (!OrderDayIndex.isReservedField(entry.getKey())) {
+                products.put(entry.getKey(), QuantityUtil.formatQuantity(entry.getValue()));
+            }
         }
+        return new Order(branchId, branchId, dateStr, products);
     }
 
     /**
      * Get orders for a date range and merge by branch
      */
     public Map<String, List<Order>> getOrdersForDateRange(LocalDate startDate, LocalDate endDate) throws ExecutionException, InterruptedException {
-        Map<String, List<Order>> allOrders = new HashMap<>();
-        Map<String, Order> mergedOrders = new HashMap<>();
-        Map<String, Double> totalProducts = new HashMap<>();
+        return getOrdersForDateRangeAsync(startDate, endDate).get();
+    }
 
-        List<String> dateStrings = DateUtil.getDateStringsInRange(startDate, endDate);
+    /**
+     * Get orders for a date range and merge by branch without blocking the calling thread.
+     * Identical ranges requested while one is being merged share its result, so callers must
+     * not modify it.
+     */
+    public CompletableFuture<Map<String, List<Order>>> getOrdersForDateRangeAsync(LocalDate startDate, LocalDate endDate) {
         String dateRangeKey = DateUtil.formatDate(startDate) + " - " + DateUtil.formatDate(endDate);
+        return rangeFlights.run(new FlightKey(dateRangeKey, dayCache.generation(startDate, endDate)),
+            () -> mergeRange(startDate, endDate, dateRangeKey));
+    }
 
-        for(String dateStr : dateStrings) {
-            List<Order> ordersForDate = getOrdersByDateString(dateStr);
-            for(Order order : ordersForDate) {
-                String branchId = order.getBranchId();
-                
-                // Update total products across all branches
-                Map<String, String> products = order.getProducts();
-                for(Map.Entry<String, String> entry : products.entrySet()) {
-                    String product = entry.getKey();
-                    double quantity = parseQuantity(entry.getValue());
-                    totalProducts.merge(product, quantity, Double::sum);
-                }
-                
-                if(mergedOrders.containsKey(branchId)) {
-                    // Merge products for existing branch
-                    Order existingOrder = mergedOrders.get(branchId);
-                    Map<String, String> existingProducts = existingOrder.getProducts();
-                    Map<String, String> newProducts = order.getProducts();
-                    
-                    for(Map.Entry<String, String> entry : newProducts.entrySet()) {
-                        String product = entry.getKey();
-                        double newQuantity = parseQuantity(entry.getValue());
-                        
-                        if(existingProducts.containsKey(product)) {
-                            double existingQuantity = parseQuantity(existingProducts.get(product));
-                            existingProducts.put(product, String.valueOf(existingQuantity + newQuantity));
-                        } else {
-                            existingProducts.put(product, entry.getValue());
-                        }
+    /**
+     * Get the selected branches and products of a merged date range. Ranges are merged from
+     * the cached days and rollups as usual and filtered afterwards; paging does not apply.
+     */
+    public CompletableFuture<Map<String, List<Order>>> getOrdersForDateRangeAsync(LocalDate startDate, LocalDate endDate,
+                                                                                 OrderFilter filter) {
+        OrderFilters.validate(filter);
+        if (OrderFilters.isEmpty(filter)) {
+            return getOrdersForDateRangeAsync(startDate, endDate);
+        }
+        if (filter.getLimit() != null) {
+            throw new IllegalArgumentException("Paging only applies to single days");
+        }
+
+        return getOrdersForDateRangeAsync(startDate, endDate).thenApply(merged -> {
+            Map<String, List<Order>> selected = new HashMap<>();
+            merged.forEach((key, orders) -> selected.put(key, OrderFilters.apply(orders, filter)));
+            return selected;
+        });
+    }
+
+    private CompletableFuture<Map<String, List<Order>>> mergeRange(LocalDate startDate, LocalDate endDate,
+                                                                   String dateRangeKey) {
+        OrderAggregator.RangeMerge merge = dayCache.newRangeMerge(dateRangeKey);
+
+        // Whole months come from the rollups when enabled, the remaining days from the raw orders
+        List<String> plan = properties.getRollups().isReadEnabled()
+            ? OrderRollupService.planRange(startDate, endDate)
+            : DateUtil.getDateStringsInRange(startDate, endDate);
+        // and runs of days not held locally from one collection-group query each, when the documents carry the day stamp
+        List<String> keys = properties.getRange().isCollectionGroup()
+            ? OrderDayIndex.collapseDays(plan, this::isHeldLocally)
+            : plan;
+
+        // Days are fetched concurrently but merged in date order, so the result matches a serial walk
+        int maxConcurrency = properties.getRange().getMaxConcurrency();
+        AtomicLong aggregationNanos = new AtomicLong();
+        return DayFanOut.<DayColumns>forEachOrdered(keys, maxConcurrency,
+                key -> {
+                    if (OrderRollupService.isMonthKey(key)) {
+                        return rollupService.getMonthBranchTotals(OrderRollupService.monthOf(key), dateRangeKey)
+                            .thenApply(orders -> dayCache.encode(key, orders));
                     }
-                } else {
-                    // Create new merged order for this branch
-                    Order mergedOrder = new Order(
-                        order.getBranchId(),
-                        order.getBranchName(),
-                        dateRangeKey,
-                        new HashMap<>(order.getProducts())
-                    );
-                    mergedOrders.put(branchId, mergedOrder);
+                    return OrderDayIndex.isSpanKey(key) ? dayIndex.readSpan(key) : getDayColumnsAsync(key);
+                },
+                (key, day) -> {
+                    long cpuStart = OrderMetrics.threadCpuNanos();
+                    merge.addDay(day);
+                    aggregationNanos.addAndGet(OrderMetrics.threadCpuNanos() - cpuStart);
+                })
+            .thenApply(ignored -> {
+                long cpuStart = OrderMetrics.threadCpuNanos();
+                Map<String, List<Order>> result = merge.result(branchService::getBranchName);
+                orderMetrics.recordRange("aggregate", keys.size(),
+                    aggregationNanos.get() + OrderMetrics.threadCpuNanos() - cpuStart);
+                return result;
+            });
+    }
+
+    /**
+     * Answer several days and ranges at once. The distinct days of all of them are fetched once
+     * each, through the same cache and Firestore path as single reads, and every result is built
+     * from those shared days. Results come back in the order of the specs.
+     */
+    public CompletableFuture<List<OrderQueryResult>> queryAsync(List<OrderQuerySpec> specs) {
+        if (specs == null || specs.isEmpty()) {
+            throw new IllegalArgumentException("At least one query is required");
+        }
+        List<LocalDate[]> ranges = new ArrayList<>();
+        TreeSet<LocalDate> days = new TreeSet<>();
+        for (OrderQuerySpec spec : specs) {
+            LocalDate startDate = spec.getDate() != null ? spec.getDate() : spec.getStartDate();
+            LocalDate endDate = spec.getDate() != null ? spec.getDate() : spec.getEndDate();
+            if (startDate == null || endDate == null || startDate.isAfter(endDate)) {
+                throw new IllegalArgumentException("Invalid query " + spec);
+            }
+            ranges.add(new LocalDate[] {startDate, endDate});
+            for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+                days.add(day);
+                if (days.size() > properties.getRange().getMaxQueryDays()) {
+                    throw new IllegalArgumentException("Query covers more than "
+                        + properties.getRange().getMaxQueryDays() + " days");
                 }
             }
         }
-        
-        // Add total products as a special "branch"
-        Map<String, String> totalProductsStr = new HashMap<>();
-        for (Map.Entry<String, Double> entry : totalProducts.entrySet()) {
-            totalProductsStr.put(entry.getKey(), String.valueOf(entry.getValue()));
+
+        List<String> dates = days.stream().map(DateUtil::formatDate).toList();
+        Map<String, DayColumns> fetched = new HashMap<>();
+        int maxConcurrency = properties.getRange().getMaxConcurrency();
+        return prefetchSpans(dates)
+            .thenCompose(ignored -> DayFanOut.<DayColumns>forEachOrdered(dates, maxConcurrency,
+                this::getDayColumnsAsync, fetched::put))
+            .thenApply(ignored -> {
+                List<OrderQueryResult> results = new ArrayList<>(ranges.size());
+                for (int i = 0; i < ranges.size(); i++) {
+                    LocalDate startDate = ranges.get(i)[0];
+                    LocalDate endDate = ranges.get(i)[1];
+                    List<Order> orders = specs.get(i).getDate() != null
+                        ? dayFrom(fetched, DateUtil.formatDate(startDate))
+                        : rangeFrom(fetched, startDate, endDate);
+                    results.add(new OrderQueryResult(startDate, endDate, orders));
+                }
+                return results;
+            });
+    }
+
+    /**
+     * Top products and branches, per-branch daily series and day-over-day and week-over-week
+     * deltas of a date range. The days (and the week before, for the deltas) are fetched through
+     * the same cache and Firestore path as range reads and reduced in parallel on the fork-join pool.
+     */
+    public CompletableFuture<OrderAnalytics> getAnalyticsAsync(LocalDate startDate, LocalDate endDate, int top) {
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("endDate must not be before startDate");
         }
-        
-        Order totalOrder = new Order(
-            "total",
-            "Total Across All Branches",
-            dateRangeKey,
-            totalProductsStr
-        );
-        mergedOrders.put("total", totalOrder);
-        
-        if (!mergedOrders.isEmpty()) {
-            allOrders.put(dateRangeKey, new ArrayList<>(mergedOrders.values()));
+        if (top < 1) {
+            throw new IllegalArgumentException("top must be at least 1");
         }
-        
-        return allOrders;
+        if (ChronoUnit.DAYS.between(startDate, endDate) >= properties.getRange().getMaxQueryDays()) {
+            throw new IllegalArgumentException("Analytics cover at most "
+                + properties.getRange().getMaxQueryDays() + " days");
+        }
+
+        List<String> dates = DateUtil.getDateStringsInRange(startDate.minusDays(OrderAnalyzer.LEAD_DAYS), endDate);
+        List<DayColumns> days = new ArrayList<>(dates.size());
+        return prefetchSpans(dates)
+            .thenCompose(ignored -> DayFanOut.<DayColumns>forEachOrdered(dates,
+                properties.getRange().getMaxConcurrency(), this::getDayColumnsAsync, (dateStr, day) -> days.add(day)))
+            .thenApply(ignored -> {
+                long cpuStart = OrderMetrics.threadCpuNanos();
+                OrderAnalytics analytics = OrderAnalyzer.analyze(startDate, endDate, days, top,
+                    dayCache.branchDictionary(), dayCache.productDictionary(), branchService::getBranchName);
+                orderMetrics.recordRange("analytics", days.size(), OrderMetrics.threadCpuNanos() - cpuStart);
+                return analytics;
+            });
     }
 
     /**
-     * Add a new order
+     * With collection-group reads on, load each run of days not held locally with one query, which
+     * fills the day cache for the per-day fetch that follows
+     */
+    private CompletableFuture<Void> prefetchSpans(List<String> dates) {
+        if (!properties.getRange().isCollectionGroup() || !properties.getCache().isEnabled()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<String> spans = OrderDayIndex.collapseDays(dates, this::isHeldLocally).stream()
+            .filter(OrderDayIndex::isSpanKey)
+            .toList();
+        return DayFanOut.<DayColumns>forEachOrdered(spans, properties.getRange().getMaxConcurrency(),
+            dayIndex::readSpan, (key, span) -> { });
+    }
+
+    private List<Order> dayFrom(Map<String, DayColumns> fetched, String dateStr) {
+        List<Order> orders = withBranchNames(dayCache.decode(fetched.get(dateStr)));
+        OrderAggregator.addDayTotal(dateStr, orders);
+        return orders;
+    }
+
+    private List<Order> rangeFrom(Map<String, DayColumns> fetched, LocalDate startDate, LocalDate endDate) {
+        String dateRangeKey = DateUtil.formatDate(startDate) + " - " + DateUtil.formatDate(endDate);
+        OrderAggregator.RangeMerge merge = dayCache.newRangeMerge(dateRangeKey);
+        for (String dateStr : DateUtil.getDateStringsInRange(startDate, endDate)) {
+            merge.addDay(fetched.get(dateStr));
+        }
+        return merge.result(branchService::getBranchName).get(dateRangeKey);
+    }
+
+    /**
+     * Walk a date range day by day, handing each day's orders (with its total) to the listener
+     * as soon as it and every earlier day are fetched, and return the merged range at the end.
+     * Only the fetch window and the merged totals are held in memory, however long the range.
+     */
+    public Map<String, List<Order>> streamOrdersForDateRange(LocalDate startDate, LocalDate endDate,
+                                                             DayListener listener)
+            throws ExecutionException, InterruptedException, IOException {
+        String dateRangeKey = DateUtil.formatDate(startDate) + " - " + DateUtil.formatDate(endDate);
+        OrderAggregator.RangeMerge merge = dayCache.newRangeMerge(dateRangeKey);
+
+        List<String> dates = DateUtil.getDateStringsInRange(startDate, endDate);
+        AtomicLong aggregationNanos = new AtomicLong();
+        DayFanOut.<List<Order>>forEachOrderedBlocking(dates,
+            properties.getRange().getMaxConcurrency(), this::getOrdersByDateStringAsync,
+            (dateStr, ordersForDate) -> {
+                long cpuStart = OrderMetrics.threadCpuNanos();
+                merge.addDay(ordersForDate);
+                OrderAggregator.addDayTotal(dateStr, ordersForDate);
+                aggregationNanos.addAndGet(OrderMetrics.threadCpuNanos() - cpuStart);
+                listener.onDay(dateStr, ordersForDate);
+            });
+
+        long cpuStart = OrderMetrics.threadCpuNanos();
+        Map<String, List<Order>> result = merge.result(branchService::getBranchName);
+        orderMetrics.recordRange("stream", dates.size(),
+            aggregationNanos.get() + OrderMetrics.threadCpuNanos() - cpuStart);
+        return result;
+    }
+
+    @FunctionalInterface
+    public interface DayListener {
+        void onDay(String dateStr, List<Order> orders) throws IOException;
+    }
+
+    /**
+     * Hand every day of a date range to the listener in date order, for exports. Days are read
+     * through the same window as streaming, so memory stays flat however long the range. Days
+     * read from Firestore are not cached: a year-long export would otherwise evict the days
+     * that interactive reads are using.
+     */
+    public void exportOrdersForDateRange(LocalDate startDate, LocalDate endDate, DayListener listener)
+            throws ExecutionException, InterruptedException, IOException {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("endDate must not be before startDate");
+        }
+        DayFanOut.<List<Order>>forEachOrderedBlocking(DateUtil.getDateStringsInRange(startDate, endDate),
+            properties.getRange().getMaxConcurrency(), this::getExportDayAsync, listener::onDay);
+    }
+
+    private CompletableFuture<List<Order>> getExportDayAsync(String dateStr) {
+        List<Order> held = liveView.get(dateStr);
+        if (held == null) {
+            held = dayCache.get(dateStr);
+        }
+        CompletableFuture<List<Order>> orders = held != null
+            ? CompletableFuture.completedFuture(held)
+            : loadOrdersByDateString(dateStr);
+        return orders.thenApply(this::withBranchNames);
+    }
+
+    /**
+     * A day or range read, tied to the generation of its days when it started so that reads
+     * never join one that began before a write to those days
+     */
+    private record FlightKey(String key, long generation) {
+    }
+
+    /**
+     * Add a new order, through the group-commit queue when it is enabled. Lines with an
+     * idempotency key are written on their own. Returns once the order has been committed.
      */
     public void addOrder(String dateStr, OrderItem orderItem) throws ExecutionException, InterruptedException {
-        // Get reference to the date document
-        DocumentReference dateDocRef = firestore.collection("orders").document(dateStr);
-        
-        // Get reference to the branch document
-        DocumentReference branchDocRef = dateDocRef.collection("branches").document(orderItem.getBranch());
-        
-        // Create a batch write
-        WriteBatch batch = firestore.batch();
-        
-        // Create or update the branch document with the product
-        Map<String, Object> updates = new HashMap<>();
-        updates.put(orderItem.getProduct(), orderItem.getQuantity());
-        
-        batch.set(branchDocRef, updates, com.google.cloud.firestore.SetOptions.merge());
-        
-        // Commit the batch
-        batch.commit().get();
+        if (writeBuffer.isEnabled() && !orderWriter.isIdempotent(orderItem)) {
+            writeBuffer.submit(dateStr, orderItem).get();
+        } else {
+            orderWriter.write(dateStr, orderItem);
+        }
+    }
+
+    /**
+     * Recompute the rollup documents of every month touched by the range from the raw orders
+     */
+    public int rebuildRollups(LocalDate startDate, LocalDate endDate) throws ExecutionException, InterruptedException {
+        int maxConcurrency = properties.getRange().getMaxConcurrency();
+        int months = 0;
+
+        for (YearMonth month = YearMonth.from(startDate); !month.isAfter(YearMonth.from(endDate)); month = month.plusMonths(1)) {
+            Map<String, Map<String, Double>> dayTotals = new HashMap<>();
+            Map<String, Map<String, Double>> branchTotals = new HashMap<>();
+            Map<String, Double> monthTotals = new HashMap<>();
+
+            List<String> days = DateUtil.getDateStringsInRange(month.atDay(1), month.atEndOfMonth());
+            DayFanOut.<List<Order>>forEachOrdered(days, maxConcurrency, this::loadOrdersByDateString,
+                (dateStr, orders) -> {
+                    for (Order order : orders) {
+                        for (Map.Entry<String, String> entry : order.getProducts().entrySet()) {
+                            String product = entry.getKey();
+                            double quantity = QuantityUtil.parseQuantity(entry.getValue());
+                            dayTotals.computeIfAbsent(dateStr, d -> new HashMap<>()).merge(product, quantity, Double::sum);
+                            branchTotals.computeIfAbsent(order.getBranchId(), b -> new HashMap<>()).merge(product, quantity, Double::sum);
+                            monthTotals.merge(product, quantity, Double::sum);
+                        }
+                    }
+                }).get();
+
+            rollupService.replaceMonth(month, dayTotals, branchTotals, monthTotals);
+            logger.info("Rebuilt order rollups for {}", month);
+            months++;
+        }
+
+        return months;
+    }
+
+    /**
+     * Start stamping the sortable day field on branch documents written before it existed
+     */
+    public DayFieldStampStatus startDayFieldStamp() {
+        return dayIndex.startStamping();
+    }
+
+    /**
+     * Progress of the last day-field stamping job, null if none was started
+     */
+    public DayFieldStampStatus getDayFieldStampStatus() {
+        return dayIndex.stampingStatus();
+    }
+
+    /**
+     * Which recent days are served from the snapshot-listener view, and how far behind it runs
+     */
+    public LiveViewStatus getLiveViewStatus() {
+        return liveView.status();
+    }
+
+    /**
+     * Hit/miss/eviction counters of the per-day order cache
+     */
+    public CacheStatistics getCacheStatistics() {
+        return dayCache.statistics();
     }
 }
@@ -0,0 +1,74 @@
+package com.aidascorner.featureOrder;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.aidascorner.featureOrder.model.Order;
+
+/**
+ * Distributed-counter layout for busy branches. In increment mode a branch's day may be spread
+ * over the documents {branch}, {branch}~1 ... {branch}~(n-1) of the same branches collection;
+ * the extra shards name their branch in {@link #BRANCH_FIELD}. Readers add the shards back up,
+ * so a sharded branch looks like any other.
+ */
+final class OrderShards {
+
+    static final String BRANCH_FIELD = "_branch";
+    static final String SEPARATOR = "~";
+
+    private OrderShards() {
+    }
+
+    static String documentId(String branch, int shard) {
+        return shard == 0 ? branch : branch + SEPARATOR + shard;
+    }
+
+    /**
+     * The branch a branch document belongs to
+     */
+    static String branchOf(String documentId, Map<String, Object> data) {
+        Object branch = data.get(BRANCH_FIELD);
+        return branch != null ? branch.toString() : documentId;
+    }
+
+    /**
+     * Add up the orders of branches that appear more than once. Returns the list itself when
+     * no branch is sharded, otherwise a new one.
+     */
+    static List<Order> merge(List<Order> orders) {
+        Set<String> seen = new HashSet<>();
+        boolean sharded = false;
+        for (Order order : orders) {
+            if (!seen.add(order.getBranchId())) {
+                sharded = true;
+                break;
+            }
+        }
+        if (!sharded) {
+            return orders;
+        }
+
+        Map<String, List<Order>> byBranch = new LinkedHashMap<>();
+        for (Order order : orders) {
+            byBranch.computeIfAbsent(order.getBranchId(), b -> new ArrayList<>(2)).add(order);
+        }
+        List<Order> merged = new ArrayList<>(byBranch.size());
+        for (List<Order> parts : byBranch.values()) {
+            Order first = parts.get(0);
+            if (parts.size() == 1) {
+                merged.add(first);
+                continue;
+            }
+            ProductTotals totals = new ProductTotals(true);
+            for (Order part : parts) {
+                part.getProducts().forEach(totals::add);
+            }
+            merged.add(new Order(first.getBranchId(), first.getBranchName(), first.getDate(), totals.toProducts()));
+        }
+        return merged;
+    }
+}
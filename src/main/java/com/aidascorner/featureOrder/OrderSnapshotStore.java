@@ -0,0 +1,528 @@
+package com.aidascorner.featureOrder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.aidascorner.core.firestore.FirestoreFutures;
+import com.aidascorner.core.firestore.FirestoreMetrics;
+import com.aidascorner.featureOrder.model.Order;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Local copy of closed (past) days' branch documents in an append-only, memory-mapped file, so
+ * a restarted instance serves history without reading it from Firestore again. Each day read
+ * from Firestore is appended once; a later record for the same day replaces it, and a record
+ * without orders drops it. The index (epoch day to record) is rebuilt by scanning the file at
+ * startup, stopping at the first record that is incomplete or fails its checksum.
+ *
+ * Days are decoded straight from the mapped file. When a stored day is served, and again
+ * whenever it is served after the verify interval, its document count and latest update time
+ * are checked against a field-less query in the background; a day that changed is dropped, and
+ * the caller told so it can drop its copies. Writes through this instance drop the day at once,
+ * and a read that was running while the day was written is not stored.
+ *
+ * <pre>
+ *   "ODS1"
+ *   record: length:int crc32:int body[length]
+ *   body:   epochDay:long updateMicros:long documents:int (-1 drops the day)
+ *           strings:int (length:unsigned short, UTF-8)*
+ *           rows:int (branch:int cells:int (product:int quantity:int)*)*
+ * </pre>
+ * The file is sized to the configured maximum up front (sparse where the platform allows).
+ * When it is full, and at startup when most of it is superseded records, the live records are
+ * copied to a new file that then replaces it. Only when the live days alone fill the file are
+ * further days not stored.
+ */
+@Component
+public class OrderSnapshotStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderSnapshotStore.class);
+    private static final byte[] MAGIC = "ODS1".getBytes(StandardCharsets.US_ASCII);
+    private static final int RECORD_HEADER = 8;
+    private static final int DROPPED = -1;
+
+    private final Firestore firestore;
+    private final OrderProperties.Snapshot settings;
+    private final FirestoreMetrics firestoreMetrics;
+    private final Map<Long, Entry> index = new ConcurrentHashMap<>();
+    // Local writes per epoch day, so reads that overlapped one are not stored
+    private final Map<Long, Long> writes = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private Path path;
+    private FileChannel channel;
+    private volatile MappedByteBuffer mapped;
+    // Guarded by this
+    private int writePosition;
+    private boolean full;
+
+    public OrderSnapshotStore(Firestore firestore, OrderProperties properties, FirestoreMetrics firestoreMetrics) {
+        this.firestore = firestore;
+        this.settings = properties.getSnapshot();
+        this.firestoreMetrics = firestoreMetrics;
+    }
+
+    public boolean isEnabled() {
+        return mapped != null;
+    }
+
+    /**
+     * Map the file and index the days already in it
+     */
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        path = Path.of(settings.getPath());
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity());
+
+        byte[] magic = new byte[MAGIC.length];
+        mapped.get(0, magic);
+        writePosition = MAGIC.length;
+        if (Arrays.equals(magic, MAGIC)) {
+            scan();
+            if (liveBytes() * 2 < writePosition) {
+                compact();
+            }
+        } else {
+            // New file, or not ours: start over
+            mapped.put(0, MAGIC);
+            mapped.putInt(writePosition, 0);
+        }
+        logger.info("Opened order snapshot store {} with {} days in {}ms", path, index.size(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (mapped != null) {
+            mapped.force();
+            mapped = null;
+            channel.close();
+        }
+    }
+
+    /**
+     * The stored orders of a closed day, or null. Callers get their own list. If verification
+     * later finds the day changed, onStale runs.
+     */
+    List<Order> get(String dateStr, Runnable onStale) {
+        if (mapped == null) {
+            return null;
+        }
+        LocalDate date = DateUtil.parseDate(dateStr);
+        if (!date.isBefore(LocalDate.now())) {
+            return null;
+        }
+        Entry entry = index.get(date.toEpochDay());
+        if (entry == null) {
+            return null;
+        }
+
+        List<Order> orders = decode(dateStr, entry.buffer().slice(entry.offset(), entry.length()));
+        if (settings.isVerify() && entry.claimVerification(settings.getVerifyInterval().toNanos())) {
+            verify(dateStr, entry, onStale).exceptionally(error -> {
+                logger.warn("Could not verify stored orders for {}", dateStr, error);
+                entry.verificationFailed();
+                return false;
+            });
+        }
+        return orders;
+    }
+
+    /**
+     * Whether a closed day is stored, without decoding it
+     */
+    boolean contains(String dateStr) {
+        if (mapped == null) {
+            return false;
+        }
+        LocalDate date = DateUtil.parseDate(dateStr);
+        return date.isBefore(LocalDate.now()) && index.containsKey(date.toEpochDay());
+    }
+
+    /**
+     * Token to take before reading a day from Firestore and hand back to {@link #put}
+     */
+    long generation(String dateStr) {
+        return writes.getOrDefault(DateUtil.parseDate(dateStr).toEpochDay(), 0L);
+    }
+
+    /**
+     * Store a closed day read from Firestore, with the documents it was read from, unless this
+     * instance wrote to the day after the read started
+     */
+    void put(String dateStr, List<Order> orders, List<QueryDocumentSnapshot> documents, long readGeneration) {
+        if (mapped == null) {
+            return;
+        }
+        LocalDate date = DateUtil.parseDate(dateStr);
+        if (!date.isBefore(LocalDate.now())) {
+            return;
+        }
+        byte[] body = encode(date.toEpochDay(), updateMicros(documents), documents.size(), orders);
+        if (body == null) {
+            return;
+        }
+        synchronized (this) {
+            if (writes.getOrDefault(date.toEpochDay(), 0L) == readGeneration) {
+                append(body);
+            }
+        }
+    }
+
+    /**
+     * Drop a day after an order was written for it
+     */
+    void invalidate(String dateStr) {
+        if (mapped == null) {
+            return;
+        }
+        long epochDay = DateUtil.parseDate(dateStr).toEpochDay();
+        synchronized (this) {
+            writes.merge(epochDay, 1L, Long::sum);
+            // Out of the index first, so a compaction for the tombstone's room leaves the day out too
+            if (index.remove(epochDay) != null) {
+                full = false;
+                ByteBuffer body = ByteBuffer.allocate(20);
+                body.putLong(epochDay).putLong(0).putInt(DROPPED);
+                append(body.array());
+            }
+        }
+    }
+
+    /**
+     * Whether a stored day still matches its documents; drops it if not
+     */
+    CompletableFuture<Boolean> verify(String dateStr) {
+        Entry entry = mapped == null ? null : index.get(DateUtil.parseDate(dateStr).toEpochDay());
+        return entry == null ? CompletableFuture.completedFuture(false) : verify(dateStr, entry, () -> { });
+    }
+
+    private CompletableFuture<Boolean> verify(String dateStr, Entry entry, Runnable onStale) {
+        Query query = firestore.collection("orders").document(dateStr).collection("branches")
+            .select(FieldPath.documentId());
+        return firestoreMetrics.timed("verifyOrderSnapshot", () -> FirestoreFutures.toCompletableFuture(query.get()))
+            .thenApply(snapshot -> {
+                List<QueryDocumentSnapshot> documents = snapshot.getDocuments();
+                firestoreMetrics.documentsRead("verifyOrderSnapshot", documents.size());
+                entry.verified();
+                if (documents.size() == entry.documents() && updateMicros(documents) == entry.updateMicros()) {
+                    return true;
+                }
+                logger.info("Stored orders for {} are out of date, dropping them", dateStr);
+                Entry current = index.get(entry.epochDay());
+                if (current != null && current.sequence() == entry.sequence()) {
+                    invalidate(dateStr);
+                    onStale.run();
+                }
+                return false;
+            });
+    }
+
+    private synchronized void append(byte[] body) {
+        if (mapped == null) {
+            return;
+        }
+        // Room for the record and the zero length that marks the end
+        if (writePosition + RECORD_HEADER + body.length + 4 > mapped.capacity() && !full) {
+            try {
+                compact();
+            } catch (IOException e) {
+                logger.warn("Compacting order snapshot store failed", e);
+            }
+        }
+        int end = writePosition + RECORD_HEADER + body.length;
+        if (end + 4 > mapped.capacity()) {
+            if (!full) {
+                logger.warn("Order snapshot store is full at {} bytes of live days; further days are not stored",
+                    mapped.capacity());
+                full = true;
+            }
+            return;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body);
+
+        mapped.putInt(end, 0);
+        mapped.put(writePosition + RECORD_HEADER, body);
+        mapped.putInt(writePosition + 4, (int) crc.getValue());
+        // Length last, so a record cut short by a crash reads as the end of the file
+        mapped.putInt(writePosition, body.length);
+        apply(writePosition + RECORD_HEADER, body.length);
+        writePosition = end;
+    }
+
+    /**
+     * Copy the live records to a new file and swap it in. Readers holding an entry of the old
+     * file keep reading its mapping, which stays valid until it is no longer referenced.
+     */
+    private synchronized void compact() throws IOException {
+        long startNanos = System.nanoTime();
+        int before = writePosition;
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        FileChannel next = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer target = next.map(FileChannel.MapMode.READ_WRITE, 0, capacity());
+
+        target.put(0, MAGIC);
+        int position = MAGIC.length;
+        List<Entry> live = new ArrayList<>(index.values());
+        live.sort(Comparator.comparingInt(Entry::offset));
+        Map<Long, Entry> moved = new HashMap<>();
+        for (Entry entry : live) {
+            // Header and body as they are, checksum included
+            int recordStart = entry.offset() - RECORD_HEADER;
+            target.put(position, mapped, recordStart, RECORD_HEADER + entry.length());
+            moved.put(entry.epochDay(), entry.movedTo(target, position + RECORD_HEADER));
+            position += RECORD_HEADER + entry.length();
+        }
+        target.putInt(position, 0);
+        target.force();
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        channel.close();
+        channel = next;
+        mapped = target;
+        writePosition = position;
+        index.putAll(moved);
+        logger.info("Compacted order snapshot store from {} to {} bytes in {}ms", before, position,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    private long liveBytes() {
+        long bytes = MAGIC.length;
+        for (Entry entry : index.values()) {
+            bytes += RECORD_HEADER + entry.length();
+        }
+        return bytes;
+    }
+
+    private int capacity() {
+        return (int) Math.min(Integer.MAX_VALUE, settings.getMaxBytes());
+    }
+
+    /**
+     * Index every complete record, and append after the last one
+     */
+    private void scan() {
+        int position = writePosition;
+        while (position + RECORD_HEADER <= mapped.capacity()) {
+            int length = mapped.getInt(position);
+            if (length < 20 || position + RECORD_HEADER + length > mapped.capacity()) {
+                break;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(mapped.slice(position + RECORD_HEADER, length));
+            if ((int) crc.getValue() != mapped.getInt(position + 4)) {
+                logger.warn("Order snapshot store ends in a damaged record at {}; appending over it", position);
+                break;
+            }
+            apply(position + RECORD_HEADER, length);
+            position += RECORD_HEADER + length;
+        }
+        writePosition = position;
+    }
+
+    private void apply(int offset, int length) {
+        long epochDay = mapped.getLong(offset);
+        int documents = mapped.getInt(offset + 16);
+        if (documents == DROPPED) {
+            index.remove(epochDay);
+        } else {
+            index.put(epochDay, new Entry(sequence.incrementAndGet(), epochDay, mapped, offset, length,
+                mapped.getLong(offset + 8), documents));
+        }
+    }
+
+    private static byte[] encode(long epochDay, long updateMicros, int documents, List<Order> orders) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        int cells = 0;
+        for (Order order : orders) {
+            if (intern(order.getBranchId(), ids, strings) < 0) {
+                return null;
+            }
+            for (Map.Entry<String, String> product : order.getProducts().entrySet()) {
+                if (intern(product.getKey(), ids, strings) < 0 || intern(product.getValue(), ids, strings) < 0) {
+                    return null;
+                }
+            }
+            cells += order.getProducts().size();
+        }
+
+        int size = 20 + 4 + 4 + orders.size() * 8 + cells * 8;
+        for (byte[] string : strings) {
+            size += 2 + string.length;
+        }
+        ByteBuffer body = ByteBuffer.allocate(size);
+        body.putLong(epochDay).putLong(updateMicros).putInt(documents);
+        body.putInt(strings.size());
+        for (byte[] string : strings) {
+            body.putShort((short) string.length).put(string);
+        }
+        body.putInt(orders.size());
+        for (Order order : orders) {
+            body.putInt(ids.get(order.getBranchId())).putInt(order.getProducts().size());
+            for (Map.Entry<String, String> product : order.getProducts().entrySet()) {
+                body.putInt(ids.get(product.getKey())).putInt(ids.get(product.getValue()));
+            }
+        }
+        return body.array();
+    }
+
+    /**
+     * Id of the string in the record's string table, or -1 if it cannot be stored
+     */
+    private static int intern(String value, Map<String, Integer> ids, List<byte[]> strings) {
+        if (value == null) {
+            return -1;
+        }
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            return -1;
+        }
+        ids.put(value, strings.size());
+        strings.add(bytes);
+        return strings.size() - 1;
+    }
+
+    /**
+     * Decode a record body in place; only the strings are copied out of the mapping
+     */
+    private static List<Order> decode(String dateStr, ByteBuffer body) {
+        body.position(20);
+        String[] strings = new String[body.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            int length = Short.toUnsignedInt(body.getShort());
+            byte[] bytes = new byte[length];
+            body.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int rows = body.getInt();
+        List<Order> orders = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            String branchId = strings[body.getInt()];
+            int cells = body.getInt();
+            Map<String, String> products = new HashMap<>(Math.max(4, cells * 4 / 3 + 1));
+            for (int cell = 0; cell < cells; cell++) {
+                products.put(strings[body.getInt()], strings[body.getInt()]);
+            }
+            orders.add(new Order(branchId, branchId, dateStr, products));
+        }
+        return orders;
+    }
+
+    private static long updateMicros(List<QueryDocumentSnapshot> documents) {
+        long latest = 0;
+        for (QueryDocumentSnapshot document : documents) {
+            Timestamp updateTime = document.getUpdateTime();
+            if (updateTime != null) {
+                latest = Math.max(latest, TimeUnit.SECONDS.toMicros(updateTime.getSeconds())
+                    + TimeUnit.NANOSECONDS.toMicros(updateTime.getNanos()));
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Where a day's record body is, and what it was read from. The sequence identifies the
+     * record across compactions.
+     */
+    private record Entry(long sequence, long epochDay, ByteBuffer buffer, int offset, int length,
+                         long updateMicros, int documents, Verification verification) {
+
+        Entry(long sequence, long epochDay, ByteBuffer buffer, int offset, int length, long updateMicros, int documents) {
+            this(sequence, epochDay, buffer, offset, length, updateMicros, documents, new Verification());
+        }
+
+        /**
+         * The same record at its place in a compacted file
+         */
+        Entry movedTo(ByteBuffer target, int targetOffset) {
+            return new Entry(sequence, epochDay, target, targetOffset, length, updateMicros, documents, verification);
+        }
+
+        boolean claimVerification(long intervalNanos) {
+            return verification.claim(intervalNanos);
+        }
+
+        void verified() {
+            verification.done(true);
+        }
+
+        void verificationFailed() {
+            verification.done(false);
+        }
+    }
+
+    /**
+     * When a record was last checked against Firestore, kept across compactions
+     */
+    private static final class Verification {
+        private boolean running;
+        private boolean checked;
+        private long checkedAtNanos;
+
+        /**
+         * True for the one caller that should verify the day: the first to serve it, and then the
+         * first once the last verification is older than the interval
+         */
+        synchronized boolean claim(long intervalNanos) {
+            long now = System.nanoTime();
+            if (running || checked && now - checkedAtNanos < intervalNanos) {
+                return false;
+            }
+            running = true;
+            return true;
+        }
+
+        synchronized void done(boolean succeeded) {
+            running = false;
+            if (succeeded) {
+                checked = true;
+                checkedAtNanos = System.nanoTime();
+            }
+        }
+    }
+}
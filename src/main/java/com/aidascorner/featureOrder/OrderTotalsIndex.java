@@ -0,0 +1,268 @@
+package com.aidascorner.featureOrder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+import com.aidascorner.featureOrder.model.Order;
+
+/**
+ * Per (branch, product) cumulative sums over epoch days, so the total of any product at any
+ * branch between two dates is two prefix lookups instead of a walk over every day.
+ *
+ * Each series is a Fenwick tree of doubles covering a fixed window of days, allocated the
+ * first time the pair has a quantity. The total across branches is kept as its own series
+ * under {@link OrderAggregator#TOTAL_BRANCH_ID}. Quantities are set, not added, matching the
+ * merge writes of addOrder: the change is applied as the difference to the stored point value.
+ *
+ * The index is rebuilt from the stored orders (see OrderTotalsService#rebuildIndex) and kept
+ * current by this instance's writes; writes that land while a rebuild runs are replayed on top.
+ * Increments cannot be replayed safely, since the rebuild may or may not have read them, so the
+ * days they touched are reported by {@link Build#finish()} for the caller to read again.
+ */
+@Component
+public class OrderTotalsIndex {
+
+    private final OrderDictionary branchDictionary = new OrderDictionary();
+    private final OrderDictionary productDictionary = new OrderDictionary();
+    private final int totalBranch = branchDictionary.intern(OrderAggregator.TOTAL_BRANCH_ID);
+
+    private Window window;
+    private List<PointWrite> writesDuringBuild;
+    private Set<String> daysIncrementedDuringBuild;
+
+    /**
+     * Whether every day of the range is covered
+     */
+    public synchronized boolean covers(LocalDate startDate, LocalDate endDate) {
+        return window != null && window.contains(startDate) && window.contains(endDate);
+    }
+
+    /**
+     * Record the quantity now stored for a product at a branch on a date
+     */
+    public synchronized void set(String dateStr, String branchId, String product, double quantity) {
+        if (writesDuringBuild != null) {
+            writesDuringBuild.add(new PointWrite(dateStr, branchId, product, quantity));
+        }
+        if (window != null) {
+            window.set(DateUtil.parseDate(dateStr), branchDictionary.intern(branchId),
+                productDictionary.intern(product), quantity);
+        }
+    }
+
+    /**
+     * Add to the quantity stored for a product at a branch on a date
+     */
+    public synchronized void add(String dateStr, String branchId, String product, double delta) {
+        if (daysIncrementedDuringBuild != null) {
+            daysIncrementedDuringBuild.add(dateStr);
+        }
+        if (window != null) {
+            LocalDate date = DateUtil.parseDate(dateStr);
+            int branch = branchDictionary.intern(branchId);
+            int productId = productDictionary.intern(product);
+            window.set(date, branch, productId, window.value(date, branch, productId) + delta);
+        }
+    }
+
+    /**
+     * Record every quantity of a day read again after a rebuild
+     */
+    synchronized void setDay(String dateStr, List<Order> orders) {
+        for (Order order : orders) {
+            for (Map.Entry<String, String> entry : order.getProducts().entrySet()) {
+                set(dateStr, order.getBranchId(), entry.getKey(), QuantityUtil.parseQuantity(entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Sum of the product at the branch (or {@link OrderAggregator#TOTAL_BRANCH_ID}) over the
+     * range, inclusive. The caller checks {@link #covers} first.
+     */
+    public synchronized double total(String branchId, String product, LocalDate startDate, LocalDate endDate) {
+        int branch = branchDictionary.find(branchId);
+        int productId = productDictionary.find(product);
+        if (branch < 0 || productId < 0) {
+            return 0.0;
+        }
+        return window.total(branch, productId, startDate, endDate);
+    }
+
+    /**
+     * Every product the index has seen
+     */
+    public synchronized List<String> products() {
+        List<String> products = new ArrayList<>(productDictionary.size());
+        for (int id = 0; id < productDictionary.size(); id++) {
+            products.add(productDictionary.name(id));
+        }
+        return products;
+    }
+
+    /**
+     * Start building a fresh window; it replaces the current one on {@link Build#finish()}
+     */
+    synchronized Build startBuild(LocalDate firstDay, int days) {
+        writesDuringBuild = new ArrayList<>();
+        daysIncrementedDuringBuild = new HashSet<>();
+        return new Build(new Window(firstDay, days));
+    }
+
+    private synchronized Set<String> install(Window built) {
+        for (PointWrite write : writesDuringBuild) {
+            if (built.contains(DateUtil.parseDate(write.date()))) {
+                built.set(DateUtil.parseDate(write.date()), branchDictionary.intern(write.branchId()),
+                    productDictionary.intern(write.product()), write.quantity());
+            }
+        }
+        Set<String> incrementedDays = daysIncrementedDuringBuild;
+        writesDuringBuild = null;
+        daysIncrementedDuringBuild = null;
+        window = built;
+        return incrementedDays;
+    }
+
+    private synchronized void abandon() {
+        writesDuringBuild = null;
+        daysIncrementedDuringBuild = null;
+    }
+
+    /**
+     * Collects the point values of each day and turns them into Fenwick trees in one pass
+     */
+    final class Build {
+        private final Window target;
+
+        private Build(Window target) {
+            this.target = target;
+        }
+
+        void addDay(String dateStr, List<Order> orders) {
+            LocalDate date = DateUtil.parseDate(dateStr);
+            if (!target.contains(date)) {
+                return;
+            }
+            int day = target.offset(date);
+            synchronized (OrderTotalsIndex.this) {
+                for (Order order : orders) {
+                    int branch = branchDictionary.intern(order.getBranchId());
+                    for (Map.Entry<String, String> entry : order.getProducts().entrySet()) {
+                        int product = productDictionary.intern(entry.getKey());
+                        double quantity = QuantityUtil.parseQuantity(entry.getValue());
+                        target.series(branch, product)[day + 1] += quantity;
+                        target.series(totalBranch, product)[day + 1] += quantity;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Install the built window. Returns the days incremented while it was built, whose
+         * quantities have to be read again and {@link #setDay set}.
+         */
+        Set<String> finish() {
+            for (double[] tree : target.trees.values()) {
+                Window.heapify(tree);
+            }
+            return install(target);
+        }
+
+        void cancel() {
+            abandon();
+        }
+    }
+
+    /**
+     * The covered days and the trees over them. Tree index i (1-based) holds day offset i - 1.
+     */
+    private final class Window {
+        private final LocalDate firstDay;
+        private final int days;
+        private final Map<Long, double[]> trees = new HashMap<>();
+
+        private Window(LocalDate firstDay, int days) {
+            this.firstDay = firstDay;
+            this.days = days;
+        }
+
+        boolean contains(LocalDate date) {
+            int offset = offset(date);
+            return offset >= 0 && offset < days;
+        }
+
+        private int offset(LocalDate date) {
+            return (int) (date.toEpochDay() - firstDay.toEpochDay());
+        }
+
+        private double[] series(int branch, int product) {
+            return trees.computeIfAbsent(((long) branch << 32) | product, key -> new double[days + 1]);
+        }
+
+        private void set(LocalDate date, int branch, int product, double quantity) {
+            if (!contains(date)) {
+                return;
+            }
+            int index = offset(date) + 1;
+            double[] tree = series(branch, product);
+            double delta = quantity - (prefix(tree, index) - prefix(tree, index - 1));
+            if (delta != 0.0) {
+                add(tree, index, delta);
+                add(series(totalBranch, product), index, delta);
+            }
+        }
+
+        private double value(LocalDate date, int branch, int product) {
+            double[] tree = trees.get(((long) branch << 32) | product);
+            if (tree == null || !contains(date)) {
+                return 0.0;
+            }
+            int index = offset(date) + 1;
+            return prefix(tree, index) - prefix(tree, index - 1);
+        }
+
+        private double total(int branch, int product, LocalDate startDate, LocalDate endDate) {
+            double[] tree = trees.get(((long) branch << 32) | product);
+            if (tree == null) {
+                return 0.0;
+            }
+            return prefix(tree, offset(endDate) + 1) - prefix(tree, offset(startDate));
+        }
+
+        private static void add(double[] tree, int index, double delta) {
+            for (int i = index; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+
+        private static double prefix(double[] tree, int index) {
+            double sum = 0.0;
+            for (int i = index; i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+
+        /**
+         * Turn point values into a Fenwick tree in place, in linear time
+         */
+        private static void heapify(double[] tree) {
+            for (int i = 1; i < tree.length; i++) {
+                int parent = i + (i & -i);
+                if (parent < tree.length) {
+                    tree[parent] += tree[i];
+                }
+            }
+        }
+    }
+
+    private record PointWrite(String date, String branchId, String product, double quantity) {
+    }
+}
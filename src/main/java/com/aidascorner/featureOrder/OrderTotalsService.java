@@ -0,0 +1,171 @@
+package com.aidascorner.featureOrder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.aidascorner.featureOrder.model.DateRange;
+import com.aidascorner.featureOrder.model.Order;
+import com.aidascorner.featureOrder.model.RangeTotals;
+import com.aidascorner.featureOrder.model.TotalsRequest;
+
+/**
+ * Product totals over arbitrary date ranges, answered from the prefix-sum index when it covers
+ * the range and by a regular range merge otherwise.
+ */
+@Service
+public class OrderTotalsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderTotalsService.class);
+
+    private final OrderService orderService;
+    private final OrderTotalsIndex totalsIndex;
+    private final OrderProperties properties;
+
+    public OrderTotalsService(OrderService orderService, OrderTotalsIndex totalsIndex, OrderProperties properties) {
+        this.orderService = orderService;
+        this.totalsIndex = totalsIndex;
+        this.properties = properties;
+    }
+
+    /**
+     * Rebuild the index from the stored orders at startup and every night, so its window moves
+     * with the date and it picks up orders written by other instances
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${orders.totals-index.rebuild-cron:0 30 0 * * *}")
+    public void rebuildIndex() {
+        OrderProperties.TotalsIndex settings = properties.getTotalsIndex();
+        if (!settings.isEnabled()) {
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        LocalDate firstDay = today.minusDays(settings.getHistoryDays() - 1L);
+        LocalDate lastDay = today.plusDays(settings.getFutureDays());
+        OrderTotalsIndex.Build build = totalsIndex.startBuild(firstDay,
+            settings.getHistoryDays() + settings.getFutureDays());
+
+        try {
+            DayFanOut.<List<Order>>forEachOrdered(DateUtil.getDateStringsInRange(firstDay, lastDay),
+                properties.getRange().getMaxConcurrency(), orderService::loadOrdersByDateString, build::addDay).get();
+            Set<String> incrementedDays = build.finish();
+            for (String dateStr : incrementedDays) {
+                totalsIndex.setDay(dateStr, orderService.loadOrdersByDateString(dateStr).get());
+            }
+            logger.info("Rebuilt order totals index for {} to {} in {}ms", firstDay, lastDay,
+                (System.nanoTime() - startNanos) / 1_000_000);
+        } catch (ExecutionException e) {
+            build.cancel();
+            logger.error("Rebuilding order totals index failed", e.getCause());
+        } catch (InterruptedException e) {
+            build.cancel();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Totals per requested branch and product for every range in the request
+     */
+    public List<RangeTotals> getTotals(TotalsRequest request) throws ExecutionException, InterruptedException {
+        if (request.getRanges() == null || request.getRanges().isEmpty()) {
+            throw new IllegalArgumentException("At least one range is required");
+        }
+        List<String> branches = request.getBranches() == null || request.getBranches().isEmpty()
+            ? List.of(OrderAggregator.TOTAL_BRANCH_ID)
+            : request.getBranches();
+
+        List<RangeTotals> results = new ArrayList<>();
+        for (DateRange range : request.getRanges()) {
+            LocalDate startDate = range.getStartDate();
+            LocalDate endDate = range.getEndDate();
+            if (startDate == null || endDate == null || startDate.isAfter(endDate)) {
+                throw new IllegalArgumentException("Invalid range " + startDate + " - " + endDate);
+            }
+
+            if (properties.getTotalsIndex().isEnabled() && totalsIndex.covers(startDate, endDate)) {
+                results.add(new RangeTotals(startDate, endDate,
+                    fromIndex(startDate, endDate, branches, request.getProducts()), "index"));
+            } else {
+                results.add(new RangeTotals(startDate, endDate,
+                    fromOrders(startDate, endDate, branches, request.getProducts()), "orders"));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Admission cost of a totals request: nothing extra for ranges the index covers, the days
+     * to read for the others, and at least 1. Invalid ranges are left to {@link #getTotals}.
+     */
+    public long estimateReadCost(TotalsRequest request) {
+        long cost = 1;
+        for (DateRange range : request.getRanges() == null ? List.<DateRange>of() : request.getRanges()) {
+            LocalDate startDate = range.getStartDate();
+            LocalDate endDate = range.getEndDate();
+            if (startDate == null || endDate == null || startDate.isAfter(endDate)
+                    || properties.getTotalsIndex().isEnabled() && totalsIndex.covers(startDate, endDate)) {
+                continue;
+            }
+            cost += orderService.estimateReadCost(startDate, endDate);
+        }
+        return cost;
+    }
+
+    private Map<String, Map<String, Double>> fromIndex(LocalDate startDate, LocalDate endDate,
+                                                       List<String> branches, List<String> products) {
+        List<String> productNames = products != null ? products : totalsIndex.products();
+        Map<String, Map<String, Double>> totals = new HashMap<>();
+        for (String branch : branches) {
+            Map<String, Double> branchTotals = new HashMap<>();
+            for (String product : productNames) {
+                double total = totalsIndex.total(branch, product, startDate, endDate);
+                // Without an explicit product list, only report what was ordered
+                if (products != null || total != 0.0) {
+                    branchTotals.put(product, total);
+                }
+            }
+            totals.put(branch, branchTotals);
+        }
+        return totals;
+    }
+
+    private Map<String, Map<String, Double>> fromOrders(LocalDate startDate, LocalDate endDate,
+                                                        List<String> branches, List<String> products)
+            throws ExecutionException, InterruptedException {
+        Map<String, Order> merged = new HashMap<>();
+        for (List<Order> orders : orderService.getOrdersForDateRange(startDate, endDate).values()) {
+            for (Order order : orders) {
+                merged.put(order.getBranchId(), order);
+            }
+        }
+
+        Map<String, Map<String, Double>> totals = new HashMap<>();
+        for (String branch : branches) {
+            Order order = merged.get(branch);
+            Map<String, String> ordered = order != null ? order.getProducts() : Map.of();
+            Map<String, Double> branchTotals = new HashMap<>();
+            if (products != null) {
+                for (String product : products) {
+                    branchTotals.put(product, QuantityUtil.parseQuantity(ordered.get(product)));
+                }
+            } else {
+                ordered.forEach((product, quantity) -> branchTotals.put(product, QuantityUtil.parseQuantity(quantity)));
+            }
+            totals.put(branch, branchTotals);
+        }
+        return totals;
+    }
+}
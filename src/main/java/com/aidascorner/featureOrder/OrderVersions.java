@@ -0,0 +1,46 @@
+package com.aidascorner.featureOrder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-date version counters for the orders this instance holds in memory. A date's version
+ * moves whenever what would be served for it may change: a local write, a live-view snapshot
+ * or a fresh day put in the cache. Counters start over on restart, so they are paired with
+ * a boot id when used as ETags.
+ */
+@Component
+public class OrderVersions {
+
+    private final long bootMillis = System.currentTimeMillis();
+    private final String bootId = Long.toString(bootMillis, 36);
+    private final Map<String, Stamp> stamps = new ConcurrentHashMap<>();
+
+    public void bump(String dateStr) {
+        long now = System.currentTimeMillis();
+        stamps.merge(dateStr, new Stamp(1, now),
+            (previous, ignored) -> new Stamp(previous.version() + 1, Math.max(now, previous.modifiedMillis())));
+    }
+
+    public long version(String dateStr) {
+        Stamp stamp = stamps.get(dateStr);
+        return stamp == null ? 0 : stamp.version();
+    }
+
+    /**
+     * When the date last changed here, or startup if it has not
+     */
+    public long lastModified(String dateStr) {
+        Stamp stamp = stamps.get(dateStr);
+        return stamp == null ? bootMillis : stamp.modifiedMillis();
+    }
+
+    public String bootId() {
+        return bootId;
+    }
+
+    private record Stamp(long version, long modifiedMillis) {
+    }
+}
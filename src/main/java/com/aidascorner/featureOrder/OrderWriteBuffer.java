@@ -0,0 +1,173 @@
+package com.aidascorner.featureOrder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.aidascorner.featureOrder.model.OrderItem;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Group-commit pipeline for order lines. Lines are queued and a single flusher thread
+ * coalesces them into one commit of up to {@link OrderWriter#maxDocumentsPerCommit()} branch
+ * documents, or whatever arrived within the flush interval. Lines for the same branch document
+ * are merged into one write, later lines winning like they would in sequential writes (or
+ * adding up, in increment mode).
+ * Each caller's future completes when the commit holding its line does.
+ */
+@Component
+public class OrderWriteBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderWriteBuffer.class);
+
+    private final OrderWriter orderWriter;
+    private final boolean enabled;
+    private final long flushIntervalNanos;
+    private final BlockingQueue<PendingLine> queue;
+    private final Thread flusher;
+    private volatile boolean closed;
+
+    public OrderWriteBuffer(OrderWriter orderWriter, OrderProperties properties) {
+        OrderProperties.GroupCommit settings = properties.getWrite().getGroupCommit();
+        this.orderWriter = orderWriter;
+        this.enabled = settings.isEnabled();
+        this.flushIntervalNanos = settings.getFlushInterval().toNanos();
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, settings.getQueueCapacity()));
+
+        if (enabled) {
+            this.flusher = new Thread(this::run, "order-group-commit");
+            this.flusher.setDaemon(true);
+            this.flusher.start();
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue an order line for the next group commit
+     *
+     * @throws OrderQueueFullException if the queue is full or shutting down
+     */
+    public CompletableFuture<Void> submit(String dateStr, OrderItem orderItem) {
+        PendingLine line = new PendingLine(new BranchDocKey(dateStr, orderItem.getBranch()),
+            orderItem.getProduct(), orderItem.getQuantity(), new CompletableFuture<>());
+        if (closed || !queue.offer(line)) {
+            throw new OrderQueueFullException("Order write queue is full");
+        }
+        return line.result();
+    }
+
+    private void run() {
+        List<PendingLine> lines = new ArrayList<>();
+        while (!closed || !queue.isEmpty()) {
+            try {
+                PendingLine first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                lines.add(first);
+                collect(lines, first);
+                flush(lines);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queue.drainTo(lines);
+                fail(lines, e);
+                return;
+            } finally {
+                lines.clear();
+            }
+        }
+    }
+
+    /**
+     * Take more lines until the commit is full or the flush interval since the first line ran out
+     */
+    private void collect(List<PendingLine> lines, PendingLine first) throws InterruptedException {
+        int maxDocuments = orderWriter.maxDocumentsPerCommit();
+        Set<BranchDocKey> documents = new HashSet<>();
+        documents.add(first.key());
+        long deadline = System.nanoTime() + flushIntervalNanos;
+
+        while (documents.size() < maxDocuments) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            PendingLine next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            lines.add(next);
+            documents.add(next.key());
+        }
+    }
+
+    private void flush(List<PendingLine> lines) throws InterruptedException {
+        Map<BranchDocKey, Map<String, Object>> documents = new LinkedHashMap<>();
+        for (PendingLine line : lines) {
+            orderWriter.addLine(documents.computeIfAbsent(line.key(), k -> new HashMap<>()), line.product(), line.quantity());
+        }
+
+        try {
+            orderWriter.writeAll("addOrder", documents).get();
+            for (PendingLine line : lines) {
+                line.result().complete(null);
+            }
+            logger.debug("Group commit of {} order lines into {} documents", lines.size(), documents.size());
+        } catch (ExecutionException e) {
+            logger.error("Group commit of {} order lines failed", lines.size(), e.getCause());
+            fail(lines, e.getCause());
+        } catch (RuntimeException e) {
+            logger.error("Group commit of {} order lines failed", lines.size(), e);
+            fail(lines, e);
+        }
+    }
+
+    private static void fail(List<PendingLine> lines, Throwable error) {
+        for (PendingLine line : lines) {
+            line.result().completeExceptionally(error);
+        }
+    }
+
+    /**
+     * Stop taking lines and commit whatever is still queued
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        closed = true;
+        flusher.join(TimeUnit.SECONDS.toMillis(30));
+        if (flusher.isAlive()) {
+            logger.warn("Order group commit did not drain within 30s, {} lines left", queue.size());
+            flusher.interrupt();
+        }
+
+        // Lines that slipped in after the flusher's last look at the queue
+        List<PendingLine> leftover = new ArrayList<>();
+        queue.drainTo(leftover);
+        fail(leftover, new OrderQueueFullException("Order write queue is shut down"));
+    }
+
+    private record PendingLine(BranchDocKey key, String product, String quantity, CompletableFuture<Void> result) {
+    }
+}
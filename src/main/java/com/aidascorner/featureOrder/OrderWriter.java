@@ -0,0 +1,255 @@
+package com.aidascorner.featureOrder;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.stereotype.Service;
+
+import com.aidascorner.core.firestore.FirestoreFutures;
+import com.aidascorner.core.firestore.FirestoreMetrics;
+import com.aidascorner.featureOrder.model.OrderItem;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.UpdateBuilder;
+import com.google.cloud.firestore.WriteBatch;
+
+/**
+ * Commits order lines to orders/{date}/branches/{branch} and keeps the derived state
+ * (rollups, day cache) in step with what was written.
+ *
+ * By default a posted quantity replaces the stored one. In increment mode it is added with
+ * FieldValue.increment, optionally on a random shard of the branch document (see OrderShards),
+ * and lines carrying a request id are recorded under orders/{date}/requests/{id} in the same
+ * transaction, so a retry is not counted twice.
+ */
+@Service
+public class OrderWriter {
+
+    /**
+     * Firestore's limit on writes in one batch or transaction
+     */
+    static final int MAX_BATCH_WRITES = 500;
+
+    static final String EXPIRE_FIELD = "expireAt";
+
+    private final Firestore firestore;
+    private final OrderProperties properties;
+    private final OrderDayCache dayCache;
+    private final OrderRollupService rollupService;
+    private final RecentOrdersView liveView;
+    private final FirestoreMetrics metrics;
+    private final OrderTotalsIndex totalsIndex;
+    private final OrderVersions versions;
+    private final OrderChangeLog changeLog;
+    private final OrderSnapshotStore snapshotStore;
+
+    public OrderWriter(Firestore firestore, OrderProperties properties, OrderDayCache dayCache,
+                       OrderRollupService rollupService, RecentOrdersView liveView, FirestoreMetrics metrics,
+                       OrderTotalsIndex totalsIndex, OrderVersions versions, OrderChangeLog changeLog,
+                       OrderSnapshotStore snapshotStore) {
+        this.firestore = firestore;
+        this.properties = properties;
+        this.dayCache = dayCache;
+        this.rollupService = rollupService;
+        this.liveView = liveView;
+        this.metrics = metrics;
+        this.totalsIndex = totalsIndex;
+        this.versions = versions;
+        this.changeLog = changeLog;
+        this.snapshotStore = snapshotStore;
+    }
+
+    /**
+     * Write a single order line
+     */
+    public void write(String dateStr, OrderItem orderItem) throws ExecutionException, InterruptedException {
+        Map<String, Object> updates = new HashMap<>();
+        addLine(updates, orderItem.getProduct(), orderItem.getQuantity());
+
+        Map<BranchDocKey, Map<String, Object>> documents = new HashMap<>();
+        documents.put(new BranchDocKey(dateStr, orderItem.getBranch()), updates);
+        if (isIdempotent(orderItem)) {
+            writeOnce(dateStr, orderItem.getRequestId(), documents).get();
+        } else {
+            writeAll("addOrder", documents).get();
+        }
+    }
+
+    /**
+     * Whether the line is written once per request id, which needs a transaction of its own
+     */
+    public boolean isIdempotent(OrderItem orderItem) {
+        return properties.getWrite().isIncrement() && orderItem.getRequestId() != null;
+    }
+
+    /**
+     * Add an order line to the pending fields of a branch document: in increment mode
+     * quantities of the same product add up, otherwise the later one replaces the earlier
+     */
+    public void addLine(Map<String, Object> fields, String product, String quantity) {
+        if (properties.getWrite().isIncrement()) {
+            fields.merge(product, QuantityUtil.parseQuantity(quantity),
+                (a, b) -> ((Double) a) + ((Double) b));
+        } else {
+            fields.put(product, quantity);
+        }
+    }
+
+    /**
+     * Merge the product quantities of each branch document in one commit: a write batch, or
+     * a transaction when rollups are maintained since those need the quantities being replaced.
+     * The caller keeps the number of documents within {@link #maxDocumentsPerCommit()};
+     * {@code operation} tags the commit's latency metric.
+     */
+    public CompletableFuture<Void> writeAll(String operation, Map<BranchDocKey, Map<String, Object>> documents) {
+        Set<String> dates = prepare(documents);
+        return metrics.timed(operation, () -> commit(documents))
+            .thenRun(() -> afterCommit(dates, documents));
+    }
+
+    /**
+     * Increment a line's document unless its request id was already recorded
+     */
+    private CompletableFuture<Void> writeOnce(String dateStr, String requestId,
+                                              Map<BranchDocKey, Map<String, Object>> documents) {
+        if (requestId.isBlank() || requestId.contains("/")) {
+            throw new IllegalArgumentException("Invalid requestId: " + requestId);
+        }
+        Set<String> dates = prepare(documents);
+        DocumentReference request = firestore.collection("orders").document(dateStr)
+            .collection("requests").document(requestId);
+        Timestamp expireAt = Timestamp.ofTimeMicroseconds(
+            (System.currentTimeMillis() + properties.getWrite().getIdempotencyTtl().toMillis()) * 1000);
+
+        return metrics.timed("addOrder", () -> FirestoreFutures.toCompletableFuture(firestore.runTransaction(transaction -> {
+                if (transaction.get(request).get().exists()) {
+                    return false;
+                }
+                addIncrements(transaction, documents);
+                transaction.create(request, Map.of(EXPIRE_FIELD, expireAt));
+                return true;
+            })))
+            .thenAccept(applied -> {
+                if (applied) {
+                    afterCommit(dates, documents);
+                }
+            });
+    }
+
+    /**
+     * Mark the live view dirty and stamp the day field before a commit; returns the dates written
+     */
+    private Set<String> prepare(Map<BranchDocKey, Map<String, Object>> documents) {
+        Set<String> dates = new HashSet<>();
+        for (Map.Entry<BranchDocKey, Map<String, Object>> entry : documents.entrySet()) {
+            String date = entry.getKey().date();
+            if (dates.add(date)) {
+                liveView.onLocalWrite(date);
+            }
+            if (properties.getWrite().isStampDay()) {
+                entry.getValue().put(OrderDayIndex.DAY_FIELD, OrderDayIndex.dayValue(date));
+            }
+        }
+        return dates;
+    }
+
+    private void afterCommit(Set<String> dates, Map<BranchDocKey, Map<String, Object>> documents) {
+        // The store first, so the day cannot be reloaded from it once it leaves the cache
+        dates.forEach(snapshotStore::invalidate);
+        dates.forEach(dayCache::invalidate);
+        dates.forEach(versions::bump);
+        if (properties.getTotalsIndex().isEnabled()) {
+            updateTotalsIndex(documents);
+        }
+    }
+
+    private void updateTotalsIndex(Map<BranchDocKey, Map<String, Object>> documents) {
+        boolean increment = properties.getWrite().isIncrement();
+        for (Map.Entry<BranchDocKey, Map<String, Object>> document : documents.entrySet()) {
+            BranchDocKey key = document.getKey();
+            for (Map.Entry<String, Object> entry : document.getValue().entrySet()) {
+                if (OrderDayIndex.isReservedField(entry.getKey())) {
+                    continue;
+                }
+                double quantity = QuantityUtil.parseQuantity(entry.getValue());
+                if (increment) {
+                    totalsIndex.add(key.date(), key.branch(), entry.getKey(), quantity);
+                } else {
+                    totalsIndex.set(key.date(), key.branch(), entry.getKey(), quantity);
+                }
+            }
+        }
+    }
+
+    private CompletableFuture<?> commit(Map<BranchDocKey, Map<String, Object>> documents) {
+        if (properties.getWrite().isIncrement()) {
+            WriteBatch batch = firestore.batch();
+            addIncrements(batch, documents);
+            return FirestoreFutures.toCompletableFuture(batch.commit());
+        }
+        if (properties.getRollups().isEnabled()) {
+            return rollupService.writeWithRollups(documents, writes -> changeLog.addTo(writes, documents, false));
+        }
+        WriteBatch batch = firestore.batch();
+        for (Map.Entry<BranchDocKey, Map<String, Object>> entry : documents.entrySet()) {
+            batch.set(entry.getKey().reference(firestore), entry.getValue(), SetOptions.merge());
+        }
+        changeLog.addTo(batch, documents, false);
+        return FirestoreFutures.toCompletableFuture(batch.commit());
+    }
+
+    /**
+     * Add the quantities to each branch document, or to a random shard of it, to the rollups
+     * and to the change log
+     */
+    private void addIncrements(UpdateBuilder<?> writes, Map<BranchDocKey, Map<String, Object>> documents) {
+        int shards = Math.max(1, properties.getWrite().getShards());
+        for (Map.Entry<BranchDocKey, Map<String, Object>> entry : documents.entrySet()) {
+            BranchDocKey key = entry.getKey();
+            int shard = shards == 1 ? 0 : ThreadLocalRandom.current().nextInt(shards);
+
+            Map<String, Object> fields = new HashMap<>();
+            for (Map.Entry<String, Object> field : entry.getValue().entrySet()) {
+                fields.put(field.getKey(), OrderDayIndex.isReservedField(field.getKey())
+                    ? field.getValue()
+                    : increment(QuantityUtil.parseQuantity(field.getValue())));
+            }
+            if (shard != 0) {
+                fields.put(OrderShards.BRANCH_FIELD, key.branch());
+            }
+            writes.set(key.shardReference(firestore, shard), fields, SetOptions.merge());
+        }
+        if (properties.getRollups().isEnabled()) {
+            rollupService.addIncrements(writes, documents);
+        }
+        changeLog.addTo(writes, documents, true);
+    }
+
+    /**
+     * Whole quantities stay integers in Firestore
+     */
+    static FieldValue increment(double quantity) {
+        if (quantity == Math.rint(quantity) && Math.abs(quantity) < (1L << 53)) {
+            return FieldValue.increment((long) quantity);
+        }
+        return FieldValue.increment(quantity);
+    }
+
+    /**
+     * How many branch documents fit in one commit, leaving room for the rollup writes
+     * (month, month-branch and day document per branch document) when they are maintained
+     * and the change log document when it is kept
+     */
+    public int maxDocumentsPerCommit() {
+        int writesPerDocument = 1 + (properties.getRollups().isEnabled() ? 3 : 0) + changeLog.writesPerDocument();
+        return MAX_BATCH_WRITES / writesPerDocument;
+    }
+}
@@ -0,0 +1,83 @@
+package com.aidascorner.featureOrder;
+
+import java.util.concurrent.Callable;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+/**
+ * A bulkhead permit held by a streamed response, handed back exactly once: when the body has
+ * been written, or when the request ends without it being written at all (client gone, async
+ * timeout, error while building the response). A permit granted after the request ended is
+ * handed back as soon as it arrives.
+ *
+ * Registered on the request's async manager for both async rounds of a
+ * {@code CompletableFuture<ResponseEntity<StreamingResponseBody>>}: waiting for the permit,
+ * then writing the body.
+ */
+final class PermitLease implements DeferredResultProcessingInterceptor, CallableProcessingInterceptor {
+
+    private static final String INTERCEPTOR_KEY = PermitLease.class.getName();
+
+    private final Bulkhead bulkhead;
+    // Guarded by this
+    private Bulkhead.Permit permit;
+    private boolean ended;
+
+    private PermitLease(Bulkhead bulkhead) {
+        this.bulkhead = bulkhead;
+    }
+
+    /**
+     * A lease tied to the end of the request
+     */
+    static PermitLease forRequest(Bulkhead bulkhead, NativeWebRequest request) {
+        PermitLease lease = new PermitLease(bulkhead);
+        WebAsyncUtils.getAsyncManager(request).registerDeferredResultInterceptor(INTERCEPTOR_KEY, lease);
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(INTERCEPTOR_KEY, lease);
+        return lease;
+    }
+
+    /**
+     * Take over a granted permit. Returns false, having handed it back, if the request already ended.
+     */
+    boolean hold(Bulkhead.Permit granted) {
+        synchronized (this) {
+            if (!ended) {
+                permit = granted;
+                return true;
+            }
+        }
+        bulkhead.release(granted);
+        return false;
+    }
+
+    /**
+     * Hand the permit back, if it is still held. A stream lasts as long as the client keeps
+     * reading, so its duration does not adapt the limit.
+     */
+    void release() {
+        Bulkhead.Permit held;
+        synchronized (this) {
+            ended = true;
+            held = permit;
+            permit = null;
+        }
+        if (held != null) {
+            bulkhead.release(held);
+        }
+    }
+
+    @Override
+    public <T> void afterCompletion(NativeWebRequest request, DeferredResult<T> deferredResult) {
+        release();
+    }
+
+    @Override
+    public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+        release();
+    }
+}
@@ -0,0 +1,138 @@
+package com.aidascorner.featureOrder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Product name to quantity sums, kept as primitive doubles in open-addressed parallel arrays
+ * so aggregation loops do not box or re-parse. Values are only turned back into strings by
+ * {@link #toProducts()}.
+ *
+ * When {@code keepSingleValues} is set, a product seen exactly once keeps the string it was
+ * added with, matching how merged branch orders have always been reported.
+ */
+final class ProductTotals {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final boolean keepSingleValues;
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private double[] sums = new double[INITIAL_CAPACITY];
+    private String[] firstValues;
+    private int[] counts;
+    private int size;
+
+    ProductTotals(boolean keepSingleValues) {
+        this.keepSingleValues = keepSingleValues;
+        if (keepSingleValues) {
+            firstValues = new String[INITIAL_CAPACITY];
+            counts = new int[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * Add a raw quantity string, parsing it once
+     */
+    void add(String product, String quantityStr) {
+        add(product, QuantityUtil.parseQuantity(quantityStr), quantityStr);
+    }
+
+    void add(String product, double quantity) {
+        add(product, quantity, null);
+    }
+
+    /**
+     * Add an already parsed quantity together with the string it was parsed from
+     */
+    void add(String product, double quantity, String rawValue) {
+        int slot = slot(product);
+        if (keys[slot] == null) {
+            keys[slot] = product;
+            if (keepSingleValues) {
+                firstValues[slot] = rawValue;
+            }
+            if (++size * 2 > keys.length) {
+                resize();
+                slot = slot(product);
+            }
+        }
+        sums[slot] += quantity;
+        if (keepSingleValues) {
+            counts[slot]++;
+        }
+    }
+
+    double get(String product) {
+        int slot = slot(product);
+        return keys[slot] == null ? 0.0 : sums[slot];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(ObjDoubleConsumer<String> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                action.accept(keys[i], sums[i]);
+            }
+        }
+    }
+
+    /**
+     * Format the totals as the product map served to clients
+     */
+    Map<String, String> toProducts() {
+        Map<String, String> products = new HashMap<>(size * 4 / 3 + 1);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null) {
+                continue;
+            }
+            if (keepSingleValues && counts[i] == 1 && firstValues[i] != null) {
+                products.put(keys[i], firstValues[i]);
+            } else {
+                products.put(keys[i], String.valueOf(sums[i]));
+            }
+        }
+        return products;
+    }
+
+    private int slot(String product) {
+        int mask = keys.length - 1;
+        int h = product.hashCode();
+        int slot = (h ^ (h >>> 16)) & mask;
+        while (keys[slot] != null && !keys[slot].equals(product)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        String[] oldKeys = keys;
+        double[] oldSums = sums;
+        String[] oldFirstValues = firstValues;
+        int[] oldCounts = counts;
+
+        int capacity = oldKeys.length * 2;
+        keys = new String[capacity];
+        sums = new double[capacity];
+        if (keepSingleValues) {
+            firstValues = new String[capacity];
+            counts = new int[capacity];
+        }
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null) {
+                continue;
+            }
+            int slot = slot(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            sums[slot] = oldSums[i];
+            if (keepSingleValues) {
+                firstValues[slot] = oldFirstValues[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.aidascorner.featureOrder;
+
+import java.math.BigDecimal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class QuantityUtil {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuantityUtil.class);
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * Parse a quantity and extract its numeric value, 0 if it has none.
+     * Numbers stored by Firestore are used as they are.
+     */
+    public static double parseQuantity(Object quantity) {
+        if (quantity instanceof Number) {
+            return ((Number) quantity).doubleValue();
+        }
+        return quantity == null ? 0.0 : parseQuantity(quantity.toString());
+    }
+
+    /**
+     * The text of a quantity read from Firestore. Doubles are written in plain notation, as
+     * Double.toString switches to an exponent ("1.2345678E7") that parseQuantity cannot read.
+     */
+    public static String formatQuantity(Object quantity) {
+        if (quantity instanceof Double value && Double.isFinite(value)) {
+            return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+        }
+        return String.valueOf(quantity);
+    }
+
+    /**
+     * Parse a quantity string and extract its numeric value, 0 if it has none.
+     *
+     * Anything other than digits, '.' and '-' is ignored ("12 kg" is 12), the same as
+     * stripping those characters and calling Double.parseDouble, but without allocating.
+     */
+    public static double parseQuantity(String quantityStr) {
+        if (quantityStr == null) {
+            return 0.0;
+        }
+
+        long mantissa = 0;
+        int fractionDigits = 0;
+        boolean negative = false;
+        boolean seenDot = false;
+        boolean seenDigit = false;
+        boolean seenAny = false;
+
+        for (int i = 0, n = quantityStr.length(); i < n; i++) {
+            char c = quantityStr.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (mantissa >= MAX_EXACT_MANTISSA / 10) {
+                    return parseSlow(quantityStr);
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (seenDot) {
+                    fractionDigits++;
+                }
+                seenDigit = true;
+                seenAny = true;
+            } else if (c == '.') {
+                if (seenDot) {
+                    return invalid(quantityStr);
+                }
+                seenDot = true;
+                seenAny = true;
+            } else if (c == '-') {
+                if (seenAny) {
+                    return invalid(quantityStr);
+                }
+                negative = true;
+                seenAny = true;
+            }
+        }
+
+        if (!seenDigit || fractionDigits >= POWERS_OF_TEN.length) {
+            return seenDigit ? parseSlow(quantityStr) : invalid(quantityStr);
+        }
+        // Both operands are exact, so the division is correctly rounded like Double.parseDouble
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Fallback for values with more significant digits than a double holds exactly
+     */
+    private static double parseSlow(String quantityStr) {
+        try {
+            // Remove any non-numeric characters except decimal point and negative sign
+            String numericStr = quantityStr.replaceAll("[^0-9.-]", "").trim();
+            return Double.parseDouble(numericStr);
+        } catch (Exception e) {
+            return invalid(quantityStr);
+        }
+    }
+
+    private static double invalid(String quantityStr) {
+        logger.warn("Failed to parse quantity: {}", quantityStr);
+        return 0.0;
+    }
+}
@@ -0,0 +1,256 @@
+package com.aidascorner.featureOrder;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.aidascorner.featureOrder.model.LiveViewStatus;
+import com.aidascorner.featureOrder.model.Order;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.QuerySnapshot;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-memory view of orders/{date}/branches for a sliding window of recent dates, kept current
+ * by Firestore snapshot listeners. Each listener delivers the full day once and then only the
+ * changed branch documents, which are applied one by one.
+ *
+ * A day is only served from memory while its listener is in sync; after a listener error, or
+ * after this instance wrote to the day until the next snapshot arrives, reads fall back to Firestore.
+ * A failed listener is attached again with exponential backoff for as long as its day is in the window.
+ */
+@Component
+public class RecentOrdersView {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecentOrdersView.class);
+    private static final Duration MIN_RETRY = Duration.ofSeconds(1);
+    private static final Duration MAX_RETRY = Duration.ofMinutes(1);
+
+    private final Firestore firestore;
+    private final OrderProperties.LiveView settings;
+    private final OrderVersions versions;
+    private final Map<String, DayView> days = new ConcurrentHashMap<>();
+    private volatile long lastPropagationLagMillis = -1;
+    private volatile long maxPropagationLagMillis = -1;
+
+    public RecentOrdersView(Firestore firestore, OrderProperties properties, OrderVersions versions) {
+        this.firestore = firestore;
+        this.settings = properties.getLiveView();
+        this.versions = versions;
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    /**
+     * Attach the listeners for the current window and wait for their first snapshots
+     */
+    @PostConstruct
+    public void start() throws InterruptedException {
+        if (!isEnabled()) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        List<DayView> attached = roll(LocalDate.now());
+
+        long deadline = System.nanoTime() + settings.getWarmUpTimeout().toNanos();
+        for (DayView view : attached) {
+            if (!view.firstSnapshot.await(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                logger.warn("Live order view for {} not warm after {}, serving it from Firestore until it is",
+                    view.date, settings.getWarmUpTimeout());
+            }
+        }
+        logger.info("Live order view warmed {} days in {}ms",
+            attached.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Move the window forward when the date changes
+     */
+    @Scheduled(cron = "${orders.live-view.roll-cron:0 0 0 * * *}")
+    public void rollAtMidnight() {
+        if (isEnabled()) {
+            roll(LocalDate.now());
+        }
+    }
+
+    /**
+     * Listen to the window-days dates ending at {@code today} and drop the rest.
+     * Returns the days that were newly attached.
+     */
+    synchronized List<DayView> roll(LocalDate today) {
+        Set<String> window = new HashSet<>();
+        List<DayView> attached = new ArrayList<>();
+        for (int i = 0; i < settings.getWindowDays(); i++) {
+            String dateStr = DateUtil.formatDate(today.minusDays(i));
+            window.add(dateStr);
+            if (!days.containsKey(dateStr)) {
+                DayView view = new DayView(dateStr);
+                days.put(dateStr, view);
+                attach(view);
+                attached.add(view);
+            }
+        }
+
+        days.keySet().removeIf(dateStr -> {
+            if (window.contains(dateStr)) {
+                return false;
+            }
+            days.get(dateStr).detach();
+            return true;
+        });
+        logger.info("Live order view covers {} days ending {}", window.size(), today);
+        return attached;
+    }
+
+    private void attach(DayView view) {
+        view.replay = true;
+        view.registration = firestore.collection("orders").document(view.date).collection("branches")
+            .addSnapshotListener((snapshot, error) -> {
+                if (error != null) {
+                    failed(view, error);
+                    return;
+                }
+                apply(view, snapshot);
+            });
+    }
+
+    private void failed(DayView view, Exception error) {
+        view.inSync = false;
+        view.detach();
+        long delayMillis = Math.min(MAX_RETRY.toMillis(), MIN_RETRY.toMillis() << Math.min(view.failures, 16));
+        view.failures++;
+        logger.error("Live order view listener for {} failed, attaching again in {}ms", view.date, delayMillis, error);
+        CompletableFuture.runAsync(() -> reattach(view), CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS));
+    }
+
+    private synchronized void reattach(DayView view) {
+        // Rolled out of the window, or the view was stopped, in the meantime
+        if (days.get(view.date) == view) {
+            attach(view);
+        }
+    }
+
+    void apply(DayView view, QuerySnapshot snapshot) {
+        long now = System.currentTimeMillis();
+        // The first snapshot of a listener replays the whole day, so its update times say nothing about lag
+        boolean initial = view.replay;
+        if (initial) {
+            view.branches.clear();
+            view.replay = false;
+        }
+        for (DocumentChange change : snapshot.getDocumentChanges()) {
+            String branchId = change.getDocument().getId();
+            if (change.getType() == DocumentChange.Type.REMOVED) {
+                view.branches.remove(branchId);
+            } else {
+                view.branches.put(branchId, OrderService.toOrder(view.date, branchId, change.getDocument().getData()));
+                if (!initial) {
+                    recordLag(now, change.getDocument().getUpdateTime());
+                }
+            }
+        }
+        view.inSync = true;
+        view.dirty = false;
+        view.failures = 0;
+        versions.bump(view.date);
+        view.firstSnapshot.countDown();
+    }
+
+    private void recordLag(long now, Timestamp updateTime) {
+        if (updateTime == null) {
+            return;
+        }
+        long lag = Math.max(0, now - updateTime.toDate().getTime());
+        lastPropagationLagMillis = lag;
+        if (lag > maxPropagationLagMillis) {
+            maxPropagationLagMillis = lag;
+        }
+    }
+
+    /**
+     * The day's orders if the view holds it in sync, otherwise null. Callers get their own list.
+     */
+    public List<Order> get(String dateStr) {
+        DayView view = days.get(dateStr);
+        if (view == null || !view.inSync || view.dirty) {
+            return null;
+        }
+        return OrderShards.merge(new ArrayList<>(view.branches.values()));
+    }
+
+    /**
+     * Whether {@link #get} would serve the day from memory
+     */
+    public boolean isServing(String dateStr) {
+        DayView view = days.get(dateStr);
+        return view != null && view.inSync && !view.dirty;
+    }
+
+    /**
+     * This instance wrote to the day; serve it from Firestore until the listener catches up
+     */
+    public void onLocalWrite(String dateStr) {
+        DayView view = days.get(dateStr);
+        if (view != null) {
+            view.dirty = true;
+        }
+    }
+
+    public LiveViewStatus status() {
+        List<String> inSync = new ArrayList<>();
+        for (DayView view : days.values()) {
+            if (view.inSync && !view.dirty) {
+                inSync.add(view.date);
+            }
+        }
+        return new LiveViewStatus(isEnabled(), days.size(), inSync, lastPropagationLagMillis, maxPropagationLagMillis);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        days.values().forEach(DayView::detach);
+        days.clear();
+    }
+
+    static final class DayView {
+        final String date;
+        final Map<String, Order> branches = new ConcurrentHashMap<>();
+        final CountDownLatch firstSnapshot = new CountDownLatch(1);
+        volatile boolean inSync;
+        volatile boolean dirty;
+        volatile boolean replay;
+        volatile int failures;
+        volatile ListenerRegistration registration;
+
+        DayView(String date) {
+            this.date = date;
+        }
+
+        void detach() {
+            inSync = false;
+            if (registration != null) {
+                registration.remove();
+            }
+        }
+    }
+}
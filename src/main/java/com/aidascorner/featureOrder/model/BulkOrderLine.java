@@ -0,0 +1,15 @@
+package com.aidascorner.featureOrder.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderLine {
+    private String date; // yyyy-MM-dd, defaults to the request's date parameter
+    private String branch;
+    private String product;
+    private String quantity;
+}
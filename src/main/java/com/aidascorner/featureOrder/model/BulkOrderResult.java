@@ -0,0 +1,28 @@
+package com.aidascorner.featureOrder.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderResult {
+    private int received;
+    private int written;
+    private int rejected;
+    private int commits;
+    private long elapsedMillis;
+    private double itemsPerSecond;
+    private List<LineError> errors; // first errors only, see rejected for the count
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineError {
+        private int line;
+        private String message;
+    }
+}
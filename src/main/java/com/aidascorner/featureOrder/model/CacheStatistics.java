@@ -0,0 +1,19 @@
+package com.aidascorner.featureOrder.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatistics {
+    private boolean enabled;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private double hitRate;
+    private long size;
+    private long cells;
+    private long estimatedBytes;
+}
@@ -10,7 +10,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class DateRange {
-    private LocalDate starDate;
+    private LocalDate startDate;
     private LocalDate endDate;
 
 }
@@ -0,0 +1,17 @@
+package com.aidascorner.featureOrder.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DayFieldStampStatus {
+    private boolean running;
+    private int daysScanned;
+    private int documentsStamped; // committed so far
+    private String startedAt;
+    private String finishedAt; // null while running
+    private String error; // why the job stopped early, null if it did not
+}
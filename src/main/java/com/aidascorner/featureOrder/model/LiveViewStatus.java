@@ -0,0 +1,18 @@
+package com.aidascorner.featureOrder.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LiveViewStatus {
+    private boolean enabled;
+    private int daysTracked;
+    private List<String> daysInSync;
+    private long lastPropagationLagMillis; // update time of the last applied change to when it was applied, -1 if none yet
+    private long maxPropagationLagMillis;
+}
@@ -0,0 +1,26 @@
+package com.aidascorner.featureOrder.model;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Analytics for a date range. Every array holds one value per day from startDate to endDate.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderAnalytics {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private List<RankedQuantity> topProducts; // largest total first
+    private List<RankedQuantity> topBranches; // largest total first
+    private Map<String, double[]> branchSeries; // branch id -> quantity per day, for branches that ordered
+    private double[] dayTotals; // all branches and products per day
+    private double[] dayOverDay; // day total minus the previous day's
+    private double[] weekOverWeek; // day total minus the total seven days earlier
+}
@@ -0,0 +1,16 @@
+package com.aidascorner.featureOrder.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderChange {
+    private String date;
+    private String branchId;
+    private String product;
+    private String quantity;
+    private boolean increment; // quantity is added to the previous one instead of replacing it
+}
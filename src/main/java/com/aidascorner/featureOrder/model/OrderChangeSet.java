@@ -0,0 +1,16 @@
+package com.aidascorner.featureOrder.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderChangeSet {
+    private String token; // pass as since on the next poll
+    private boolean reset; // the since token is older than the log; reload the orders and poll from this token
+    private List<OrderChange> changes;
+}
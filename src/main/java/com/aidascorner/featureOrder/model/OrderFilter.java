@@ -0,0 +1,17 @@
+package com.aidascorner.featureOrder.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderFilter {
+    private List<String> branches; // branch ids to return ("total" keeps a range's total); null for every branch
+    private List<String> products; // products to return; null for every product
+    private Integer limit; // branches per page, ordered by branch id; null for no paging
+    private String startAfter; // branch id the page starts after, the last one of the previous page
+}
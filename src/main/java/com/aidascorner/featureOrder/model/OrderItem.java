@@ -10,4 +10,5 @@ public class OrderItem {
     private String branch;
     private String product;
     private String quantity;
+    private String requestId; // optional idempotency key: in increment mode a retried line is only counted once
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.aidascorner.featureOrder.model;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderQueryResult {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private List<Order> orders; // same as GET /api/orders/date/{date} for one day, GET /api/orders for a range
+}
@@ -0,0 +1,16 @@
+package com.aidascorner.featureOrder.model;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderQuerySpec {
+    private LocalDate date; // a single day, or
+    private LocalDate startDate; // a range merged by branch
+    private LocalDate endDate;
+}
@@ -0,0 +1,16 @@
+package com.aidascorner.featureOrder.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStreamRecord {
+    private String type; // "day" per date, then one "range" record with the merged totals
+    private String date;
+    private List<Order> orders;
+}
@@ -0,0 +1,18 @@
+package com.aidascorner.featureOrder.model;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RangeTotals {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Map<String, Map<String, Double>> totals; // branch id -> product -> quantity
+    private String source; // "index" or "orders"
+}
@@ -0,0 +1,14 @@
+package com.aidascorner.featureOrder.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RankedQuantity {
+    private String id; // branch id or product name
+    private String name; // branch name or product name
+    private double quantity; // total over the range
+}
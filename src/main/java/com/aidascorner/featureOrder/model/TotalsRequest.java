@@ -0,0 +1,16 @@
+package com.aidascorner.featureOrder.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TotalsRequest {
+    private List<DateRange> ranges;
+    private List<String> branches; // branch ids, "total" for all branches; defaults to ["total"]
+    private List<String> products; // defaults to every known product
+}
@@ -0,0 +1,112 @@
+package com.aidascorner.featureBranch.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.aidascorner.core.firestore.FirestoreMetrics;
+import com.aidascorner.featureBranch.service.BranchDirectory;
+import com.aidascorner.featureBranch.service.BranchProperties;
+import com.aidascorner.featureBranch.service.BranchService;
+import com.aidascorner.featureOrder.FakeFirestore;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class BranchControllerTest {
+
+    private final FakeFirestore fake = new FakeFirestore(0);
+
+    @AfterEach
+    void tearDown() {
+        fake.close();
+    }
+
+    @Test
+    void matchingEtagGetsNotModified() throws Exception {
+        fake.putBranch("kadikoy", "Kadıköy");
+        MockMvc mvc = boot(Duration.ofMinutes(5));
+
+        MockHttpServletResponse first = perform(mvc, get("/api/branches"));
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertEquals(200, first.getStatus());
+        assertNotNull(etag);
+        assertNotNull(first.getHeader(HttpHeaders.LAST_MODIFIED));
+
+        MockHttpServletResponse second = perform(mvc, get("/api/branches").header(HttpHeaders.IF_NONE_MATCH, etag));
+        assertEquals(304, second.getStatus());
+        assertEquals(etag, second.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void changedDirectoryGetsANewEtag() throws Exception {
+        fake.putBranch("kadikoy", "Kadıköy");
+        // Every read past the TTL reloads in the background
+        MockMvc mvc = boot(Duration.ZERO);
+        String etag = perform(mvc, get("/api/branches")).getHeader(HttpHeaders.ETAG);
+
+        fake.putBranch("besiktas", "Beşiktaş");
+
+        long deadline = System.currentTimeMillis() + 2000;
+        MockHttpServletResponse response;
+        do {
+            Thread.sleep(10);
+            response = perform(mvc, get("/api/branches").header(HttpHeaders.IF_NONE_MATCH, etag));
+        } while (response.getStatus() == 304 && System.currentTimeMillis() < deadline);
+
+        assertEquals(200, response.getStatus());
+        assertNotEquals(etag, response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void restartWithADifferentDirectoryDoesNotMatchAnOldEtag() throws Exception {
+        fake.putBranch("kadikoy", "Kadıköy");
+        String etag = perform(boot(Duration.ofMinutes(5)), get("/api/branches")).getHeader(HttpHeaders.ETAG);
+
+        // A fresh directory starts its version over, so only the contents can tell the two apart
+        fake.putBranch("kadikoy", "Kadıköy Çarşı");
+        MockHttpServletResponse restarted = perform(boot(Duration.ofMinutes(5)),
+            get("/api/branches").header(HttpHeaders.IF_NONE_MATCH, etag));
+
+        assertEquals(200, restarted.getStatus());
+        assertNotEquals(etag, restarted.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void restartWithTheSameDirectoryStillMatches() throws Exception {
+        fake.putBranch("kadikoy", "Kadıköy");
+        String etag = perform(boot(Duration.ofMinutes(5)), get("/api/branches")).getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletResponse restarted = perform(boot(Duration.ofMinutes(5)),
+            get("/api/branches").header(HttpHeaders.IF_NONE_MATCH, etag));
+
+        assertEquals(304, restarted.getStatus());
+    }
+
+    private MockMvc boot(Duration ttl) throws Exception {
+        BranchProperties properties = new BranchProperties();
+        properties.getDirectory().setListen(false);
+        properties.getDirectory().setTtl(ttl);
+        BranchDirectory directory = new BranchDirectory(fake.firestore(), properties,
+            new FirestoreMetrics(new SimpleMeterRegistry()));
+        directory.getBranches();
+        return MockMvcBuilders.standaloneSetup(new BranchController(new BranchService(directory))).build();
+    }
+
+    private static MockHttpServletResponse perform(MockMvc mvc, MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult started = mvc.perform(request).andReturn();
+        return mvc.perform(asyncDispatch(started)).andReturn().getResponse();
+    }
+}
@@ -0,0 +1,140 @@
+package com.aidascorner.featureBranch.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.junit.jupiter.api.Test;
+
+import com.aidascorner.core.firestore.FirestoreMetrics;
+import com.google.api.core.SettableApiFuture;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.EventListener;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Swaps of the directory: a reload that read before the listener's latest snapshot is dropped,
+ * and one that found the same branches keeps the version and last-modified time
+ */
+class BranchDirectoryTest {
+
+    private final ConcurrentLinkedQueue<SettableApiFuture<QuerySnapshot>> reads = new ConcurrentLinkedQueue<>();
+    private final List<EventListener<QuerySnapshot>> listeners = new ArrayList<>();
+
+    @Test
+    void reloadOlderThanTheListenerSnapshotIsDropped() throws Exception {
+        BranchDirectory directory = directory(true, Duration.ZERO);
+        listeners.get(0).onEvent(snapshot(100, Map.of("kadikoy", "Kadıköy")), null);
+        assertEquals(1, directory.version());
+
+        // Stale by now, so this read reloads in the background
+        directory.nameOf("kadikoy");
+        SettableApiFuture<QuerySnapshot> reload = nextRead();
+
+        // The listener delivers a rename before the reload, which read earlier, answers
+        listeners.get(0).onEvent(snapshot(300, Map.of("kadikoy", "Kadıköy Çarşı")), null);
+        reload.set(snapshot(200, Map.of("kadikoy", "Kadıköy")));
+
+        assertEquals("Kadıköy Çarşı", directory.getBranches().get(0).getName());
+        assertEquals(2, directory.version());
+    }
+
+    @Test
+    void reloadOfTheSameBranchesKeepsVersionAndLastModified() throws Exception {
+        BranchDirectory directory = directory(false, Duration.ZERO);
+        directory.nameOf("kadikoy");
+        nextRead().set(snapshot(100, Map.of("kadikoy", "Kadıköy")));
+        long lastModified = directory.lastModified();
+        String contentHash = directory.contentHash();
+        Thread.sleep(5);
+
+        // contentHash() found the directory stale and reloaded it
+        nextRead().set(snapshot(200, Map.of("kadikoy", "Kadıköy")));
+        assertEquals(1, directory.version());
+        assertEquals(lastModified, directory.lastModified());
+        assertEquals(contentHash, directory.contentHash());
+
+        // So did the one above; this time a branch was added
+        nextRead().set(snapshot(300, Map.of("kadikoy", "Kadıköy", "besiktas", "Beşiktaş")));
+        assertEquals(2, directory.version());
+        assertTrue(directory.lastModified() > lastModified);
+        assertNotEquals(contentHash, directory.contentHash());
+    }
+
+    private BranchDirectory directory(boolean listen, Duration ttl) {
+        CollectionReference branchs = mock(CollectionReference.class, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "get":
+                    SettableApiFuture<QuerySnapshot> read = SettableApiFuture.create();
+                    reads.add(read);
+                    return read;
+                case "addSnapshotListener":
+                    listeners.add(invocation.getArgument(0));
+                    return mock(ListenerRegistration.class);
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+        Firestore firestore = mock(Firestore.class, invocation -> invocation.getMethod().getName().equals("collection")
+            ? branchs
+            : RETURNS_DEFAULTS.answer(invocation));
+
+        BranchProperties properties = new BranchProperties();
+        properties.getDirectory().setListen(listen);
+        properties.getDirectory().setTtl(ttl);
+        BranchDirectory directory = new BranchDirectory(firestore, properties, new FirestoreMetrics(new SimpleMeterRegistry()));
+        directory.start();
+        return directory;
+    }
+
+    /**
+     * The oldest read not yet answered; answering it swaps the directory before returning
+     */
+    private SettableApiFuture<QuerySnapshot> nextRead() {
+        SettableApiFuture<QuerySnapshot> read = reads.poll();
+        assertNotNull(read);
+        return read;
+    }
+
+    private static QuerySnapshot snapshot(long readSeconds, Map<String, String> names) {
+        List<QueryDocumentSnapshot> documents = new ArrayList<>();
+        names.forEach((id, name) -> documents.add(mock(QueryDocumentSnapshot.class, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "getId":
+                    return id;
+                case "getString":
+                    return name;
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        })));
+        Timestamp readTime = Timestamp.ofTimeSecondsAndNanos(readSeconds, 0);
+        return mock(QuerySnapshot.class, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "getDocuments":
+                    return documents;
+                case "size":
+                    return documents.size();
+                case "getReadTime":
+                    return readTime;
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+    }
+}
@@ -0,0 +1,102 @@
+package com.aidascorner.featureOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class BulkheadTest {
+
+    private final AtomicInteger rejected = new AtomicInteger();
+
+    @Test
+    void queuesWhatDoesNotFitAndAdmitsItOnRelease() throws Exception {
+        Bulkhead bulkhead = bulkhead(10, 1, Duration.ofSeconds(5));
+        Bulkhead.Permit first = bulkhead.acquire(8).get();
+        CompletableFuture<Bulkhead.Permit> second = bulkhead.acquire(5);
+
+        assertFalse(second.isDone());
+        assertEquals(1, bulkhead.queued());
+
+        bulkhead.release(first);
+        assertEquals(5, second.get().cost());
+        assertEquals(5, bulkhead.inFlight());
+    }
+
+    @Test
+    void shedsWhenTheQueueIsFull() throws Exception {
+        Bulkhead bulkhead = bulkhead(10, 1, Duration.ofSeconds(5));
+        bulkhead.acquire(10).get();
+        bulkhead.acquire(1);
+
+        ExecutionException shed = assertThrows(ExecutionException.class, () -> bulkhead.acquire(1).get());
+        assertInstanceOf(OrderAdmissionRejectedException.class, shed.getCause());
+        assertEquals(1, rejected.get());
+    }
+
+    @Test
+    void shedsRequestsThatWaitTooLong() throws Exception {
+        Bulkhead bulkhead = bulkhead(10, 10, Duration.ofMillis(20));
+        bulkhead.acquire(10).get();
+
+        ExecutionException shed = assertThrows(ExecutionException.class, () -> bulkhead.acquire(1).get());
+        assertInstanceOf(OrderAdmissionRejectedException.class, shed.getCause());
+        assertEquals(0, bulkhead.queued());
+    }
+
+    @Test
+    void chargesOversizedRequestsTheWholeLimit() throws Exception {
+        Bulkhead bulkhead = bulkhead(10, 1, Duration.ofSeconds(5));
+
+        assertEquals(10, bulkhead.acquire(3650).get().cost());
+    }
+
+    @Test
+    void failuresShrinkTheLimitAndInvalidRequestsDoNot() throws Exception {
+        Bulkhead bulkhead = bulkhead(10, 1, Duration.ofSeconds(5));
+
+        bulkhead.release(bulkhead.acquire(1).get(), new IllegalArgumentException("bad range"));
+        assertEquals(10.0, bulkhead.limit());
+
+        bulkhead.release(bulkhead.acquire(1).get(), new IllegalStateException("Firestore unavailable"));
+        assertEquals(9.0, bulkhead.limit(), 1e-9);
+
+        // A busy bulkhead that keeps up grows again
+        bulkhead.release(bulkhead.acquire(9).get(), null);
+        assertTrue(bulkhead.limit() > 9.0);
+    }
+
+    @Test
+    void requestsCaughtInOneSpikeBackOffOnce() throws Exception {
+        Bulkhead bulkhead = bulkhead(10, 1, Duration.ofSeconds(5));
+        List<Bulkhead.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            permits.add(bulkhead.acquire(1).get());
+        }
+
+        for (Bulkhead.Permit permit : permits) {
+            bulkhead.release(permit, new IllegalStateException("Firestore unavailable"));
+        }
+        assertEquals(9.0, bulkhead.limit(), 1e-9);
+
+        // A request admitted after the backoff still counts
+        bulkhead.release(bulkhead.acquire(1).get(), new IllegalStateException("Firestore unavailable"));
+        assertEquals(8.1, bulkhead.limit(), 1e-9);
+    }
+
+    private Bulkhead bulkhead(int limit, int maxQueue, Duration queueTimeout) {
+        OrderProperties.Limits limits = new OrderProperties.Limits(limit, 2, 100, maxQueue, queueTimeout,
+            Duration.ofSeconds(5));
+        return new Bulkhead("reads", true, limits, rejected::incrementAndGet);
+    }
+}
@@ -0,0 +1,56 @@
+package com.aidascorner.featureOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.aidascorner.featureOrder.model.Order;
+
+class DayColumnsTest {
+
+    private final OrderDictionary branches = new OrderDictionary();
+    private final OrderDictionary products = new OrderDictionary();
+
+    @Test
+    void decodesTheStringsItWasGiven() {
+        List<Order> orders = List.of(
+            new Order("kadikoy", "kadikoy", "01.03.2024", Map.of("bread", "3", "cake", "2.5", "milk", "2.50", "eggs", "12 pcs")),
+            new Order("besiktas", "besiktas", "01.03.2024", Map.of("bread", "4.0")));
+
+        DayColumns day = DayColumns.encode("01.03.2024", orders, branches, products);
+
+        assertEquals(5, day.cells());
+        assertEquals(orders, day.toOrders(branches, products));
+    }
+
+    @Test
+    void keepsRawStringsOnlyWhenNeeded() {
+        DayColumns day = DayColumns.encode("01.03.2024",
+            List.of(new Order("kadikoy", "kadikoy", "01.03.2024", Map.of("bread", "3", "cake", "2.5"))),
+            branches, products);
+
+        assertNull(day.raw);
+    }
+
+    @Test
+    void rangeMergeKeepsSingleValuesAndSumsRepeats() {
+        OrderAggregator.RangeMerge merge = new OrderAggregator.RangeMerge("range", branches, products);
+        merge.addDay(List.of(new Order("kadikoy", "kadikoy", "01.03.2024", Map.of("bread", "3", "milk", "2.50"))));
+        merge.addDay(DayColumns.encode("02.03.2024",
+            List.of(new Order("kadikoy", "kadikoy", "02.03.2024", Map.of("bread", "4"))), branches, products));
+
+        Map<String, List<Order>> result = merge.result(id -> "Kadıköy");
+        Order kadikoy = result.get("range").stream()
+            .filter(order -> order.getBranchId().equals("kadikoy"))
+            .findFirst()
+            .orElseThrow();
+
+        assertEquals("Kadıköy", kadikoy.getBranchName());
+        assertEquals("7.0", kadikoy.getProducts().get("bread"));
+        assertEquals("2.50", kadikoy.getProducts().get("milk"));
+    }
+}
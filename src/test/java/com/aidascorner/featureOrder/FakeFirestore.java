@@ -0,0 +1,626 @@
+package com.aidascorner.featureOrder;
+
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.mockito.invocation.InvocationOnMock;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.SettableApiFuture;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.CollectionGroup;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.EventListener;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreException;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.Transaction;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.cloud.firestore.WriteResult;
+
+import io.grpc.Status;
+
+/**
+ * In-process stand-in for the Firestore paths used by OrderService:
+ * orders/{dd.MM.yyyy}/branches/{branch} documents held in memory, served after a fixed latency.
+ * Snapshot listeners get the whole day first and then one change per {@link #put}.
+ *
+ * Write batches and transactions are recorded in {@link #commits()} and applied when they
+ * complete. Plain values land in the branch documents; FieldValue transforms such as
+ * increments are only recorded, since the SDK does not expose their operands.
+ */
+public class FakeFirestore implements AutoCloseable {
+
+    private final Map<String, Map<String, Map<String, Object>>> days = new ConcurrentHashMap<>();
+    private final Map<String, DocumentReference> dateDocs = new ConcurrentHashMap<>();
+    private final Map<String, CollectionReference> branchCollections = new ConcurrentHashMap<>();
+    private final Map<String, List<EventListener<QuerySnapshot>>> listeners = new ConcurrentHashMap<>();
+    private final Map<String, List<QueryDocumentSnapshot>> documentCache = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Object>> branches = new ConcurrentHashMap<>();
+    private final Map<String, DocumentReference> documentRefs = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Object>> written = new ConcurrentHashMap<>();
+    private final List<List<Write>> commits = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failingCommits = new AtomicInteger();
+    private final Map<String, Long> readDelays = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> failingReads = new ConcurrentHashMap<>();
+    private final Object transactionLock = new Object();
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+    private final AtomicInteger reads = new AtomicInteger();
+    private final AtomicInteger spanReads = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final List<Runnable> held = new ArrayList<>();
+    private boolean paused;
+    private final long latencyMillis;
+    private final Firestore firestore;
+
+    public FakeFirestore(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        CollectionReference orders = mock(CollectionReference.class, invocation -> {
+            if (invocation.getMethod().getName().equals("document")) {
+                return dateDocument(invocation.getArgument(0));
+            }
+            if (invocation.getMethod().getName().equals("listDocuments")) {
+                return days.keySet().stream().sorted().map(this::dateDocument).toList();
+            }
+            return RETURNS_DEFAULTS.answer(invocation);
+        });
+        CollectionReference branchs = mock(CollectionReference.class, invocation -> {
+            if (invocation.getMethod().getName().equals("get")) {
+                List<QueryDocumentSnapshot> documents = new ArrayList<>();
+                branches.forEach((id, fields) -> documents.add(document(id, fields)));
+                return completeLater(snapshot(documents, List.of()));
+            }
+            return RETURNS_DEFAULTS.answer(invocation);
+        });
+        this.firestore = mock(Firestore.class, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "collection":
+                    if ("orders".equals(invocation.getArgument(0))) {
+                        return orders;
+                    }
+                    if ("branchs".equals(invocation.getArgument(0))) {
+                        return branchs;
+                    }
+                    return collectionRef(invocation.getArgument(0));
+                case "collectionGroup":
+                    return dayQuery(CollectionGroup.class, "", "\uffff");
+                case "batch":
+                    return batch();
+                case "runTransaction":
+                    return runTransaction(invocation.getArgument(0));
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+    }
+
+    public Firestore firestore() {
+        return firestore;
+    }
+
+    /**
+     * Store a product quantity under orders/{date}/branches/{branch}
+     */
+    public void put(String date, String branch, String product, Object quantity) {
+        Map<String, Object> fields = days.computeIfAbsent(date, d -> new ConcurrentHashMap<>())
+            .computeIfAbsent(branch, b -> new ConcurrentHashMap<>());
+        boolean added = fields.isEmpty();
+        fields.put(product, quantity);
+        documentCache.remove(date);
+
+        List<EventListener<QuerySnapshot>> dayListeners = listeners.getOrDefault(date, List.of());
+        if (dayListeners.isEmpty()) {
+            return;
+        }
+        DocumentChange change = change(added ? DocumentChange.Type.ADDED : DocumentChange.Type.MODIFIED,
+            branchDocument(date, branch, Map.copyOf(fields)));
+        for (EventListener<QuerySnapshot> listener : dayListeners) {
+            deliver(listener, snapshot(List.of(), List.of(change)));
+        }
+    }
+
+    /**
+     * Commits that wrote something so far, each as the writes it held in order
+     */
+    public List<List<Write>> commits() {
+        return List.copyOf(commits);
+    }
+
+    /**
+     * The fields of a written document merged across commits, or null if none was
+     */
+    public Map<String, Object> written(String path) {
+        return written.get(path);
+    }
+
+    /**
+     * Fail the next {@code count} commits, batch or transaction, without applying them
+     */
+    public void failCommits(int count) {
+        failingCommits.set(count);
+    }
+
+    /**
+     * Answer reads of the date's branches this much later than the others
+     */
+    public void delayReads(String date, long extraMillis) {
+        readDelays.put(date, extraMillis);
+    }
+
+    /**
+     * Fail every read of the date's branches
+     */
+    public void failReads(String date) {
+        failingReads.put(date, true);
+    }
+
+    /**
+     * Fail every snapshot listener of the date, which ends them as Firestore does
+     */
+    public void failListeners(String date) {
+        List<EventListener<QuerySnapshot>> dayListeners = listeners.remove(date);
+        if (dayListeners == null) {
+            return;
+        }
+        FirestoreException error = FirestoreException.forServerRejection(Status.UNAVAILABLE, "listen stream closed");
+        for (EventListener<QuerySnapshot> listener : dayListeners) {
+            scheduler.execute(() -> listener.onEvent(null, error));
+        }
+    }
+
+    /**
+     * Number of snapshot listeners attached to the date
+     */
+    public int listeners(String date) {
+        return listeners.getOrDefault(date, List.of()).size();
+    }
+
+    /**
+     * Store a branch document under branchs/{id}
+     */
+    public void putBranch(String id, String name) {
+        branches.put(id, Map.of("name", name));
+    }
+
+    /**
+     * Number of branches-collection reads served so far
+     */
+    public int reads() {
+        return reads.get();
+    }
+
+    /**
+     * Number of collection-group reads of branch documents by day stamp served so far
+     */
+    public int spanReads() {
+        return spanReads.get();
+    }
+
+    /**
+     * Branches-collection reads issued but not yet answered
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Highest number of branches-collection reads outstanding at once since the last reset
+     */
+    public int peakInFlight() {
+        return peakInFlight.get();
+    }
+
+    public void resetPeakInFlight() {
+        peakInFlight.set(inFlight.get());
+    }
+
+    /**
+     * Hold every answer back until {@link #resume}, so callers can observe what is outstanding
+     */
+    public void pause() {
+        synchronized (held) {
+            paused = true;
+        }
+    }
+
+    public void resume() {
+        List<Runnable> release;
+        synchronized (held) {
+            paused = false;
+            release = new ArrayList<>(held);
+            held.clear();
+        }
+        release.forEach(scheduler::execute);
+    }
+
+    private DocumentReference dateDocument(String date) {
+        return dateDocs.computeIfAbsent(date, d -> mock(DocumentReference.class, invocation -> {
+            if (invocation.getMethod().getName().equals("getId")) {
+                return d;
+            }
+            if (invocation.getMethod().getName().equals("collection")) {
+                if ("branches".equals(invocation.getArgument(0))) {
+                    return branchesCollection(d);
+                }
+                String path = "orders/" + d + "/" + invocation.getArgument(0);
+                return mock(CollectionReference.class, collection -> collection.getMethod().getName().equals("document")
+                    ? documentRef(path + "/" + collection.getArgument(0))
+                    : RETURNS_DEFAULTS.answer(collection));
+            }
+            return RETURNS_DEFAULTS.answer(invocation);
+        }));
+    }
+
+    private DocumentReference documentRef(String path) {
+        return documentRefs.computeIfAbsent(path, p -> mock(DocumentReference.class, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "getPath":
+                    return p;
+                case "getId":
+                    return p.substring(p.lastIndexOf('/') + 1);
+                case "collection":
+                    return collectionRef(p + "/" + invocation.getArgument(0));
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        }));
+    }
+
+    /**
+     * Any collection other than orders and branchs, holding only what was written to it
+     */
+    private CollectionReference collectionRef(String path) {
+        return mock(CollectionReference.class, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "document":
+                    return documentRef(path + "/" + invocation.getArgument(0));
+                case "listDocuments":
+                    return writtenUnder(path).stream().map(this::documentRef).toList();
+                case "get":
+                    List<QueryDocumentSnapshot> documents = new ArrayList<>();
+                    for (String written : writtenUnder(path)) {
+                        documents.add(document(documentRef(written), written.substring(path.length() + 1),
+                            Map.copyOf(written(written))));
+                    }
+                    return completeLater(snapshot(documents, List.of()));
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+    }
+
+    /**
+     * A collection-group query over the branch documents of every date, by their day stamp.
+     * It answers in one page, so page sizes must exceed the documents it matches.
+     */
+    private <T extends Query> T dayQuery(Class<T> type, String from, String to) {
+        return mock(type, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "whereGreaterThanOrEqualTo":
+                    return dayQuery(Query.class, (String) invocation.getArgument(1), to);
+                case "whereLessThanOrEqualTo":
+                    return dayQuery(Query.class, from, (String) invocation.getArgument(1));
+                case "orderBy":
+                case "limit":
+                    return invocation.getMock();
+                case "get":
+                    spanReads.incrementAndGet();
+                    List<QueryDocumentSnapshot> documents = new ArrayList<>();
+                    for (String date : days.keySet().stream().sorted().toList()) {
+                        for (QueryDocumentSnapshot document : documents(date)) {
+                            Object day = document.getData().get(OrderDayIndex.DAY_FIELD);
+                            if (day instanceof String stamp && stamp.compareTo(from) >= 0 && stamp.compareTo(to) <= 0) {
+                                documents.add(document);
+                            }
+                        }
+                    }
+                    documents.sort(Comparator.comparing(document -> (String) document.getData().get(OrderDayIndex.DAY_FIELD)));
+                    return completeLater(snapshot(documents, List.of()));
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+    }
+
+    private List<String> writtenUnder(String collectionPath) {
+        return written.keySet().stream()
+            .filter(path -> path.startsWith(collectionPath + "/") && path.indexOf('/', collectionPath.length() + 1) < 0)
+            .sorted()
+            .toList();
+    }
+
+    private CollectionReference branchesCollection(String date) {
+        return branchCollections.computeIfAbsent(date, d -> mock(CollectionReference.class, invocation -> {
+            if (invocation.getMethod().getName().equals("get")) {
+                return query(d);
+            }
+            if (invocation.getMethod().getName().equals("select")) {
+                // Projections return the same documents; callers only look at ids and update times
+                return mock(Query.class, projected -> projected.getMethod().getName().equals("get")
+                    ? query(d)
+                    : RETURNS_DEFAULTS.answer(projected));
+            }
+            if (invocation.getMethod().getName().equals("addSnapshotListener")) {
+                return listen(d, invocation.getArgument(invocation.getArguments().length - 1));
+            }
+            if (invocation.getMethod().getName().equals("document")) {
+                return documentRef("orders/" + d + "/branches/" + invocation.getArgument(0));
+            }
+            return RETURNS_DEFAULTS.answer(invocation);
+        }));
+    }
+
+    private ApiFuture<QuerySnapshot> query(String date) {
+        reads.incrementAndGet();
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        SettableApiFuture<QuerySnapshot> future = SettableApiFuture.create();
+        QuerySnapshot snapshot = snapshot(documents(date), List.of());
+        // Counted out before the answer is set, so a read issued from the caller's callback is not overlapping
+        later(() -> {
+            inFlight.decrementAndGet();
+            if (failingReads.containsKey(date)) {
+                future.setException(FirestoreException.forServerRejection(Status.UNAVAILABLE, "read failed"));
+            } else {
+                future.set(snapshot);
+            }
+        }, latencyMillis + readDelays.getOrDefault(date, 0L));
+        return future;
+    }
+
+    private <T> ApiFuture<T> completeLater(T value) {
+        SettableApiFuture<T> future = SettableApiFuture.create();
+        later(() -> future.set(value), latencyMillis);
+        return future;
+    }
+
+    private void later(Runnable complete, long delayMillis) {
+        synchronized (held) {
+            if (paused) {
+                held.add(complete);
+                return;
+            }
+        }
+        if (delayMillis <= 0) {
+            complete.run();
+        } else {
+            scheduler.schedule(complete, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private WriteBatch batch() {
+        List<Write> writes = new ArrayList<>();
+        return mock(WriteBatch.class, invocation -> {
+            if (invocation.getMethod().getName().equals("commit")) {
+                SettableApiFuture<List<WriteResult>> future = SettableApiFuture.create();
+                List<Write> committed = List.copyOf(writes);
+                later(() -> {
+                    if (apply(committed)) {
+                        future.set(List.of());
+                    } else {
+                        future.setException(FirestoreException.forServerRejection(Status.UNAVAILABLE, "commit failed"));
+                    }
+                }, latencyMillis);
+                return future;
+            }
+            return record(invocation, writes);
+        });
+    }
+
+    /**
+     * Transactions run one at a time, so a read inside one sees every earlier transaction's writes
+     */
+    private <T> ApiFuture<T> runTransaction(Transaction.Function<T> function) {
+        SettableApiFuture<T> future = SettableApiFuture.create();
+        scheduler.execute(() -> {
+            List<Write> writes = new ArrayList<>();
+            Transaction transaction = mock(Transaction.class, invocation -> {
+                if (invocation.getMethod().getName().equals("get")
+                        && invocation.getArgument(0) instanceof DocumentReference reference) {
+                    return existing(reference.getPath());
+                }
+                return record(invocation, writes);
+            });
+            synchronized (transactionLock) {
+                try {
+                    T result = function.updateCallback(transaction);
+                    if (apply(List.copyOf(writes))) {
+                        future.set(result);
+                    } else {
+                        future.setException(FirestoreException.forServerRejection(Status.UNAVAILABLE, "commit failed"));
+                    }
+                } catch (Exception e) {
+                    future.setException(e);
+                }
+            }
+        });
+        return future;
+    }
+
+    private ApiFuture<DocumentSnapshot> existing(String path) {
+        boolean exists = written.containsKey(path);
+        SettableApiFuture<DocumentSnapshot> future = SettableApiFuture.create();
+        future.set(mock(DocumentSnapshot.class, invocation -> invocation.getMethod().getName().equals("exists")
+            ? exists
+            : RETURNS_DEFAULTS.answer(invocation)));
+        return future;
+    }
+
+    /**
+     * Record a set, create, update or delete on a batch or transaction; returns the builder for chaining
+     */
+    @SuppressWarnings("unchecked")
+    private static Object record(InvocationOnMock invocation, List<Write> writes) throws Throwable {
+        String method = invocation.getMethod().getName();
+        Object[] arguments = invocation.getArguments();
+        switch (method) {
+            case "set":
+            case "create":
+            case "update":
+                if (arguments.length >= 2 && arguments[0] instanceof DocumentReference reference
+                        && arguments[1] instanceof Map) {
+                    writes.add(new Write(reference.getPath(), Map.copyOf((Map<String, Object>) arguments[1])));
+                    return invocation.getMock();
+                }
+                throw new UnsupportedOperationException("FakeFirestore does not support " + method + " with these arguments");
+            case "delete":
+                writes.add(new Write(((DocumentReference) arguments[0]).getPath(), null));
+                return invocation.getMock();
+            default:
+                return RETURNS_DEFAULTS.answer(invocation);
+        }
+    }
+
+    /**
+     * Apply a commit, or fail it if a failure was asked for
+     */
+    private boolean apply(List<Write> writes) {
+        if (failingCommits.getAndUpdate(count -> Math.max(0, count - 1)) > 0) {
+            return false;
+        }
+        if (writes.isEmpty()) {
+            // A transaction that only read writes nothing
+            return true;
+        }
+        commits.add(writes);
+        for (Write write : writes) {
+            if (write.fields() == null) {
+                written.remove(write.path());
+                continue;
+            }
+            written.merge(write.path(), write.fields(), (existing, fields) -> {
+                Map<String, Object> merged = new HashMap<>(existing);
+                merged.putAll(fields);
+                return merged;
+            });
+
+            String[] segments = write.path().split("/");
+            if (segments.length == 4 && segments[0].equals("orders") && segments[2].equals("branches")) {
+                write.fields().forEach((field, value) -> {
+                    if (!(value instanceof FieldValue)) {
+                        put(segments[1], segments[3], field, value);
+                    }
+                });
+            }
+        }
+        return true;
+    }
+
+    private ListenerRegistration listen(String date, EventListener<QuerySnapshot> listener) {
+        listeners.computeIfAbsent(date, d -> new CopyOnWriteArrayList<>()).add(listener);
+
+        List<DocumentChange> changes = new ArrayList<>();
+        for (QueryDocumentSnapshot document : documents(date)) {
+            changes.add(change(DocumentChange.Type.ADDED, document));
+        }
+        deliver(listener, snapshot(List.of(), changes));
+
+        return () -> listeners.computeIfPresent(date, (d, dayListeners) -> {
+            dayListeners.remove(listener);
+            return dayListeners;
+        });
+    }
+
+    private void deliver(EventListener<QuerySnapshot> listener, QuerySnapshot snapshot) {
+        scheduler.schedule(() -> listener.onEvent(snapshot, null), Math.max(latencyMillis, 0), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The day's documents, built once per change so repeated reads do not pay for mock creation
+     */
+    private List<QueryDocumentSnapshot> documents(String date) {
+        return documentCache.computeIfAbsent(date, d -> {
+            List<QueryDocumentSnapshot> documents = new ArrayList<>();
+            days.getOrDefault(d, Map.of()).forEach((branch, fields) ->
+                documents.add(branchDocument(d, branch, Map.copyOf(fields))));
+            return List.copyOf(documents);
+        });
+    }
+
+    private static QuerySnapshot snapshot(List<QueryDocumentSnapshot> documents, List<DocumentChange> changes) {
+        Timestamp readTime = Timestamp.now();
+        return mock(QuerySnapshot.class, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "getDocuments":
+                    return documents;
+                case "getDocumentChanges":
+                    return changes;
+                case "getReadTime":
+                    return readTime;
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+    }
+
+    private static DocumentChange change(DocumentChange.Type type, QueryDocumentSnapshot document) {
+        return mock(DocumentChange.class, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "getType":
+                    return type;
+                case "getDocument":
+                    return document;
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+    }
+
+    private QueryDocumentSnapshot branchDocument(String date, String branch, Map<String, Object> fields) {
+        return document(documentRef("orders/" + date + "/branches/" + branch), branch, fields);
+    }
+
+    private static QueryDocumentSnapshot document(String id, Map<String, Object> fields) {
+        return document(null, id, fields);
+    }
+
+    private static QueryDocumentSnapshot document(DocumentReference reference, String id, Map<String, Object> fields) {
+        Timestamp updateTime = Timestamp.now();
+        return mock(QueryDocumentSnapshot.class, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "getId":
+                    return id;
+                case "getReference":
+                    return reference;
+                case "getData":
+                    return fields;
+                case "getString":
+                    return (String) fields.get(invocation.getArgument(0));
+                case "getUpdateTime":
+                    return updateTime;
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+    }
+
+    /**
+     * One document write of a commit; {@code fields} is null for a delete
+     */
+    public record Write(String path, Map<String, Object> fields) {
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,117 @@
+package com.aidascorner.featureOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.aidascorner.featureOrder.model.BulkOrderResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Bulk import: per-line errors, malformed bodies, commit windows and failed commits
+ */
+class OrderBulkImporterTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 1);
+    private static final String DAY = DateUtil.formatDate(DATE);
+
+    private final FakeFirestore fake = new FakeFirestore(5);
+    private OrderBulkImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        OrderProperties properties = new OrderProperties();
+        importer = new OrderBulkImporter(OrderServiceFixture.wire(fake.firestore(), properties).orderWriter(),
+            new ObjectMapper(), properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fake.close();
+    }
+
+    @Test
+    void invalidLinesAreReportedAndTheRestWritten() throws Exception {
+        BulkOrderResult result = importOrders("""
+            {"branch": "kadikoy", "product": "bread", "quantity": "3"}
+            {"product": "bread", "quantity": "1"}
+            {"date": "01.03.2024", "branch": "kadikoy", "product": "milk", "quantity": "1"}
+            {"branch": "kadikoy", "product": ["milk"], "quantity": "1"}
+            {"date": "2024-03-02", "branch": "besiktas", "product": "milk", "quantity": 2}
+            """);
+
+        assertEquals(5, result.getReceived());
+        assertEquals(2, result.getWritten());
+        assertEquals(3, result.getRejected());
+        assertEquals(List.of(2, 3, 4), result.getErrors().stream().map(BulkOrderResult.LineError::getLine).toList());
+        assertEquals("branch is required", result.getErrors().get(0).getMessage());
+        assertEquals("date must be yyyy-MM-dd", result.getErrors().get(1).getMessage());
+        assertEquals("3", fake.written("orders/" + DAY + "/branches/kadikoy").get("bread"));
+        assertEquals("2", fake.written("orders/02.03.2024/branches/besiktas").get("milk"));
+    }
+
+    @Test
+    void malformedJsonStopsTheImport() throws Exception {
+        BulkOrderResult result = importOrders("""
+            [{"branch": "kadikoy", "product": "bread", "quantity": "3"},
+             {"branch": "kadikoy", "product": "milk", "quantity": "1"},
+             {"branch": "kadikoy", "product": "tea" "quantity": "1"},
+             {"branch": "kadikoy", "product": "eggs", "quantity": "1"}]
+            """);
+
+        assertEquals(2, result.getWritten());
+        assertEquals(1, result.getRejected());
+        assertEquals(3, result.getErrors().get(0).getLine());
+        assertTrue(result.getErrors().get(0).getMessage().startsWith("Malformed JSON, import stopped"));
+        assertNull(fake.written("orders/" + DAY + "/branches/kadikoy").get("eggs"));
+    }
+
+    @Test
+    void commitsHoldWholeDocumentsAndKeepLineOrder() throws Exception {
+        StringBuilder body = new StringBuilder();
+        body.append("{\"branch\": \"kadikoy\", \"product\": \"bread\", \"quantity\": \"1\"}\n");
+        body.append("{\"branch\": \"kadikoy\", \"product\": \"milk\", \"quantity\": \"1\"}\n");
+        // Fills the first commit, so the next kadikoy line lands in the second
+        for (int branch = 0; branch < OrderWriter.MAX_BATCH_WRITES; branch++) {
+            body.append("{\"branch\": \"branch-").append(branch).append("\", \"product\": \"bread\", \"quantity\": \"1\"}\n");
+        }
+        body.append("{\"branch\": \"kadikoy\", \"product\": \"bread\", \"quantity\": \"2\"}\n");
+
+        BulkOrderResult result = importOrders(body.toString());
+
+        assertEquals(OrderWriter.MAX_BATCH_WRITES + 3, result.getWritten());
+        assertEquals(2, result.getCommits());
+        assertEquals(List.of(OrderWriter.MAX_BATCH_WRITES, 2), fake.commits().stream().map(List::size).toList());
+        assertEquals("2", fake.written("orders/" + DAY + "/branches/kadikoy").get("bread"));
+        assertEquals("1", fake.written("orders/" + DAY + "/branches/kadikoy").get("milk"));
+    }
+
+    @Test
+    void failedCommitRejectsItsLines() throws Exception {
+        fake.failCommits(1);
+
+        BulkOrderResult result = importOrders("""
+            {"branch": "kadikoy", "product": "bread", "quantity": "3"}
+            {"branch": "besiktas", "product": "bread", "quantity": "1"}
+            """);
+
+        assertEquals(0, result.getWritten());
+        assertEquals(2, result.getRejected());
+        assertEquals(1, result.getCommits());
+        assertTrue(result.getErrors().get(0).getMessage().startsWith("Commit failed"));
+        assertEquals(0, fake.commits().size());
+    }
+
+    private BulkOrderResult importOrders(String body) throws Exception {
+        return importer.importOrders(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), DATE);
+    }
+}
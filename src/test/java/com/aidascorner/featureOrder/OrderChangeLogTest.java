@@ -0,0 +1,143 @@
+package com.aidascorner.featureOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.aidascorner.featureOrder.model.OrderChange;
+import com.aidascorner.featureOrder.model.OrderChangeSet;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.EventListener;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreException;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+
+import io.grpc.Status;
+
+class OrderChangeLogTest {
+
+    private OrderChangeLog changeLog;
+    private long nowSeconds;
+
+    @BeforeEach
+    void setUp() {
+        OrderProperties properties = new OrderProperties();
+        properties.getChanges().setEnabled(true);
+        changeLog = new OrderChangeLog(mock(Firestore.class, RETURNS_DEEP_STUBS), properties);
+        changeLog.start();
+        nowSeconds = System.currentTimeMillis() / 1000;
+    }
+
+    @Test
+    void notAvailableBeforeTheFirstSnapshot() {
+        assertThrows(IllegalStateException.class, () -> changeLog.changesSince(null));
+    }
+
+    @Test
+    void returnsOnlyTheChangesAfterTheToken() {
+        changeLog.apply(snapshot(nowSeconds));
+        String start = changeLog.changesSince(null).getToken();
+
+        changeLog.apply(snapshot(nowSeconds + 2,
+            change(nowSeconds + 1, "01.03.2024", "kadikoy", Map.of("bread", "3")),
+            change(nowSeconds + 2, "01.03.2024", "besiktas", Map.of("cake", 2L))));
+        OrderChangeSet first = changeLog.changesSince(start);
+
+        assertEquals(2, first.getChanges().size());
+        assertEquals(new OrderChange("01.03.2024", "kadikoy", "bread", "3", false), first.getChanges().get(0));
+        assertEquals(new OrderChange("01.03.2024", "besiktas", "cake", "2", false), first.getChanges().get(1));
+
+        changeLog.apply(snapshot(nowSeconds + 3,
+            change(nowSeconds + 3, "01.03.2024", "kadikoy", Map.of("bread", 12345678.5))));
+        OrderChangeSet second = changeLog.changesSince(first.getToken());
+
+        assertEquals(List.of(new OrderChange("01.03.2024", "kadikoy", "bread", "12345678.5", false)), second.getChanges());
+        assertTrue(changeLog.changesSince(second.getToken()).getChanges().isEmpty());
+    }
+
+    @Test
+    void tokensOlderThanTheLogAreReset() {
+        changeLog.apply(snapshot(nowSeconds));
+
+        assertTrue(changeLog.changesSince("0").isReset());
+        assertThrows(IllegalArgumentException.class, () -> changeLog.changesSince("not a token!"));
+    }
+
+    @Test
+    void failedListenerIsAttachedAgainAndReplaysTheLog() throws Exception {
+        Firestore firestore = mock(Firestore.class);
+        CollectionReference collection = mock(CollectionReference.class);
+        Query query = mock(Query.class);
+        List<EventListener<QuerySnapshot>> listeners = new CopyOnWriteArrayList<>();
+        when(firestore.collection(OrderChangeLog.COLLECTION)).thenReturn(collection);
+        when(collection.whereGreaterThan(eq(OrderChangeLog.AT_FIELD), any())).thenReturn(query);
+        when(query.orderBy(OrderChangeLog.AT_FIELD)).thenReturn(query);
+        when(query.addSnapshotListener(any())).thenAnswer(invocation -> {
+            listeners.add(invocation.getArgument(0));
+            return mock(ListenerRegistration.class);
+        });
+        OrderProperties properties = new OrderProperties();
+        properties.getChanges().setEnabled(true);
+        OrderChangeLog log = new OrderChangeLog(firestore, properties);
+        log.start();
+
+        DocumentChange first = change(nowSeconds + 1, "01.03.2024", "kadikoy", Map.of("bread", "3"));
+        listeners.get(0).onEvent(snapshot(nowSeconds + 1, first), null);
+        String token = log.changesSince(null).getToken();
+
+        listeners.get(0).onEvent(null, FirestoreException.forServerRejection(Status.UNAVAILABLE, "listen stream closed"));
+        assertThrows(IllegalStateException.class, () -> log.changesSince(token));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (listeners.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, listeners.size());
+
+        // The new listener delivers the whole log again, including what was already held
+        listeners.get(1).onEvent(snapshot(nowSeconds + 2, first,
+            change(nowSeconds + 2, "01.03.2024", "besiktas", Map.of("cake", "1"))), null);
+        assertEquals(List.of(new OrderChange("01.03.2024", "besiktas", "cake", "1", false)),
+            log.changesSince(token).getChanges());
+        log.stop();
+    }
+
+    private static QuerySnapshot snapshot(long readSeconds, DocumentChange... changes) {
+        QuerySnapshot snapshot = mock(QuerySnapshot.class);
+        when(snapshot.getReadTime()).thenReturn(Timestamp.ofTimeSecondsAndNanos(readSeconds, 0));
+        when(snapshot.getDocumentChanges()).thenReturn(new ArrayList<>(List.of(changes)));
+        return snapshot;
+    }
+
+    private static DocumentChange change(long atSeconds, String date, String branch, Map<String, Object> products) {
+        QueryDocumentSnapshot document = mock(QueryDocumentSnapshot.class);
+        when(document.getTimestamp(OrderChangeLog.AT_FIELD)).thenReturn(Timestamp.ofTimeSecondsAndNanos(atSeconds, 0));
+        when(document.getString("date")).thenReturn(date);
+        when(document.getString("branch")).thenReturn(branch);
+        when(document.get("products")).thenReturn(products);
+        when(document.getBoolean("increment")).thenReturn(false);
+
+        DocumentChange change = mock(DocumentChange.class);
+        when(change.getType()).thenReturn(DocumentChange.Type.ADDED);
+        when(change.getDocument()).thenReturn(document);
+        return change;
+    }
+}
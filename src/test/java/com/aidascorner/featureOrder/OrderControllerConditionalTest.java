@@ -0,0 +1,101 @@
+package com.aidascorner.featureOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * ETag and Last-Modified handling of GET /api/orders/date/{date} for a day held by the live view
+ */
+class OrderControllerConditionalTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final String PATH = "/api/orders/date/" + TODAY;
+
+    private final FakeFirestore fake = new FakeFirestore(0);
+    private OrderServiceFixture.Wiring wiring;
+
+    @AfterEach
+    void tearDown() {
+        wiring.liveView().stop();
+        fake.close();
+    }
+
+    @Test
+    void matchingEtagGetsNotModified() throws Exception {
+        fake.put(DateUtil.formatDate(TODAY), "kadikoy", "bread", "3");
+        MockMvc mvc = boot();
+
+        MockHttpServletResponse first = perform(mvc, get(PATH));
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertEquals(200, first.getStatus());
+        assertNotNull(etag);
+        assertNotNull(first.getHeader(HttpHeaders.LAST_MODIFIED));
+
+        MockHttpServletResponse second = perform(mvc, get(PATH).header(HttpHeaders.IF_NONE_MATCH, etag));
+        assertEquals(304, second.getStatus());
+        assertEquals(etag, second.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void writeToTheDayChangesTheEtag() throws Exception {
+        fake.put(DateUtil.formatDate(TODAY), "kadikoy", "bread", "3");
+        MockMvc mvc = boot();
+        String etag = perform(mvc, get(PATH)).getHeader(HttpHeaders.ETAG);
+
+        fake.put(DateUtil.formatDate(TODAY), "kadikoy", "bread", "4");
+
+        long deadline = System.currentTimeMillis() + 2000;
+        MockHttpServletResponse response;
+        do {
+            Thread.sleep(10);
+            response = perform(mvc, get(PATH).header(HttpHeaders.IF_NONE_MATCH, etag));
+        } while (response.getStatus() == 304 && System.currentTimeMillis() < deadline);
+
+        assertEquals(200, response.getStatus());
+        assertNotEquals(etag, response.getHeader(HttpHeaders.ETAG));
+        assertEquals(true, response.getContentAsString().contains("\"bread\":\"4\""));
+    }
+
+    @Test
+    void restartDoesNotMatchAnEtagFromTheLastBoot() throws Exception {
+        fake.put(DateUtil.formatDate(TODAY), "kadikoy", "bread", "3");
+        String etag = perform(boot(), get(PATH)).getHeader(HttpHeaders.ETAG);
+        wiring.liveView().stop();
+
+        // Versions start over on every boot; the boot id is a millisecond stamp
+        Thread.sleep(5);
+        MockHttpServletResponse restarted = perform(boot(), get(PATH).header(HttpHeaders.IF_NONE_MATCH, etag));
+
+        assertEquals(200, restarted.getStatus());
+        assertNotEquals(etag, restarted.getHeader(HttpHeaders.ETAG));
+    }
+
+    private MockMvc boot() throws Exception {
+        OrderProperties properties = new OrderProperties();
+        properties.getLiveView().setEnabled(true);
+        properties.getLiveView().setWindowDays(1);
+        wiring = OrderServiceFixture.wire(fake.firestore(), properties);
+        wiring.branchDirectory().getBranches();
+        wiring.liveView().start();
+        return MockMvcBuilders.standaloneSetup(wiring.orderController()).build();
+    }
+
+    private static MockHttpServletResponse perform(MockMvc mvc, MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult started = mvc.perform(request).andReturn();
+        return mvc.perform(asyncDispatch(started)).andReturn().getResponse();
+    }
+}
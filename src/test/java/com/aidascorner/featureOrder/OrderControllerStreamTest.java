@@ -0,0 +1,141 @@
+package com.aidascorner.featureOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.aidascorner.featureOrder.model.Order;
+import com.aidascorner.featureOrder.model.OrderStreamRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * GET /api/orders/stream and /api/orders/export: record order, a read failing mid-stream,
+ * and the read permit they take on arrival
+ */
+class OrderControllerStreamTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 3, 1);
+    private static final LocalDate END = LocalDate.of(2024, 3, 3);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final FakeFirestore fake = new FakeFirestore(0);
+    private OrderServiceFixture.Wiring wiring;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        for (String date : DateUtil.getDateStringsInRange(START, END)) {
+            fake.put(date, "kadikoy", "bread", "3");
+        }
+        OrderProperties properties = new OrderProperties();
+        properties.getCache().setEnabled(false);
+        wiring = OrderServiceFixture.wire(fake.firestore(), properties);
+        mvc = MockMvcBuilders.standaloneSetup(wiring.orderController()).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fake.close();
+    }
+
+    @Test
+    void streamWritesDaysInDateOrderThenTheRange() throws Exception {
+        // The first day answers last
+        fake.delayReads(DateUtil.formatDate(START), 300);
+
+        MvcResult started = mvc.perform(get("/api/orders/stream")
+            .param("startDate", START.toString()).param("endDate", END.toString())).andReturn();
+        List<OrderStreamRecord> records = records(written(started));
+
+        assertEquals(List.of("day", "day", "day", "range"), records.stream().map(OrderStreamRecord::getType).toList());
+        assertEquals(List.of("01.03.2024", "02.03.2024", "03.03.2024"),
+            records.subList(0, 3).stream().map(OrderStreamRecord::getDate).toList());
+        assertEquals("9.0", total(records.get(3)).getProducts().get("bread"));
+    }
+
+    @Test
+    void readFailingMidStreamEndsTheBodyAfterTheDaysBeforeIt() throws Exception {
+        fake.failReads(DateUtil.formatDate(END));
+
+        MvcResult started = mvc.perform(get("/api/orders/stream")
+            .param("startDate", START.toString()).param("endDate", END.toString())).andReturn();
+        MvcResult streaming = mvc.perform(asyncDispatch(started)).andReturn();
+
+        assertInstanceOf(IOException.class, streaming.getAsyncResult());
+        List<OrderStreamRecord> records = records(streaming.getResponse());
+        assertEquals(List.of("01.03.2024", "02.03.2024"), records.stream().map(OrderStreamRecord::getDate).toList());
+        assertEquals(0, wiring.admission().reads().inFlight());
+    }
+
+    @Test
+    void writtenBodyHandsThePermitBack() throws Exception {
+        MvcResult started = mvc.perform(get("/api/orders/export")
+            .param("startDate", START.toString()).param("endDate", END.toString())).andReturn();
+        MockHttpServletResponse response = written(started);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(4, response.getContentAsString().lines().count());
+        assertEquals(0, wiring.admission().reads().inFlight());
+    }
+
+    @Test
+    void bodyNeverWrittenStillHandsThePermitBack() throws Exception {
+        MvcResult started = mvc.perform(get("/api/orders/stream")
+            .param("startDate", START.toString()).param("endDate", END.toString())).andReturn();
+        started.getAsyncResult();
+        assertEquals(3, wiring.admission().reads().inFlight());
+
+        // The client goes away before the body is dispatched
+        started.getRequest().getAsyncContext().complete();
+
+        assertEquals(0, wiring.admission().reads().inFlight());
+    }
+
+    @Test
+    void exportNeverWrittenStillHandsThePermitBack() throws Exception {
+        MvcResult started = mvc.perform(get("/api/orders/export")
+            .param("startDate", START.toString()).param("endDate", END.toString())).andReturn();
+        started.getAsyncResult();
+
+        started.getRequest().getAsyncContext().complete();
+
+        assertEquals(0, wiring.admission().reads().inFlight());
+    }
+
+    private static List<OrderStreamRecord> records(MockHttpServletResponse response) throws Exception {
+        List<OrderStreamRecord> records = new ArrayList<>();
+        for (String line : response.getContentAsString().split("\n")) {
+            if (!line.isEmpty()) {
+                records.add(OBJECT_MAPPER.readValue(line, OrderStreamRecord.class));
+            }
+        }
+        return records;
+    }
+
+    private static Order total(OrderStreamRecord record) {
+        return record.getOrders().stream()
+            .filter(order -> OrderAggregator.TOTAL_BRANCH_ID.equals(order.getBranchId()))
+            .findFirst().orElseThrow();
+    }
+
+    private MockHttpServletResponse written(MvcResult started) throws Exception {
+        MvcResult streaming = mvc.perform(asyncDispatch(started)).andReturn();
+        streaming.getAsyncResult();
+        return streaming.getResponse();
+    }
+}
@@ -0,0 +1,59 @@
+package com.aidascorner.featureOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * POST /api/orders/totals answering from the index that POST /api/orders keeps up to date
+ */
+class OrderControllerTotalsTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private final FakeFirestore fake = new FakeFirestore(0);
+
+    @AfterEach
+    void tearDown() {
+        fake.close();
+    }
+
+    @Test
+    void totalsIncludeOrdersWrittenSinceTheIndexWasBuilt() throws Exception {
+        fake.put(DateUtil.formatDate(TODAY.minusDays(1)), "kadikoy", "bread", "3");
+        OrderProperties properties = new OrderProperties();
+        properties.getTotalsIndex().setEnabled(true);
+        properties.getTotalsIndex().setHistoryDays(3);
+        properties.getTotalsIndex().setFutureDays(1);
+        OrderServiceFixture.Wiring wiring = OrderServiceFixture.wire(fake.firestore(), properties);
+        new OrderTotalsService(wiring.orderService(), wiring.totalsIndex(), properties).rebuildIndex();
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(wiring.orderController()).build();
+
+        MockHttpServletResponse added = mvc.perform(post("/api/orders").param("date", TODAY.toString())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"branch\": \"kadikoy\", \"product\": \"bread\", \"quantity\": \"2\"}"))
+            .andReturn().getResponse();
+        assertEquals(200, added.getStatus());
+
+        MockHttpServletResponse response = mvc.perform(post("/api/orders/totals")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ranges\": [{\"startDate\": \"" + TODAY.minusDays(1) + "\", \"endDate\": \"" + TODAY + "\"}],"
+                    + " \"branches\": [\"kadikoy\"]}"))
+            .andReturn().getResponse();
+        assertEquals(200, response.getStatus());
+        JsonNode totals = new ObjectMapper().readTree(response.getContentAsString()).get(0);
+        assertEquals("index", totals.get("source").asText());
+        assertEquals(5.0, totals.get("totals").get("kadikoy").get("bread").asDouble());
+    }
+}
@@ -0,0 +1,56 @@
+package com.aidascorner.featureOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.aidascorner.featureOrder.model.Order;
+
+class OrderDayCacheTest {
+
+    private final OrderDayCache cache = new OrderDayCache(new OrderProperties(), new OrderVersions());
+
+    @Test
+    void writeToAnotherDayDoesNotHoldBackAPut() {
+        long generation = cache.generation("01.03.2024");
+        cache.invalidate("02.03.2024");
+
+        cache.put("01.03.2024", orders("01.03.2024"), generation);
+
+        assertNotNull(cache.get("01.03.2024"));
+    }
+
+    @Test
+    void writeToTheSameDayRejectsAReadThatStartedBeforeIt() {
+        long generation = cache.generation("01.03.2024");
+        cache.invalidate("01.03.2024");
+
+        cache.put("01.03.2024", orders("01.03.2024"), generation);
+
+        assertNull(cache.get("01.03.2024"));
+    }
+
+    @Test
+    void rangeGenerationOnlyMovesForDaysInTheRange() {
+        LocalDate start = LocalDate.of(2024, 3, 1);
+        LocalDate end = LocalDate.of(2024, 3, 31);
+        long before = cache.generation(start, end);
+
+        cache.invalidate("01.04.2024");
+        assertEquals(before, cache.generation(start, end));
+
+        cache.invalidate("31.03.2024");
+        assertNotEquals(before, cache.generation(start, end));
+    }
+
+    private static List<Order> orders(String date) {
+        return List.of(new Order("kadikoy", "Kadıköy", date, Map.of("bread", "3")));
+    }
+}
@@ -0,0 +1,101 @@
+package com.aidascorner.featureOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.aidascorner.featureOrder.model.DayFieldStampStatus;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+
+/**
+ * The day-field migration running in the background, and span reads skipping branches
+ * subcollections outside orders/
+ */
+class OrderDayIndexTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 3, 1);
+
+    private final FakeFirestore fake = new FakeFirestore(5);
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        for (int day = 0; day < 3; day++) {
+            String date = DateUtil.formatDate(START.plusDays(day));
+            fake.put(date, "kadikoy", "bread", "1");
+            fake.put(date, "besiktas", "bread", "2");
+        }
+        // Written after the stamp existed
+        fake.put(DateUtil.formatDate(START), "kadikoy", OrderDayIndex.DAY_FIELD, START.toString());
+        fake.put("not-a-date", "kadikoy", "bread", "1");
+        orderService = OrderServiceFixture.orderService(fake.firestore(), new OrderProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        fake.close();
+    }
+
+    @Test
+    void stampsDocumentsMissingTheDayInTheBackground() throws Exception {
+        assertNull(orderService.getDayFieldStampStatus());
+
+        DayFieldStampStatus started = orderService.startDayFieldStamp();
+        assertTrue(started.isRunning());
+        await(() -> !orderService.getDayFieldStampStatus().isRunning());
+
+        DayFieldStampStatus status = orderService.getDayFieldStampStatus();
+        assertNull(status.getError());
+        assertEquals(3, status.getDaysScanned());
+        assertEquals(5, status.getDocumentsStamped());
+        assertEquals("2024-03-03", fake.written("orders/03.03.2024/branches/besiktas").get(OrderDayIndex.DAY_FIELD));
+        assertNull(fake.written("orders/01.03.2024/branches/kadikoy"));
+        assertNull(fake.written("orders/not-a-date/branches/kadikoy"));
+    }
+
+    @Test
+    void startingWhileRunningReturnsTheRunningJob() throws Exception {
+        fake.pause();
+        DayFieldStampStatus first = orderService.startDayFieldStamp();
+        DayFieldStampStatus second = orderService.startDayFieldStamp();
+        assertEquals(first.getStartedAt(), second.getStartedAt());
+
+        fake.resume();
+        await(() -> !orderService.getDayFieldStampStatus().isRunning());
+        assertEquals(1, fake.commits().size());
+    }
+
+    @Test
+    void spanReadsOnlyKeepOrderBranchDocuments() {
+        assertTrue(OrderDayIndex.isDayBranch(documentAt("orders/01.03.2024/branches/kadikoy")));
+        assertFalse(OrderDayIndex.isDayBranch(documentAt("orderRollups/2024-03/branches/kadikoy")));
+    }
+
+    private static QueryDocumentSnapshot documentAt(String path) {
+        DocumentReference reference = mock(DocumentReference.class);
+        when(reference.getPath()).thenReturn(path);
+        QueryDocumentSnapshot document = mock(QueryDocumentSnapshot.class);
+        when(document.getReference()).thenReturn(reference);
+        return document;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
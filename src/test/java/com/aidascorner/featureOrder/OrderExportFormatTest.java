@@ -0,0 +1,78 @@
+package com.aidascorner.featureOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.aidascorner.featureOrder.model.Order;
+
+class OrderExportFormatTest {
+
+    private static final LocalDate FIRST = LocalDate.of(2024, 3, 1);
+
+    @Test
+    void writesCsvRowsInBranchAndProductOrder() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OrderExportFormat.DayWriter writer = OrderExportFormat.CSV.open(out);
+        writer.writeDay(FIRST, List.of(
+            new Order("b", "Beşiktaş, Sahil", "01.03.2024", Map.of("cake", "2")),
+            new Order("a", "Kadıköy", "01.03.2024", Map.of("simit", "4", "bread", "1.5kg"))));
+        writer.writeDay(FIRST.plusDays(1), List.of());
+        writer.finish();
+
+        assertEquals("date,branchId,branchName,product,quantity\n"
+            + "2024-03-01,a,Kadıköy,bread,1.5kg\n"
+            + "2024-03-01,a,Kadıköy,simit,4\n"
+            + "2024-03-01,b,\"Beşiktaş, Sahil\",cake,2\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writesCsvQuantitiesReadAsDoublesInPlainNotation() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OrderExportFormat.DayWriter writer = OrderExportFormat.CSV.open(out);
+        writer.writeDay(FIRST, List.of(OrderService.toOrder("01.03.2024", "a", Map.of("bread", 12345678.5))));
+        writer.finish();
+
+        assertEquals("date,branchId,branchName,product,quantity\n"
+            + "2024-03-01,a,a,bread,12345678.5\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writesBinaryDictionariesBeforeTheDaysThatUseThem() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OrderExportFormat.DayWriter writer = OrderExportFormat.BINARY.open(out);
+        writer.writeDay(FIRST, List.of(new Order("a", "A", "01.03.2024", Map.of("bread", "1.5kg"))));
+        writer.writeDay(FIRST.plusDays(1), List.of(new Order("a", "A", "02.03.2024", Map.of("bread", "3"))));
+        writer.finish();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals("ORD1", new String(in.readNBytes(4), StandardCharsets.US_ASCII));
+        assertEquals(1, in.readByte());
+        assertEquals("a", in.readUTF());
+        assertEquals("A", in.readUTF());
+        assertEquals(2, in.readByte());
+        assertEquals("bread", in.readUTF());
+        assertEquals(3, in.readByte());
+        assertEquals(FIRST.toEpochDay(), in.readInt());
+        assertEquals(1, in.readByte());
+        assertEquals(0, in.readByte());
+        assertEquals(0, in.readByte());
+        assertEquals(1.5, in.readDouble());
+        assertEquals(3, in.readByte());
+        assertEquals(FIRST.plusDays(1).toEpochDay(), in.readInt());
+        assertEquals(1, in.readByte());
+        assertEquals(0, in.readByte());
+        assertEquals(0, in.readByte());
+        assertEquals(3.0, in.readDouble());
+        assertEquals(0, in.readByte());
+        assertEquals(-1, in.read());
+    }
+}
@@ -0,0 +1,61 @@
+package com.aidascorner.featureOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.aidascorner.featureOrder.model.Order;
+import com.aidascorner.featureOrder.model.OrderFilter;
+
+class OrderFiltersTest {
+
+    private static final List<Order> DAY = List.of(
+        new Order("c", "C", "01.03.2024", Map.of("bread", "3", "cake", "1")),
+        new Order("a", "A", "01.03.2024", Map.of("bread", "1")),
+        new Order("b", "B", "01.03.2024", Map.of("cake", "2")));
+
+    @Test
+    void selectsProductsAcrossAllBranches() {
+        List<Order> selected = OrderFilters.apply(DAY, new OrderFilter(null, List.of("bread"), null, null));
+
+        assertEquals(3, selected.size());
+        assertEquals(Map.of("bread", "3"), selected.get(0).getProducts());
+        assertEquals(Map.of(), selected.get(2).getProducts());
+        // The source orders are left alone
+        assertEquals(2, DAY.get(0).getProducts().size());
+    }
+
+    @Test
+    void pagesInBranchIdOrder() {
+        OrderFilter firstPage = new OrderFilter(null, null, 2, null);
+        List<Order> first = OrderFilters.apply(DAY, firstPage);
+        List<Order> second = OrderFilters.apply(DAY, new OrderFilter(null, null, 2, "b"));
+
+        assertEquals(List.of("a", "b"), first.stream().map(Order::getBranchId).toList());
+        assertEquals(List.of("c"), second.stream().map(Order::getBranchId).toList());
+        assertFalse(OrderFilters.coversAllBranches(firstPage));
+    }
+
+    @Test
+    void selectsBranches() {
+        OrderFilter filter = new OrderFilter(List.of("b", "c"), null, null, null);
+
+        assertEquals(List.of("c", "b"), OrderFilters.apply(DAY, filter).stream().map(Order::getBranchId).toList());
+        assertFalse(OrderFilters.coversAllBranches(filter));
+        assertTrue(OrderFilters.coversAllBranches(new OrderFilter(null, List.of("bread"), null, null)));
+    }
+
+    @Test
+    void rejectsInvalidPages() {
+        assertThrows(IllegalArgumentException.class,
+            () -> OrderFilters.validate(new OrderFilter(null, null, 0, null)));
+        assertThrows(IllegalArgumentException.class,
+            () -> OrderFilters.validate(new OrderFilter(null, null, null, "a")));
+    }
+}
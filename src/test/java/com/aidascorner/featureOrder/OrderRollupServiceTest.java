@@ -0,0 +1,110 @@
+package com.aidascorner.featureOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.aidascorner.core.firestore.FirestoreMetrics;
+import com.aidascorner.featureOrder.model.Order;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.WriteBatch;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Rebuilding a month's rollups: new totals are committed before documents the month no
+ * longer has are deleted, and a failed write deletes nothing. Rollup quantities are stored as
+ * integers when whole and read back without an exponent.
+ */
+class OrderRollupServiceTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2024, 3);
+    private static final String MONTH_PATH = "orderRollups/2024-03";
+
+    private final FakeFirestore fake = new FakeFirestore(5);
+    private OrderRollupService rollupService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        rollupService = new OrderRollupService(fake.firestore(), new FirestoreMetrics(new SimpleMeterRegistry()));
+        rollupService.replaceMonth(MONTH,
+            Map.of("01.03.2024", Map.of("bread", 3.0), "02.03.2024", Map.of("bread", 2.0)),
+            Map.of("kadikoy", Map.of("bread", 4.0), "besiktas", Map.of("bread", 1.0)),
+            Map.of("bread", 5.0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        fake.close();
+    }
+
+    @Test
+    void newTotalsAreWrittenBeforeStaleDocumentsAreDeleted() throws Exception {
+        int before = fake.commits().size();
+
+        replaceWithKadikoyOnly();
+
+        List<List<FakeFirestore.Write>> commits = fake.commits().subList(before, fake.commits().size());
+        assertEquals(2, commits.size());
+        assertEquals(3, commits.get(0).stream().filter(write -> write.fields() != null).count());
+        assertEquals(List.of(
+                new FakeFirestore.Write(MONTH_PATH + "/branches/besiktas", null),
+                new FakeFirestore.Write(MONTH_PATH + "/days/02.03.2024", null)),
+            commits.get(1));
+
+        assertEquals(6L, fake.written(MONTH_PATH + "/branches/kadikoy").get("bread"));
+        assertEquals(6L, fake.written(MONTH_PATH).get("bread"));
+        assertNull(fake.written(MONTH_PATH + "/branches/besiktas"));
+        assertNull(fake.written(MONTH_PATH + "/days/02.03.2024"));
+    }
+
+    @Test
+    void failedWriteLeavesTheOldDocumentsInPlace() {
+        int before = fake.commits().size();
+        fake.failCommits(1);
+
+        assertThrows(ExecutionException.class, this::replaceWithKadikoyOnly);
+
+        assertEquals(before, fake.commits().size());
+        assertEquals(4L, fake.written(MONTH_PATH + "/branches/kadikoy").get("bread"));
+        assertNotNull(fake.written(MONTH_PATH + "/branches/besiktas"));
+        assertNotNull(fake.written(MONTH_PATH + "/days/02.03.2024"));
+        assertEquals(5L, fake.written(MONTH_PATH).get("bread"));
+    }
+
+    @Test
+    void wholeDeltasAreIntegerIncrementsAndLargeTotalsReadBackPlain() throws Exception {
+        WriteBatch batch = fake.firestore().batch();
+        rollupService.addIncrements(batch, Map.of(
+            new BranchDocKey("01.03.2024", "kadikoy"), Map.of("bread", "3", "salt", "0.5")));
+        batch.commit().get();
+
+        Map<String, Object> increments = fake.written(MONTH_PATH + "/branches/kadikoy");
+        assertEquals(FieldValue.increment(3L), increments.get("bread"));
+        assertEquals(FieldValue.increment(0.5), increments.get("salt"));
+
+        rollupService.replaceMonth(MONTH,
+            Map.of("01.03.2024", Map.of("bread", 12345678.5)),
+            Map.of("kadikoy", Map.of("bread", 12345678.5, "salt", 0.0005)),
+            Map.of("bread", 12345678.5));
+        Order kadikoy = rollupService.getMonthBranchTotals(MONTH, "March 2024").get().get(0);
+        assertEquals(Map.of("bread", "12345678.5", "salt", "0.0005"), kadikoy.getProducts());
+    }
+
+    private void replaceWithKadikoyOnly() throws Exception {
+        rollupService.replaceMonth(MONTH,
+            Map.of("01.03.2024", Map.of("bread", 6.0)),
+            Map.of("kadikoy", Map.of("bread", 6.0)),
+            Map.of("bread", 6.0));
+    }
+}
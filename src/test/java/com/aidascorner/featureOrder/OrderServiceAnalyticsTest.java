@@ -0,0 +1,76 @@
+package com.aidascorner.featureOrder;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.aidascorner.featureOrder.model.OrderAnalytics;
+import com.aidascorner.featureOrder.model.RankedQuantity;
+
+class OrderServiceAnalyticsTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 3, 1);
+
+    private FakeFirestore fake;
+    private OrderService service;
+
+    @BeforeEach
+    void setUp() {
+        fake = new FakeFirestore(0);
+        // Day d (0 = a week before START): every branch b orders d + b bread; branch0 also 100 cakes on day 10
+        int day = 0;
+        for (String date : DateUtil.getDateStringsInRange(START.minusDays(7), START.plusDays(29))) {
+            for (int branch = 0; branch < 3; branch++) {
+                fake.put(date, "branch" + branch, "bread", String.valueOf(day + branch));
+            }
+            if (day == 10) {
+                fake.put(date, "branch0", "cake", "100");
+            }
+            day++;
+        }
+        service = OrderServiceFixture.orderService(fake.firestore(), new OrderProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        fake.close();
+    }
+
+    @Test
+    void ranksTotalsAndComputesSeriesAndDeltas() throws Exception {
+        OrderAnalytics analytics = service.getAnalyticsAsync(START, START.plusDays(9), 2).get();
+
+        assertEquals(List.of("bread", "cake"), analytics.getTopProducts().stream().map(RankedQuantity::getId).toList());
+        assertEquals(375.0, analytics.getTopProducts().get(0).getQuantity());
+        assertEquals(List.of("branch0", "branch2"), analytics.getTopBranches().stream().map(RankedQuantity::getId).toList());
+        assertEquals(215.0, analytics.getTopBranches().get(0).getQuantity());
+
+        assertArrayEquals(new double[] {8, 9, 10, 11, 12, 13, 14, 15, 16, 17}, analytics.getBranchSeries().get("branch1"));
+        assertEquals(3, analytics.getBranchSeries().size());
+        assertArrayEquals(new double[] {24, 27, 30, 133, 36, 39, 42, 45, 48, 51}, analytics.getDayTotals());
+        assertArrayEquals(new double[] {3, 3, 3, 103, -97, 3, 3, 3, 3, 3}, analytics.getDayOverDay());
+        assertArrayEquals(new double[] {21, 21, 21, 121, 21, 21, 21, 21, 21, 21}, analytics.getWeekOverWeek());
+    }
+
+    @Test
+    void keepsTheLowerIdOnTies() {
+        List<RankedQuantity> top = OrderAnalyzer.top(new double[] {5, 7, 5, 0}, new boolean[] {true, true, true, false}, 2,
+            id -> new RankedQuantity(String.valueOf(id), null, 0));
+
+        assertEquals(List.of("1", "0"), top.stream().map(RankedQuantity::getId).toList());
+    }
+
+    @Test
+    void rejectsInvalidRequests() {
+        assertThrows(IllegalArgumentException.class, () -> service.getAnalyticsAsync(START.plusDays(1), START, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.getAnalyticsAsync(START, START, 0));
+        assertThrows(IllegalArgumentException.class, () -> service.getAnalyticsAsync(START, START.plusDays(1000), 10));
+    }
+}
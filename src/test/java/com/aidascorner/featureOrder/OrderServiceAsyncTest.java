@@ -0,0 +1,77 @@
+package com.aidascorner.featureOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.aidascorner.featureOrder.model.Order;
+
+class OrderServiceAsyncTest {
+
+    private static final long LATENCY_MILLIS = 100;
+    private static final int REQUESTS = 1000;
+    private static final LocalDate START = LocalDate.of(2024, 3, 1);
+
+    private FakeFirestore fake;
+
+    @BeforeEach
+    void setUp() {
+        fake = new FakeFirestore(LATENCY_MILLIS);
+        for (String date : DateUtil.getDateStringsInRange(START, START.plusDays(REQUESTS - 1))) {
+            for (int branch = 0; branch < 5; branch++) {
+                fake.put(date, "branch" + branch, "bread", String.valueOf(branch + 1));
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        fake.close();
+    }
+
+    @Test
+    void concurrentReadsDoNotHoldAThreadEach() throws Exception {
+        OrderProperties properties = new OrderProperties();
+        properties.getCache().setEnabled(false);
+        OrderService service = OrderServiceFixture.orderService(fake.firestore(), properties);
+
+        // With every answer held back, a thread per read would stop the loop at the pool size
+        fake.pause();
+        List<CompletableFuture<List<Order>>> reads = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            reads.add(service.getOrdersByDateAsync(START.plusDays(i)));
+        }
+        await(() -> fake.inFlight() == REQUESTS);
+        assertTrue(reads.stream().noneMatch(CompletableFuture::isDone));
+
+        fake.resume();
+        CompletableFuture.allOf(reads.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        for (CompletableFuture<List<Order>> read : reads) {
+            // five branches plus the day total
+            assertEquals(6, read.get().size());
+        }
+        assertEquals(REQUESTS, fake.reads());
+        assertEquals(REQUESTS, fake.peakInFlight());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 5s");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.aidascorner.featureOrder;
+
+import com.aidascorner.core.firestore.FirestoreMetrics;
+import com.aidascorner.featureBranch.service.BranchDirectory;
+import com.aidascorner.featureBranch.service.BranchProperties;
+import com.aidascorner.featureBranch.service.BranchService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.firestore.Firestore;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Wires an OrderService and its collaborators by hand, the way Spring would
+ */
+final class OrderServiceFixture {
+
+    private OrderServiceFixture() {
+    }
+
+    static OrderService orderService(Firestore firestore, OrderProperties properties) {
+        return wire(firestore, properties).orderService();
+    }
+
+    /**
+     * With a snapshot store opened by the caller
+     */
+    static OrderService orderService(Firestore firestore, OrderProperties properties, OrderSnapshotStore snapshotStore) {
+        return wire(firestore, properties, snapshotStore).orderService();
+    }
+
+    static Wiring wire(Firestore firestore, OrderProperties properties) {
+        return wire(firestore, properties,
+            new OrderSnapshotStore(firestore, properties, new FirestoreMetrics(new SimpleMeterRegistry())));
+    }
+
+    static Wiring wire(Firestore firestore, OrderProperties properties, OrderSnapshotStore snapshotStore) {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        FirestoreMetrics firestoreMetrics = new FirestoreMetrics(registry);
+        OrderVersions versions = new OrderVersions();
+        OrderDayCache dayCache = new OrderDayCache(properties, versions);
+        OrderRollupService rollupService = new OrderRollupService(firestore, firestoreMetrics);
+        RecentOrdersView liveView = new RecentOrdersView(firestore, properties, versions);
+        OrderChangeLog changeLog = new OrderChangeLog(firestore, properties);
+        OrderTotalsIndex totalsIndex = new OrderTotalsIndex();
+        OrderWriter orderWriter = new OrderWriter(firestore, properties, dayCache, rollupService, liveView, firestoreMetrics,
+            totalsIndex, versions, changeLog, snapshotStore);
+        OrderWriteBuffer writeBuffer = new OrderWriteBuffer(orderWriter, properties);
+        BranchDirectory branchDirectory = new BranchDirectory(firestore, new BranchProperties(), firestoreMetrics);
+        OrderAdmission admission = new OrderAdmission(properties, registry);
+        OrderService orderService = new OrderService(firestore, new BranchService(branchDirectory), properties, dayCache,
+            rollupService, orderWriter, writeBuffer, liveView, firestoreMetrics, new OrderMetrics(registry),
+            new OrderDayIndex(firestore, properties, dayCache, firestoreMetrics, admission), versions, snapshotStore);
+        return new Wiring(orderService, orderWriter, writeBuffer, liveView, changeLog, versions, totalsIndex,
+            branchDirectory, admission, properties, registry);
+    }
+
+    /**
+     * The hand-wired beans a test may need to reach past the service
+     */
+    record Wiring(OrderService orderService, OrderWriter orderWriter, OrderWriteBuffer writeBuffer,
+                  RecentOrdersView liveView, OrderChangeLog changeLog, OrderVersions versions,
+                  OrderTotalsIndex totalsIndex, BranchDirectory branchDirectory, OrderAdmission admission, OrderProperties properties,
+                  MeterRegistry registry) {
+
+        OrderController orderController() {
+            ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+            return new OrderController(orderService,
+                new OrderBulkImporter(orderWriter, objectMapper, properties),
+                new OrderTotalsService(orderService, totalsIndex, properties),
+                changeLog, admission, objectMapper, properties);
+        }
+    }
+}
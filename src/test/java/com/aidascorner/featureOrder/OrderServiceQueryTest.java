@@ -0,0 +1,74 @@
+package com.aidascorner.featureOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.aidascorner.featureOrder.model.Order;
+import com.aidascorner.featureOrder.model.OrderQueryResult;
+import com.aidascorner.featureOrder.model.OrderQuerySpec;
+
+class OrderServiceQueryTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 3, 1);
+
+    private FakeFirestore fake;
+    private OrderService service;
+
+    @BeforeEach
+    void setUp() {
+        fake = new FakeFirestore(0);
+        int day = 0;
+        for (String date : DateUtil.getDateStringsInRange(START, START.plusDays(29))) {
+            for (int branch = 0; branch < 3; branch++) {
+                fake.put(date, "branch" + branch, "bread", String.valueOf(day + branch));
+            }
+            day++;
+        }
+        OrderProperties properties = new OrderProperties();
+        properties.getCache().setEnabled(false);
+        service = OrderServiceFixture.orderService(fake.firestore(), properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fake.close();
+    }
+
+    @Test
+    void overlappingQueriesReadEachDayOnce() throws Exception {
+        List<OrderQuerySpec> specs = List.of(
+            new OrderQuerySpec(START.plusDays(4), null, null),
+            new OrderQuerySpec(null, START, START.plusDays(9)),
+            new OrderQuerySpec(null, START.plusDays(4), START.plusDays(14)));
+
+        List<OrderQueryResult> results = service.queryAsync(specs).get();
+        int batchReads = fake.reads();
+
+        assertEquals(15, batchReads);
+        assertEquals(sorted(service.getOrdersByDate(START.plusDays(4))), sorted(results.get(0).getOrders()));
+        assertEquals(sorted(service.getOrdersForDateRange(START, START.plusDays(9)).values().iterator().next()),
+            sorted(results.get(1).getOrders()));
+        assertEquals(sorted(service.getOrdersForDateRange(START.plusDays(4), START.plusDays(14)).values().iterator().next()),
+            sorted(results.get(2).getOrders()));
+        assertEquals(START.plusDays(4), results.get(2).getStartDate());
+    }
+
+    @Test
+    void rejectsInvalidQueries() {
+        assertThrows(IllegalArgumentException.class, () -> service.queryAsync(List.of()));
+        assertThrows(IllegalArgumentException.class,
+            () -> service.queryAsync(List.of(new OrderQuerySpec(null, START.plusDays(1), START))));
+    }
+
+    private static List<Order> sorted(List<Order> orders) {
+        return orders.stream().sorted(Comparator.comparing(Order::getBranchId)).toList();
+    }
+}
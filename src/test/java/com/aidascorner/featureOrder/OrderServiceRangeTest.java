@@ -0,0 +1,111 @@
+package com.aidascorner.featureOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.aidascorner.featureOrder.model.Order;
+
+class OrderServiceRangeTest {
+
+    private static final long LATENCY_MILLIS = 25;
+    private static final LocalDate START = LocalDate.of(2024, 3, 1);
+    private static final LocalDate END = LocalDate.of(2024, 3, 30);
+
+    private FakeFirestore fake;
+
+    @BeforeEach
+    void setUp() {
+        fake = new FakeFirestore(LATENCY_MILLIS);
+        int day = 0;
+        for (String date : DateUtil.getDateStringsInRange(START, END)) {
+            for (int branch = 0; branch < 5; branch++) {
+                fake.put(date, "branch" + branch, "bread", String.valueOf(day + branch));
+                if (day % 3 == 0) {
+                    fake.put(date, "branch" + branch, "cake", (long) branch);
+                }
+            }
+            day++;
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        fake.close();
+    }
+
+    @Test
+    void parallelRangeMatchesSerialAndOverlapsReads() throws Exception {
+        OrderService serial = service(1);
+        OrderService parallel = service(16);
+
+        Map<String, List<Order>> serialResult = serial.getOrdersForDateRange(START, END);
+        int serialPeak = fake.peakInFlight();
+
+        fake.resetPeakInFlight();
+        Map<String, List<Order>> parallelResult = parallel.getOrdersForDateRange(START, END);
+        int parallelPeak = fake.peakInFlight();
+
+        assertEquals(sorted(serialResult), sorted(parallelResult));
+        assertEquals(1, serialPeak);
+        assertTrue(parallelPeak > 1 && parallelPeak <= 16, "peak in-flight reads " + parallelPeak);
+    }
+
+    @Test
+    void rangeTotalsSumEveryDay() throws Exception {
+        Map<String, List<Order>> result = service(4).getOrdersForDateRange(START, END);
+
+        Order total = result.values().iterator().next().stream()
+            .filter(order -> order.getBranchId().equals("total"))
+            .findFirst()
+            .orElseThrow();
+        // bread: sum over 30 days and 5 branches of (day + branch)
+        assertEquals(30 * 5 * 29 / 2.0 + 30 * 10, Double.parseDouble(total.getProducts().get("bread")));
+        // cake: 10 days with branches 0..4
+        assertEquals(10 * 10.0, Double.parseDouble(total.getProducts().get("cake")));
+    }
+
+    @Test
+    void warmRangeWithCollectionGroupReadsIssuesNoSpanQuery() throws Exception {
+        for (String date : DateUtil.getDateStringsInRange(START, END)) {
+            for (int branch = 0; branch < 5; branch++) {
+                fake.put(date, "branch" + branch, OrderDayIndex.DAY_FIELD, OrderDayIndex.dayValue(date));
+            }
+        }
+        OrderProperties properties = new OrderProperties();
+        properties.getRange().setCollectionGroup(true);
+        OrderService orderService = OrderServiceFixture.orderService(fake.firestore(), properties);
+
+        Map<String, List<Order>> first = orderService.getOrdersForDateRange(START, END);
+        assertEquals(1, fake.spanReads());
+        assertEquals(0, fake.reads());
+
+        Map<String, List<Order>> second = orderService.getOrdersForDateRange(START, END);
+        assertEquals(1, fake.spanReads());
+        assertEquals(0, fake.reads());
+        assertEquals(sorted(first), sorted(second));
+        assertEquals(sorted(first), sorted(service(4).getOrdersForDateRange(START, END)));
+    }
+
+    private OrderService service(int maxConcurrency) {
+        OrderProperties properties = new OrderProperties();
+        properties.getRange().setMaxConcurrency(maxConcurrency);
+        properties.getCache().setEnabled(false);
+        return OrderServiceFixture.orderService(fake.firestore(), properties);
+    }
+
+    private static List<Order> sorted(Map<String, List<Order>> result) {
+        return result.values().stream()
+            .flatMap(List::stream)
+            .sorted(Comparator.comparing(Order::getBranchId))
+            .toList();
+    }
+}
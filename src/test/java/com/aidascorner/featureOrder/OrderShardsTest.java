@@ -0,0 +1,47 @@
+package com.aidascorner.featureOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.aidascorner.featureOrder.model.Order;
+
+class OrderShardsTest {
+
+    @Test
+    void shardsAddUpToOneOrderPerBranch() {
+        List<Order> documents = new ArrayList<>(List.of(
+            OrderService.toOrder("01.03.2024", "kadikoy", Map.of("bread", 3L, "cake", "1 box")),
+            OrderService.toOrder("01.03.2024", "kadikoy~2", Map.of("bread", 4L, OrderShards.BRANCH_FIELD, "kadikoy")),
+            OrderService.toOrder("01.03.2024", "besiktas", Map.of("bread", 2L))));
+
+        List<Order> merged = OrderShards.merge(documents);
+
+        assertEquals(2, merged.size());
+        assertEquals("kadikoy", merged.get(0).getBranchId());
+        assertEquals(7.0, QuantityUtil.parseQuantity(merged.get(0).getProducts().get("bread")));
+        // Products held by a single shard keep their stored value
+        assertEquals("1 box", merged.get(0).getProducts().get("cake"));
+        assertEquals(Map.of("bread", "2"), merged.get(1).getProducts());
+    }
+
+    @Test
+    void unshardedDaysAreReturnedAsTheyAre() {
+        List<Order> documents = List.of(
+            new Order("kadikoy", "kadikoy", "01.03.2024", Map.of("bread", "3")),
+            new Order("besiktas", "besiktas", "01.03.2024", Map.of("bread", "2")));
+
+        assertSame(documents, OrderShards.merge(documents));
+    }
+
+    @Test
+    void shardZeroIsTheBranchDocument() {
+        assertEquals("kadikoy", OrderShards.documentId("kadikoy", 0));
+        assertEquals("kadikoy~3", OrderShards.documentId("kadikoy", 3));
+    }
+}
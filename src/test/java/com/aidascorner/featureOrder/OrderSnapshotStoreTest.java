@@ -0,0 +1,183 @@
+package com.aidascorner.featureOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.aidascorner.core.firestore.FirestoreMetrics;
+import com.aidascorner.featureOrder.model.Order;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OrderSnapshotStoreTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 3, 1);
+
+    @TempDir
+    Path directory;
+
+    private FakeFirestore fake;
+    private OrderProperties properties;
+    private OrderSnapshotStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fake = new FakeFirestore(0);
+        for (String date : DateUtil.getDateStringsInRange(START, START.plusDays(2))) {
+            fake.put(date, "kadikoy", "bread", "3");
+            fake.put(date, "kadikoy", "simit", "1.5kg");
+            fake.put(date, "besiktas", "bread", "2");
+        }
+        properties = new OrderProperties();
+        properties.getCache().setEnabled(false);
+        properties.getSnapshot().setEnabled(true);
+        properties.getSnapshot().setPath(directory.resolve("orders.snapshot").toString());
+        properties.getSnapshot().setMaxBytes(1024 * 1024);
+        properties.getSnapshot().setVerify(false);
+        store = open();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        store.close();
+        fake.close();
+    }
+
+    @Test
+    void servesClosedDaysAfterRestartWithoutReadingFirestore() throws Exception {
+        OrderService service = OrderServiceFixture.orderService(fake.firestore(), properties, store);
+        List<Order> first = service.getOrdersByDate(START.plusDays(1));
+        assertEquals(1, fake.reads());
+
+        store.close();
+        store = open();
+        OrderService restarted = OrderServiceFixture.orderService(fake.firestore(), properties, store);
+
+        assertEquals(sorted(first), sorted(restarted.getOrdersByDate(START.plusDays(1))));
+        assertEquals(1, fake.reads());
+    }
+
+    @Test
+    void doesNotStoreToday() throws Exception {
+        String today = DateUtil.formatDate(LocalDate.now());
+        fake.put(today, "kadikoy", "bread", "1");
+        OrderServiceFixture.orderService(fake.firestore(), properties, store).getOrdersByDate(LocalDate.now());
+
+        assertNull(store.get(today, () -> { }));
+    }
+
+    @Test
+    void dropsDaysThatChangedOrWereWrittenHere() throws Exception {
+        String changed = DateUtil.formatDate(START);
+        String written = DateUtil.formatDate(START.plusDays(2));
+        OrderService service = OrderServiceFixture.orderService(fake.firestore(), properties, store);
+        service.getOrdersByDate(START);
+        service.getOrdersByDate(START.plusDays(2));
+
+        assertTrue(store.verify(changed).get());
+        fake.put(changed, "uskudar", "cake", "1");
+        assertFalse(store.verify(changed).get());
+
+        store.invalidate(written);
+        store.close();
+        store = open();
+        assertNull(store.get(changed, () -> { }));
+        assertNull(store.get(written, () -> { }));
+    }
+
+    @Test
+    void doesNotStoreAReadThatOverlappedALocalWrite() throws Exception {
+        String date = DateUtil.formatDate(START);
+        OrderService service = OrderServiceFixture.orderService(fake.firestore(), properties, store);
+
+        fake.pause();
+        CompletableFuture<List<Order>> read = service.getOrdersByDateAsync(START);
+        // The write commits and invalidates while the read is still out
+        store.invalidate(date);
+        fake.resume();
+        read.get(5, TimeUnit.SECONDS);
+
+        assertNull(store.get(date, () -> { }));
+    }
+
+    @Test
+    void verifiesServedDaysAgainAfterTheInterval() throws Exception {
+        String date = DateUtil.formatDate(START);
+        properties.getSnapshot().setVerify(true);
+        properties.getSnapshot().setVerifyInterval(Duration.ZERO);
+        OrderServiceFixture.orderService(fake.firestore(), properties, store).getOrdersByDate(START);
+        AtomicInteger stale = new AtomicInteger();
+
+        // First serve verifies against the unchanged day
+        assertNotNull(store.get(date, stale::incrementAndGet));
+        assertEquals(0, stale.get());
+
+        fake.put(date, "uskudar", "cake", "1");
+        assertNotNull(store.get(date, stale::incrementAndGet));
+        assertEquals(1, stale.get());
+        assertNull(store.get(date, stale::incrementAndGet));
+    }
+
+    @Test
+    void doesNotVerifyAgainWithinTheInterval() throws Exception {
+        String date = DateUtil.formatDate(START);
+        properties.getSnapshot().setVerify(true);
+        properties.getSnapshot().setVerifyInterval(Duration.ofHours(1));
+        OrderServiceFixture.orderService(fake.firestore(), properties, store).getOrdersByDate(START);
+        int reads = fake.reads();
+
+        store.get(date, () -> { });
+        store.get(date, () -> { });
+
+        assertEquals(reads + 1, fake.reads());
+    }
+
+    @Test
+    void compactsInsteadOfFillingUp() throws Exception {
+        store.close();
+        properties.getSnapshot().setMaxBytes(2048);
+        store = open();
+        String date = DateUtil.formatDate(START);
+        OrderService service = OrderServiceFixture.orderService(fake.firestore(), properties, store);
+
+        // Each round appends a record and a tombstone, many times the file's size in total
+        for (int i = 0; i < 200; i++) {
+            store.invalidate(date);
+            service.getOrdersByDate(START);
+        }
+        service.getOrdersByDate(START.plusDays(1));
+        assertNotNull(store.get(date, () -> { }));
+        assertNotNull(store.get(DateUtil.formatDate(START.plusDays(1)), () -> { }));
+
+        store.close();
+        store = open();
+        assertEquals(3, store.get(date, () -> { }).stream().mapToInt(order -> order.getProducts().size()).sum());
+    }
+
+    private OrderSnapshotStore open() throws Exception {
+        OrderSnapshotStore opened = new OrderSnapshotStore(fake.firestore(), properties,
+            new FirestoreMetrics(new SimpleMeterRegistry()));
+        opened.open();
+        return opened;
+    }
+
+    private static List<Order> sorted(List<Order> orders) {
+        return orders.stream().sorted(Comparator.comparing(Order::getBranchId)).toList();
+    }
+}
@@ -0,0 +1,98 @@
+package com.aidascorner.featureOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.aidascorner.featureOrder.model.Order;
+
+class OrderTotalsIndexTest {
+
+    private static final LocalDate FIRST = LocalDate.of(2024, 3, 1);
+
+    private OrderTotalsIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new OrderTotalsIndex();
+        OrderTotalsIndex.Build build = index.startBuild(FIRST, 31);
+        for (int day = 0; day < 31; day++) {
+            String date = DateUtil.formatDate(FIRST.plusDays(day));
+            build.addDay(date, List.of(
+                new Order("kadikoy", "kadikoy", date, Map.of("bread", String.valueOf(day))),
+                new Order("besiktas", "besiktas", date, Map.of("bread", "1", "cake", "2.5"))));
+        }
+        build.finish();
+    }
+
+    @Test
+    void answersRangeTotalsPerBranchAndAcrossBranches() {
+        LocalDate start = FIRST.plusDays(10);
+        LocalDate end = FIRST.plusDays(19);
+
+        // days 10..19 of kadikoy bread sum to 145
+        assertEquals(145.0, index.total("kadikoy", "bread", start, end));
+        assertEquals(10.0, index.total("besiktas", "bread", start, end));
+        assertEquals(155.0, index.total(OrderAggregator.TOTAL_BRANCH_ID, "bread", start, end));
+        assertEquals(25.0, index.total("besiktas", "cake", start, end));
+        assertEquals(0.0, index.total("kadikoy", "cake", start, end));
+    }
+
+    @Test
+    void setReplacesTheStoredQuantity() {
+        String date = DateUtil.formatDate(FIRST.plusDays(5));
+
+        index.set(date, "kadikoy", "bread", 40);
+
+        assertEquals(40.0, index.total("kadikoy", "bread", FIRST.plusDays(5), FIRST.plusDays(5)));
+        assertEquals(41.0, index.total(OrderAggregator.TOTAL_BRANCH_ID, "bread", FIRST.plusDays(5), FIRST.plusDays(5)));
+    }
+
+    @Test
+    void writesDuringRebuildAreReplayed() {
+        OrderTotalsIndex.Build build = index.startBuild(FIRST, 31);
+        String date = DateUtil.formatDate(FIRST);
+        build.addDay(date, List.of(new Order("kadikoy", "kadikoy", date, Map.of("bread", "3"))));
+        index.set(date, "kadikoy", "bread", 8);
+        build.finish();
+
+        assertEquals(8.0, index.total("kadikoy", "bread", FIRST, FIRST));
+    }
+
+    @Test
+    void addIncrementsTheStoredQuantity() {
+        String date = DateUtil.formatDate(FIRST.plusDays(5));
+
+        index.add(date, "kadikoy", "bread", 2);
+        index.add(date, "kadikoy", "bread", 3);
+
+        assertEquals(10.0, index.total("kadikoy", "bread", FIRST.plusDays(5), FIRST.plusDays(5)));
+        assertEquals(11.0, index.total(OrderAggregator.TOTAL_BRANCH_ID, "bread", FIRST.plusDays(5), FIRST.plusDays(5)));
+    }
+
+    @Test
+    void incrementsDuringRebuildAreReportedNotReplayed() {
+        OrderTotalsIndex.Build build = index.startBuild(FIRST, 31);
+        String date = DateUtil.formatDate(FIRST);
+        index.add(date, "kadikoy", "bread", 4);
+        build.addDay(date, List.of(new Order("kadikoy", "kadikoy", date, Map.of("bread", "4"))));
+
+        assertEquals(Set.of(date), build.finish());
+        assertEquals(4.0, index.total("kadikoy", "bread", FIRST, FIRST));
+    }
+
+    @Test
+    void coversOnlyTheBuiltWindow() {
+        assertTrue(index.covers(FIRST, FIRST.plusDays(30)));
+        assertFalse(index.covers(FIRST.minusDays(1), FIRST.plusDays(30)));
+        assertFalse(index.covers(FIRST, FIRST.plusDays(31)));
+    }
+}
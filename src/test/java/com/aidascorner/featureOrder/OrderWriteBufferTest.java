@@ -0,0 +1,115 @@
+package com.aidascorner.featureOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.aidascorner.featureOrder.model.OrderItem;
+import com.google.cloud.firestore.FirestoreException;
+
+/**
+ * Group commit: lines coalesced into one commit, a failed commit failing every line in it,
+ * and shutdown committing what is still queued
+ */
+class OrderWriteBufferTest {
+
+    private static final String DATE = DateUtil.formatDate(LocalDate.of(2024, 3, 1));
+
+    private final FakeFirestore fake = new FakeFirestore(5);
+    private OrderWriteBuffer writeBuffer;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writeBuffer.shutdown();
+        fake.close();
+    }
+
+    @Test
+    void linesForOneDocumentMergeIntoOneCommit() throws Exception {
+        writeBuffer = writeBuffer(Duration.ofMillis(200));
+
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (int quantity = 1; quantity <= 5; quantity++) {
+            results.add(writeBuffer.submit(DATE, item("kadikoy", "bread", String.valueOf(quantity))));
+        }
+        results.add(writeBuffer.submit(DATE, item("kadikoy", "milk", "2")));
+        results.add(writeBuffer.submit(DATE, item("besiktas", "bread", "7")));
+        awaitAll(results);
+
+        assertEquals(1, fake.commits().size());
+        assertEquals(2, fake.commits().get(0).size());
+        // Later lines win, as they would written one after another
+        assertEquals("5", fake.written("orders/" + DATE + "/branches/kadikoy").get("bread"));
+        assertEquals("2", fake.written("orders/" + DATE + "/branches/kadikoy").get("milk"));
+        assertEquals("7", fake.written("orders/" + DATE + "/branches/besiktas").get("bread"));
+    }
+
+    @Test
+    void failedCommitFailsEveryLineInIt() throws Exception {
+        writeBuffer = writeBuffer(Duration.ofMillis(200));
+        fake.failCommits(1);
+
+        List<CompletableFuture<Void>> results = List.of(
+            writeBuffer.submit(DATE, item("kadikoy", "bread", "1")),
+            writeBuffer.submit(DATE, item("kadikoy", "milk", "2")),
+            writeBuffer.submit(DATE, item("besiktas", "bread", "3")));
+
+        for (CompletableFuture<Void> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(FirestoreException.class, e.getCause());
+        }
+        assertEquals(0, fake.commits().size());
+
+        // The next commit is unaffected
+        writeBuffer.submit(DATE, item("kadikoy", "bread", "4")).get(5, TimeUnit.SECONDS);
+        assertEquals("4", fake.written("orders/" + DATE + "/branches/kadikoy").get("bread"));
+    }
+
+    @Test
+    void shutdownCommitsWhatIsQueued() throws Exception {
+        writeBuffer = writeBuffer(Duration.ofMillis(300));
+
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (int branch = 0; branch < 20; branch++) {
+            results.add(writeBuffer.submit(DATE, item("branch-" + branch, "bread", "1")));
+        }
+        writeBuffer.shutdown();
+
+        for (CompletableFuture<Void> result : results) {
+            assertTrue(result.isDone() && !result.isCompletedExceptionally());
+        }
+        assertEquals(20, fake.commits().stream().mapToInt(List::size).sum());
+        assertThrows(OrderQueueFullException.class, () -> writeBuffer.submit(DATE, item("kadikoy", "bread", "1")));
+    }
+
+    private OrderWriteBuffer writeBuffer(Duration flushInterval) {
+        OrderProperties properties = new OrderProperties();
+        properties.getWrite().getGroupCommit().setEnabled(true);
+        properties.getWrite().getGroupCommit().setFlushInterval(flushInterval);
+        return OrderServiceFixture.wire(fake.firestore(), properties).writeBuffer();
+    }
+
+    private static OrderItem item(String branch, String product, String quantity) {
+        OrderItem item = new OrderItem();
+        item.setBranch(branch);
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    private static void awaitAll(List<CompletableFuture<Void>> results) throws Exception {
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,101 @@
+package com.aidascorner.featureOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.aidascorner.featureOrder.model.OrderItem;
+import com.google.cloud.firestore.FieldValue;
+
+/**
+ * Increment-mode writes carrying a request id: a retry is recorded once and counted once
+ */
+class OrderWriterIdempotencyTest {
+
+    private static final String DATE = DateUtil.formatDate(LocalDate.of(2024, 3, 1));
+    private static final String BRANCH_PATH = "orders/" + DATE + "/branches/kadikoy";
+
+    private final FakeFirestore fake = new FakeFirestore(5);
+    private OrderWriter orderWriter;
+
+    @BeforeEach
+    void setUp() {
+        OrderProperties properties = new OrderProperties();
+        properties.getWrite().setIncrement(true);
+        orderWriter = OrderServiceFixture.wire(fake.firestore(), properties).orderWriter();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fake.close();
+    }
+
+    @Test
+    void retriedRequestIsCountedOnce() throws Exception {
+        orderWriter.write(DATE, item("r-1", "3"));
+        orderWriter.write(DATE, item("r-1", "3"));
+
+        assertEquals(1, fake.commits().size());
+        assertEquals(FieldValue.increment(3L), fake.written(BRANCH_PATH).get("bread"));
+        assertNotNull(fake.written("orders/" + DATE + "/requests/r-1").get(OrderWriter.EXPIRE_FIELD));
+    }
+
+    @Test
+    void concurrentRetriesAreCountedOnce() throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int attempt = 0; attempt < 16; attempt++) {
+                results.add(callers.submit(() -> {
+                    orderWriter.write(DATE, item("r-1", "2.5"));
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertEquals(1, fake.commits().size());
+        assertEquals(FieldValue.increment(2.5), fake.written(BRANCH_PATH).get("bread"));
+    }
+
+    @Test
+    void distinctRequestsAndLinesWithoutIdAllCount() throws Exception {
+        orderWriter.write(DATE, item("r-1", "1"));
+        orderWriter.write(DATE, item("r-2", "1"));
+        orderWriter.write(DATE, item(null, "1"));
+        orderWriter.write(DATE, item(null, "1"));
+
+        assertEquals(4, fake.commits().size());
+    }
+
+    @Test
+    void requestIdThatIsNotADocumentIdIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> orderWriter.write(DATE, item("a/b", "1")));
+        assertThrows(IllegalArgumentException.class, () -> orderWriter.write(DATE, item(" ", "1")));
+        assertEquals(0, fake.commits().size());
+    }
+
+    private static OrderItem item(String requestId, String quantity) {
+        OrderItem item = new OrderItem();
+        item.setBranch("kadikoy");
+        item.setProduct("bread");
+        item.setQuantity(quantity);
+        item.setRequestId(requestId);
+        return item;
+    }
+}
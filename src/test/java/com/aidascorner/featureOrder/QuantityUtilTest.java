@@ -0,0 +1,60 @@
+package com.aidascorner.featureOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class QuantityUtilTest {
+
+    @Test
+    void matchesRegexStrippingParser() {
+        List<String> inputs = new ArrayList<>(List.of(
+            "5", "5 kg", "1.5", "-2", "- 3", "a1b2", "1.2.3", "", "5-3", "-", ".", "5.", "-.5",
+            "0.1", "0.3", "1e5", "-0", "12,5", "2.675", "9007199254740993",
+            "123456789012345678901", "3.14159265358979323846", "0.0000000000000000000000001"));
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            inputs.add(String.valueOf(random.nextInt(100_000) / Math.pow(10, random.nextInt(6))));
+            inputs.add(Double.toString(random.nextDouble() * 1000));
+        }
+
+        for (String input : inputs) {
+            assertEquals(referenceParse(input), QuantityUtil.parseQuantity(input), input);
+        }
+    }
+
+    @Test
+    void usesFirestoreNumbersDirectly() {
+        assertEquals(12.0, QuantityUtil.parseQuantity((Object) 12L));
+        assertEquals(2.5, QuantityUtil.parseQuantity((Object) 2.5));
+        assertEquals(0.0, QuantityUtil.parseQuantity((Object) null));
+    }
+
+    @Test
+    void firestoreDoublesReadBackWithoutAnExponent() {
+        assertEquals("12345678.5", QuantityUtil.formatQuantity(12345678.5));
+        assertEquals("0.0005", QuantityUtil.formatQuantity(0.0005));
+        assertEquals("20000000", QuantityUtil.formatQuantity(2.0e7));
+        assertEquals("3", QuantityUtil.formatQuantity(3L));
+        assertEquals("2 kg", QuantityUtil.formatQuantity("2 kg"));
+
+        Map<String, String> products = OrderService.toOrder("01.03.2024", "kadikoy",
+            Map.of("bread", 12345678.5, "salt", 0.0005, "simit", 4L)).getProducts();
+        assertEquals(Map.of("bread", "12345678.5", "salt", "0.0005", "simit", "4"), products);
+        assertEquals(12345678.5, QuantityUtil.parseQuantity(products.get("bread")));
+        assertEquals(0.0005, QuantityUtil.parseQuantity(products.get("salt")));
+    }
+
+    private static double referenceParse(String quantityStr) {
+        try {
+            return Double.parseDouble(quantityStr.replaceAll("[^0-9.-]", "").trim());
+        } catch (Exception e) {
+            return 0.0;
+        }
+    }
+}
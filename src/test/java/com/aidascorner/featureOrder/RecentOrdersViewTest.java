@@ -0,0 +1,127 @@
+package com.aidascorner.featureOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.aidascorner.featureOrder.model.Order;
+
+class RecentOrdersViewTest {
+
+    private final String today = DateUtil.formatDate(LocalDate.now());
+    private final String yesterday = DateUtil.formatDate(LocalDate.now().minusDays(1));
+
+    private FakeFirestore fake;
+    private OrderProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        fake = new FakeFirestore(5);
+        fake.put(today, "kadikoy", "bread", "3");
+        fake.put(yesterday, "kadikoy", "bread", "7");
+
+        properties = new OrderProperties();
+        properties.getLiveView().setEnabled(true);
+        properties.getLiveView().setWindowDays(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fake.close();
+    }
+
+    @Test
+    void servesWarmDaysFromMemoryAndAppliesChanges() throws Exception {
+        RecentOrdersView view = new RecentOrdersView(fake.firestore(), properties, new OrderVersions());
+        view.start();
+
+        assertEquals("3", product(view.get(today), "kadikoy", "bread"));
+        assertEquals("7", product(view.get(yesterday), "kadikoy", "bread"));
+
+        fake.put(today, "kadikoy", "cake", "2");
+        fake.put(today, "besiktas", "bread", "5");
+        await(() -> view.get(today).size() == 2 && "2".equals(product(view.get(today), "kadikoy", "cake")));
+        assertEquals("5", product(view.get(today), "besiktas", "bread"));
+        assertTrue(view.status().getLastPropagationLagMillis() >= 0);
+
+        view.stop();
+    }
+
+    @Test
+    void localWriteFallsBackUntilNextSnapshot() throws Exception {
+        RecentOrdersView view = new RecentOrdersView(fake.firestore(), properties, new OrderVersions());
+        view.start();
+
+        view.onLocalWrite(today);
+        assertNull(view.get(today));
+
+        fake.put(today, "kadikoy", "bread", "4");
+        await(() -> view.get(today) != null);
+        assertEquals("4", product(view.get(today), "kadikoy", "bread"));
+
+        view.stop();
+    }
+
+    @Test
+    void rollingDropsDaysLeavingTheWindow() throws Exception {
+        RecentOrdersView view = new RecentOrdersView(fake.firestore(), properties, new OrderVersions());
+        view.start();
+
+        view.roll(LocalDate.now().plusDays(1));
+
+        assertNull(view.get(yesterday));
+        assertNotNull(view.get(today));
+        assertEquals(2, view.status().getDaysTracked());
+
+        view.stop();
+    }
+
+    private static String product(List<Order> orders, String branchId, String product) {
+        return orders.stream()
+            .filter(order -> order.getBranchId().equals(branchId))
+            .map(order -> order.getProducts().get(product))
+            .findFirst()
+            .orElse(null);
+    }
+
+    @Test
+    void failedListenerIsAttachedAgain() throws Exception {
+        RecentOrdersView view = new RecentOrdersView(fake.firestore(), properties, new OrderVersions());
+        view.start();
+
+        fake.failListeners(today);
+        await(() -> view.get(today) == null);
+        // Changed while no listener was attached
+        fake.put(today, "kadikoy", "bread", "9");
+
+        // The first retry comes after a second
+        await(() -> view.get(today) != null, 5000);
+        assertEquals("9", product(view.get(today), "kadikoy", "bread"));
+        assertEquals(1, fake.listeners(today));
+
+        view.stop();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        await(condition, 2000);
+    }
+
+    private static void await(BooleanSupplier condition, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within " + timeoutMillis + "ms");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
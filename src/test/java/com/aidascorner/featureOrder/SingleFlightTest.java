@@ -0,0 +1,79 @@
+package com.aidascorner.featureOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+    private final AtomicInteger coalesced = new AtomicInteger();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final SingleFlight<String, String> flights = new SingleFlight<>(coalesced::incrementAndGet);
+
+    @Test
+    void concurrentCallersShareOneCall() throws Exception {
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> first = flights.run("day", () -> call(pending));
+        CompletableFuture<String> second = flights.run("day", () -> call(pending));
+        CompletableFuture<String> other = flights.run("other", () -> call(CompletableFuture.completedFuture("x")));
+
+        pending.complete("orders");
+
+        assertEquals("orders", first.get());
+        assertEquals("orders", second.get());
+        assertEquals("x", other.get());
+        assertEquals(2, calls.get());
+        assertEquals(1, coalesced.get());
+    }
+
+    @Test
+    void completedCallsAreNotReused() throws Exception {
+        flights.run("day", () -> call(CompletableFuture.completedFuture("old"))).get();
+
+        assertEquals("new", flights.run("day", () -> call(CompletableFuture.completedFuture("new"))).get());
+        assertEquals(2, calls.get());
+        assertEquals(0, coalesced.get());
+        assertEquals(0, flights.size());
+    }
+
+    @Test
+    void failuresReachEveryCallerAndAreNotRemembered() throws Exception {
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> first = flights.run("day", () -> call(pending));
+        CompletableFuture<String> second = flights.run("day", () -> call(pending));
+        IllegalStateException failure = new IllegalStateException("read failed");
+
+        pending.completeExceptionally(failure);
+
+        assertSame(failure, assertThrows(ExecutionException.class, first::get).getCause());
+        assertSame(failure, assertThrows(ExecutionException.class, second::get).getCause());
+        assertEquals("retried", flights.run("day", () -> call(CompletableFuture.completedFuture("retried"))).get());
+    }
+
+    @Test
+    void oneCallerTimingOutDoesNotAffectTheOthers() throws Exception {
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> impatient = flights.run("day", () -> call(pending))
+            .orTimeout(1, TimeUnit.MILLISECONDS);
+        CompletableFuture<String> patient = flights.run("day", () -> call(pending));
+
+        assertThrows(ExecutionException.class, impatient::get);
+        assertFalse(patient.isDone());
+
+        pending.complete("orders");
+        assertEquals("orders", patient.get());
+    }
+
+    private CompletableFuture<String> call(CompletableFuture<String> result) {
+        calls.incrementAndGet();
+        return result;
+    }
+}